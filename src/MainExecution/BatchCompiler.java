@@ -0,0 +1,105 @@
+package MainExecution;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Command line batch compiler: runs the lexer, parser and semantic analyzer
+ * over every .java and .c file of the given directories, files and @lists
+ * (text files naming one path per line) on a work-stealing pool, then prints
+ * the messages of each file in argument order and a summary with the time of
+ * each phase and the throughput. Needs no JavaFX.
+ *
+ * usage: BatchCompiler [-j workers] [-q] (file | directory | @list)...
+ */
+public class BatchCompiler {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int workers = Runtime.getRuntime().availableProcessors();
+        boolean quiet = false; //print the summary only
+        List<String> fileNames = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-j") && i + 1 < args.length) {
+                workers = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-q")) {
+                quiet = true;
+            } else if (args[i].startsWith("@")) {
+                for (String line : Files.readAllLines(Paths.get(args[i].substring(1)))) {
+                    if (!line.trim().isEmpty()) {
+                        addSources(Paths.get(line.trim()), fileNames);
+                    }
+                }
+            } else {
+                addSources(Paths.get(args[i]), fileNames);
+            }
+        }
+        if (fileNames.isEmpty()) {
+            System.err.println("usage: BatchCompiler [-j workers] [-q] (file | directory | @list)...");
+            System.exit(2);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        long startTime = System.nanoTime();
+        List<ParallelCompiler.Result> results;
+        try {
+            results = new ParallelCompiler(pool).compile(fileNames);
+        } finally {
+            pool.shutdown();
+        }
+        long wallTime = System.nanoTime() - startTime;
+
+        // messages of each file, in argument order
+        long bytes = 0;
+        long lexTime = 0, parseTime = 0, semanticTime = 0;
+        int lexErrors = 0, syntaxErrors = 0, semanticErrors = 0, failed = 0;
+        for (ParallelCompiler.Result result : results) {
+            if (!quiet) {
+                for (String message : result.getDiagnostics().getMessages()) {
+                    System.err.println(result.getFileName() + ": " + message);
+                }
+            }
+            bytes += result.getSize();
+            lexTime += result.getLexNanos();
+            parseTime += result.getParseNanos();
+            semanticTime += result.getSemanticNanos();
+            lexErrors += result.getLexErrors();
+            syntaxErrors += result.getSyntaxErrors();
+            semanticErrors += result.getSemanticErrors();
+            failed += result.isFailed() ? 1 : 0;
+        }
+
+        // print out statistics
+        double seconds = wallTime / 1e9;
+        System.out.println("---");
+        System.out.printf("Compiled %d files (%.2f MB) in %.2f ms on %d workers%n", results.size(),
+                bytes / 1e6, wallTime / 1e6, workers);
+        System.out.printf("Lexing: %.2f ms, parsing: %.2f ms, semantic analysis: %.2f ms (summed over workers)%n",
+                lexTime / 1e6, parseTime / 1e6, semanticTime / 1e6);
+        System.out.printf("Throughput: %.1f files/s, %.2f MB/s%n", results.size() / seconds, bytes / 1e6 / seconds);
+        System.out.println("Errors: " + lexErrors + " lexical, " + syntaxErrors + " syntax, " + semanticErrors
+                + " semantic, " + failed + " files not compiled");
+        System.exit(lexErrors + syntaxErrors + semanticErrors + failed == 0 ? 0 : 1);
+    }
+
+    // add a file, or the .java and .c files under a directory in path order
+    private static void addSources(Path path, List<String> fileNames) throws IOException {
+        if (!Files.isDirectory(path)) {
+            fileNames.add(path.toString());
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            fileNames.addAll(files.filter(Files::isRegularFile)
+                    .map(Path::toString)
+                    .filter(name -> name.endsWith(".java") || name.endsWith(".c"))
+                    .sorted()
+                    .collect(Collectors.toList()));
+        }
+    }
+}
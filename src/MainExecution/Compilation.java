@@ -0,0 +1,146 @@
+package MainExecution;
+
+import ast.Assign;
+import ast.Exp;
+import ast.Identifier;
+import ast.Program;
+import ast.VarDecl;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import lexer.CharScanner;
+import lexer.Diagnostics;
+import lexer.Lexer;
+import lexer.TokenBuffer;
+import lexer.TokenCache;
+import lexer.TokenType;
+import parser.Parser;
+import semantic.SemanticAnalyzer;
+
+/**
+ * Lexes and parses a Java source file exactly once and keeps the results so
+ * the lexical report, the AST print and the semantic analysis can share them.
+ * All errors of the file go to one Diagnostics, so files can be compiled on
+ * several threads at once.
+ */
+public class Compilation {
+
+    private final String fileName;
+    private final TokenBuffer tokens; //token stream, ends with EOF
+    private final Parser parser;
+    private final Program program;
+    private final Diagnostics diagnostics; //errors of every phase, in the order found
+    private final int lexErrors;
+
+    private final long lexTime; //lexing time in ns
+    private final long parseTime; //parsing time in ns
+
+    // compile printing errors to System.err
+    public Compilation(String fileName) throws IOException {
+        this(fileName, new Diagnostics(System.err));
+    }
+
+    public Compilation(String fileName, Diagnostics diagnostics) throws IOException {
+        this(fileName, diagnostics, null);
+    }
+
+    // compile taking the tokens from cache, which may be shared by many
+    // compilations, or lexing the file when cache is null
+    public Compilation(String fileName, Diagnostics diagnostics, TokenCache cache) throws IOException {
+        this.fileName = fileName;
+        this.diagnostics = diagnostics;
+
+        // tokenize the whole memory mapped file, unless cached and unchanged
+        long startTime = System.nanoTime();
+        Path file = Paths.get(fileName);
+        this.tokens = cache != null ? cache.get(file) : lex(file);
+        this.lexErrors = CharScanner.report(tokens, TokenType.UNKNOWN.ordinal(), diagnostics);
+        long endTime = System.nanoTime();
+        this.lexTime = endTime - startTime;
+
+        // parse the recorded token stream
+        startTime = System.nanoTime();
+        this.parser = new Parser(tokens, diagnostics);
+        this.program = parser.parseProgram();
+        endTime = System.nanoTime();
+        this.parseTime = endTime - startTime;
+    }
+
+    // token cache for compilations of files compiled again and again, keeping
+    // at most capacity files
+    public static TokenCache newTokenCache(int capacity) {
+        return new TokenCache(Compilation::lex, capacity);
+    }
+
+    private static TokenBuffer lex(Path file) throws IOException {
+        Lexer lexer = new Lexer(file);
+        lexer.setQuiet(true); // problems are reported by each compilation
+        return lexer.tokenize();
+    }
+
+    // run the semantic checks over the parser's side tables
+    public SemanticAnalyzer analyze() throws IOException {
+        SemanticAnalyzer semantic = new SemanticAnalyzer(parser);
+        semantic.analyzeProgram();
+        return semantic;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public TokenBuffer getTokens() {
+        return tokens;
+    }
+
+    public Parser getParser() {
+        return parser;
+    }
+
+    public Program getProgram() {
+        return program;
+    }
+
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    public int getLexErrors() {
+        return lexErrors;
+    }
+
+    public ArrayList<VarDecl> getDecelarations() {
+        return parser.getDecelarations();
+    }
+
+    public ArrayList<Identifier> getIdentifiers() {
+        return parser.getIdentifiers();
+    }
+
+    public ArrayList<Assign> getAssigns() {
+        return parser.getAssigns();
+    }
+
+    public ArrayList<Exp> getConditions() {
+        return parser.getConditions();
+    }
+
+    // lexing time in ms
+    public long getLexTime() {
+        return lexTime / 1000000;
+    }
+
+    // parsing time in ms
+    public long getParseTime() {
+        return parseTime / 1000000;
+    }
+
+    public long getLexNanos() {
+        return lexTime;
+    }
+
+    public long getParseNanos() {
+        return parseTime;
+    }
+}
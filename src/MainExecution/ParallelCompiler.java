@@ -0,0 +1,190 @@
+package MainExecution;
+
+import ast.Program;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import lexer.Diagnostics;
+import semantic.SemanticAnalyzer;
+import semanticC.SemanticAnalyzerC;
+
+/**
+ * Compiles many files at once on a thread pool. Every file gets its own
+ * parser, analyzer, AST and Diagnostics, so the tasks share nothing. The
+ * largest files are submitted first, so a big file never starts last and
+ * holds up the batch, yet the results come back in the order of the file
+ * names, with the same messages as a compilation of each file alone.
+ */
+public class ParallelCompiler {
+
+    /**
+     * Outcome of compiling one file.
+     */
+    public static class Result {
+
+        private final String fileName;
+        private final long size; //file size in bytes
+        private final Program program; //null if the file could not be read
+        private final Diagnostics diagnostics;
+        private final int lexErrors;
+        private final int syntaxErrors;
+        private final int semanticErrors;
+        private final boolean failed; //the file could not be read
+        private final long lexTime; //lexing time in ns
+        private final long parseTime; //parsing time in ns
+        private final long semanticTime; //semantic analysis time in ns
+
+        Result(String fileName, long size, Program program, Diagnostics diagnostics, int lexErrors,
+                int syntaxErrors, int semanticErrors, boolean failed, long lexTime, long parseTime,
+                long semanticTime) {
+            this.fileName = fileName;
+            this.size = size;
+            this.program = program;
+            this.diagnostics = diagnostics;
+            this.lexErrors = lexErrors;
+            this.syntaxErrors = syntaxErrors;
+            this.semanticErrors = semanticErrors;
+            this.failed = failed;
+            this.lexTime = lexTime;
+            this.parseTime = parseTime;
+            this.semanticTime = semanticTime;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public Program getProgram() {
+            return program;
+        }
+
+        public Diagnostics getDiagnostics() {
+            return diagnostics;
+        }
+
+        public int getLexErrors() {
+            return lexErrors;
+        }
+
+        public int getSyntaxErrors() {
+            return syntaxErrors;
+        }
+
+        public int getSemanticErrors() {
+            return semanticErrors;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+
+        // errors of every phase, a file that could not be read counting as one
+        public int getErrors() {
+            return failed ? 1 : lexErrors + syntaxErrors + semanticErrors;
+        }
+
+        public long getLexNanos() {
+            return lexTime;
+        }
+
+        public long getParseNanos() {
+            return parseTime;
+        }
+
+        public long getSemanticNanos() {
+            return semanticTime;
+        }
+    }
+
+    private final ExecutorService pool;
+
+    public ParallelCompiler(ExecutorService pool) {
+        this.pool = pool;
+    }
+
+    // compile every file on the pool, return the results in the order of fileNames
+    public List<Result> compile(List<String> fileNames) throws InterruptedException {
+        int count = fileNames.size();
+        long[] sizes = new long[count];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            sizes[i] = size(fileNames.get(i));
+            order[i] = i;
+        }
+        // largest first, ties in input order
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> -sizes[i]));
+
+        // submitted largest first, kept by input index
+        List<Future<Result>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(null);
+        }
+        for (int i : order) {
+            String fileName = fileNames.get(i);
+            futures.set(i, pool.submit(() -> compile(fileName)));
+        }
+
+        List<Result> results = new ArrayList<>(count);
+        for (Future<Result> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("compilation failed", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    // size of a file in bytes, 0 if it cannot be read
+    private static long size(String fileName) {
+        try {
+            return Files.size(Paths.get(fileName));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // lex, parse and analyze one file, collecting its messages without printing them
+    public static Result compile(String fileName) {
+        Diagnostics diagnostics = new Diagnostics();
+        long size = size(fileName);
+        try {
+            if (fileName.endsWith(".java")) {
+                Compilation compilation = new Compilation(fileName, diagnostics);
+                long startTime = System.nanoTime();
+                SemanticAnalyzer semantic = compilation.analyze();
+                long semanticTime = System.nanoTime() - startTime;
+                return new Result(fileName, size, compilation.getProgram(), diagnostics,
+                        compilation.getLexErrors(), compilation.getParser().getErrors(), semantic.getErrors(),
+                        false, compilation.getLexNanos(), compilation.getParseNanos(), semanticTime);
+            } else if (fileName.endsWith(".c")) {
+                CompilationC compilation = new CompilationC(fileName, diagnostics);
+                long startTime = System.nanoTime();
+                SemanticAnalyzerC semantic = compilation.analyze();
+                long semanticTime = System.nanoTime() - startTime;
+                return new Result(fileName, size, compilation.getProgram(), diagnostics,
+                        compilation.getLexErrors(), compilation.getParser().getErrors(), semantic.getErrors(),
+                        false, compilation.getLexNanos(), compilation.getParseNanos(), semanticTime);
+            }
+            diagnostics.report(fileName + " is neither a .java nor a .c file");
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            diagnostics.report(fileName + " was not found!");
+        } catch (IOException e) {
+            diagnostics.report("Error lexico: " + e.getMessage());
+        }
+        return new Result(fileName, size, null, diagnostics, 0, 0, 0, true, 0, 0, 0);
+    }
+}
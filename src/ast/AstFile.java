@@ -0,0 +1,371 @@
+package ast;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// a FlatAst saved to a file, so a tool can load a parsed program instead of
+// parsing its source again. Opening a file maps it and reads only its
+// header: the nodes are decoded where an AstFileCursor walks, the names and
+// strings when they are asked for, and toFlatAst() decodes everything.
+//
+// All numbers are unsigned varints (7 bits a byte, low bits first) and
+// strings are a varint of 1 + their UTF-8 length (0 for null) followed by
+// the bytes. A file is
+//   'J' 'A' 'S' 'T', version, flags (SPANS), node count, symbol count,
+//   constant count, the name of each symbol, each constant, the nodes
+// and the nodes are stored in preorder, each one as
+//   kind, [payload zigzag encoded], [span], [length in bytes of its children, its children]
+// where the payload is written for the kinds that have one, the span when
+// the file has SPANS and the children for the kinds that may have some. A
+// span is 0 for a node without one, or else 1 + its start minus the start
+// it follows, zigzag encoded, and then its length. A node follows the start
+// of its previous sibling, or for a first child the start its parent has,
+// where a node without a span has the start it follows; the program follows
+// 0. So a cursor knows what a node follows however it got there.
+public class AstFile {
+
+	public static final int VERSION = 2; //2 added the error nodes
+	public static final int SPANS = 1; //flag: every node has a span
+
+	private static final byte[] MAGIC = {'J', 'A', 'S', 'T'};
+
+	// kinds with a payload and kinds that may have children, by kind
+	static final boolean[] PAYLOADS = new boolean[FlatAst.ERROR_EXP + 1];
+	static final boolean[] PARENTS = new boolean[FlatAst.ERROR_EXP + 1];
+
+	static {
+		int[] payloads = {FlatAst.IDENTIFIER, FlatAst.INTEGER_LITERAL, FlatAst.FLOAT_LITERAL,
+				FlatAst.BOOLEAN_LITERAL, FlatAst.CHAR_LITERAL, FlatAst.STRING_LITERAL, FlatAst.IDENTIFIER_EXP,
+				FlatAst.IDENTIFIER_TYPE};
+		for (int kind : payloads)
+			PAYLOADS[kind] = true;
+		for (int kind = FlatAst.PROGRAM; kind <= FlatAst.NEGATIVE; kind++)
+			PARENTS[kind] = kind != FlatAst.IDENTIFIER;
+	}
+
+	private final ByteBuffer buffer;
+	private final int flags;
+	private final int size; //number of nodes
+	private final int[] nameOffsets; //offset of the name of each symbol
+	private final String[] names; //names decoded so far
+	private final int[] constantOffsets; //offset of each constant
+	private final String[] constants; //constants decoded so far
+	private final int nodesOffset; //offset of the program node
+
+	// read the header of a file held in buffer
+	public AstFile(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.limit() < MAGIC.length)
+			throw new IOException("not an AST file");
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (buffer.get(i) != MAGIC[i])
+				throw new IOException("not an AST file");
+		}
+		int[] position = {MAGIC.length};
+		int version = readVarint(buffer, position);
+		if (version < 1 || version > VERSION)
+			throw new IOException("unsupported AST file version " + version);
+		flags = readVarint(buffer, position);
+		size = readVarint(buffer, position);
+		int symbolCount = readVarint(buffer, position);
+		int constantCount = readVarint(buffer, position);
+
+		// find the strings, decoding none of them yet
+		nameOffsets = new int[symbolCount];
+		names = new String[symbolCount];
+		for (int i = 0; i < symbolCount; i++)
+			nameOffsets[i] = skipString(buffer, position);
+		constantOffsets = new int[constantCount];
+		constants = new String[constantCount];
+		for (int i = 0; i < constantCount; i++)
+			constantOffsets[i] = skipString(buffer, position);
+		nodesOffset = position[0];
+		if (size == 0 || nodesOffset >= buffer.limit())
+			throw new IOException("AST file without nodes");
+	}
+
+	// map a file written by write()
+	public static AstFile open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new AstFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	public static void write(FlatAst ast, Path path) throws IOException {
+		Files.write(path, encode(ast));
+	}
+
+	// the file contents of a tree
+	public static byte[] encode(FlatAst ast) {
+		int size = ast.size();
+		boolean spans = ast.hasSpans();
+
+		// bytes of each node with its children, children coming after
+		// their parent so a pass from the last node finds them sized
+		int[] lengths = new int[size];
+		int[] childLengths = new int[size];
+		int[] spanDeltas = spans ? spanDeltas(ast) : null;
+		for (int node = size - 1; node >= 0; node--) {
+			int kind = ast.getKind(node);
+			int length = varintSize(kind);
+			if (PAYLOADS[kind])
+				length += varintSize(zigzag(ast.getPayload(node)));
+			if (spans) {
+				length += varintSize(spanDeltas[node]);
+				if (spanDeltas[node] != 0)
+					length += varintSize(ast.getSpanEnd(node) - ast.getSpanStart(node));
+			}
+			if (PARENTS[kind]) {
+				int children = 0;
+				for (int child = ast.getFirstChild(node); child >= 0; child = ast.getNextSibling(child))
+					children += lengths[child];
+				childLengths[node] = children;
+				length += varintSize(children) + children;
+			}
+			lengths[node] = length;
+		}
+
+		Output out = new Output(lengths[0] + 64);
+		out.bytes(MAGIC);
+		out.varint(VERSION);
+		out.varint(spans ? SPANS : 0);
+		out.varint(size);
+		out.varint(ast.getSymbolCount());
+		out.varint(ast.getConstantCount());
+		for (int i = 0; i < ast.getSymbolCount(); i++)
+			out.string(ast.getName(i));
+		for (int i = 0; i < ast.getConstantCount(); i++)
+			out.string(ast.getConstant(i));
+
+		// the nodes in index order are the nodes in preorder
+		for (int node = 0; node < size; node++) {
+			int kind = ast.getKind(node);
+			out.varint(kind);
+			if (PAYLOADS[kind])
+				out.varint(zigzag(ast.getPayload(node)));
+			if (spans) {
+				out.varint(spanDeltas[node]);
+				if (spanDeltas[node] != 0)
+					out.varint(ast.getSpanEnd(node) - ast.getSpanStart(node));
+			}
+			if (PARENTS[kind])
+				out.varint(childLengths[node]);
+		}
+		return out.toByteArray();
+	}
+
+	// span start of each node as written, 0 for none
+	private static int[] spanDeltas(FlatAst ast) {
+		int[] deltas = new int[ast.size()];
+		int[] follows = new int[ast.size()]; //start each node follows, parents come first
+		for (int node = 0; node < ast.size(); node++) {
+			int start = ast.getSpanStart(node);
+			if (start >= 0)
+				deltas[node] = zigzag(start - follows[node]) + 1;
+			int previous = start >= 0 ? start : follows[node];
+			for (int child = ast.getFirstChild(node); child >= 0; child = ast.getNextSibling(child)) {
+				follows[child] = previous;
+				if (ast.getSpanStart(child) >= 0)
+					previous = ast.getSpanStart(child);
+			}
+		}
+		return deltas;
+	}
+
+	// cursor on the program node
+	public AstFileCursor cursor() {
+		return new AstFileCursor(this, nodesOffset);
+	}
+
+	// decode every node
+	public FlatAst toFlatAst() throws IOException {
+		FlatAst ast = new FlatAst(size);
+		if (hasSpans())
+			ast.startSpans();
+		for (int symbol = 0; symbol < names.length; symbol++) {
+			String name = getName(symbol);
+			if (name != null)
+				ast.symbol(name, symbol);
+		}
+		for (int i = 0; i < constants.length; i++)
+			ast.constant(getConstant(i));
+
+		// open parents with the end of their children, their last child and
+		// the span start their next child follows
+		int[] parents = new int[64];
+		int[] ends = new int[64];
+		int[] lastChildren = new int[64];
+		int[] follows = new int[64];
+		int depth = 0;
+		AstFileCursor record = new AstFileCursor(this, nodesOffset);
+		int position = nodesOffset;
+		for (int node = 0; node < size; node++) {
+			while (depth > 0 && position >= ends[depth - 1])
+				depth--;
+			if (node > 0 && depth == 0)
+				throw new IOException("corrupt AST file: node " + node + " outside the program");
+			record.read(position, depth > 0 ? follows[depth - 1] : 0);
+			int index = ast.add(record.getKind(), record.getPayload());
+			if (record.getSpanStart() >= 0)
+				ast.setSpan(index, record.getSpanStart(), record.getSpanEnd());
+			if (depth > 0) {
+				ast.link(parents[depth - 1], lastChildren[depth - 1], index);
+				lastChildren[depth - 1] = index;
+				follows[depth - 1] = record.getStartFollowed();
+			}
+			if (PARENTS[record.getKind()]) {
+				if (depth == parents.length) {
+					parents = Arrays.copyOf(parents, depth * 2);
+					ends = Arrays.copyOf(ends, depth * 2);
+					lastChildren = Arrays.copyOf(lastChildren, depth * 2);
+					follows = Arrays.copyOf(follows, depth * 2);
+				}
+				parents[depth] = index;
+				ends[depth] = record.getChildrenEnd();
+				lastChildren[depth] = -1;
+				follows[depth] = record.getStartFollowed();
+				depth++;
+			}
+			position = record.getHeaderEnd();
+		}
+		return ast;
+	}
+
+	// decode every node and build the object tree
+	public Program toProgram() throws IOException {
+		return toFlatAst().toProgram();
+	}
+
+	ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+	// number of nodes
+	public int size() {
+		return size;
+	}
+
+	public boolean hasSpans() {
+		return (flags & SPANS) != 0;
+	}
+
+	public int getSymbolCount() {
+		return names.length;
+	}
+
+	// name of an identifier symbol, decoded the first time it is asked for
+	public String getName(int symbol) {
+		if (names[symbol] == null)
+			names[symbol] = readString(buffer, nameOffsets[symbol]);
+		return names[symbol];
+	}
+
+	// string of the constant pool, null for -1
+	public String getConstant(int constant) {
+		if (constant < 0)
+			return null;
+		if (constants[constant] == null)
+			constants[constant] = readString(buffer, constantOffsets[constant]);
+		return constants[constant];
+	}
+
+	// read a varint at position[0] and move position[0] past it
+	static int readVarint(ByteBuffer buffer, int[] position) {
+		int offset = position[0];
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			int b = buffer.get(offset++);
+			value |= (b & 0x7f) << shift;
+			if (b >= 0)
+				break;
+		}
+		position[0] = offset;
+		return value;
+	}
+
+	// move position[0] past a string, return where it started
+	private static int skipString(ByteBuffer buffer, int[] position) {
+		int start = position[0];
+		int length = readVarint(buffer, position);
+		position[0] += Math.max(length - 1, 0);
+		return start;
+	}
+
+	private static String readString(ByteBuffer buffer, int offset) {
+		int[] position = {offset};
+		int length = readVarint(buffer, position) - 1;
+		if (length < 0)
+			return null;
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = buffer.get(position[0] + i);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static int zigzag(int value) {
+		return value << 1 ^ value >> 31;
+	}
+
+	static int unzigzag(int value) {
+		return value >>> 1 ^ -(value & 1);
+	}
+
+	private static int varintSize(int value) {
+		int size = 1;
+		while ((value & ~0x7f) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	// growable byte array
+	private static class Output {
+		private byte[] bytes;
+		private int size;
+
+		Output(int capacity) {
+			bytes = new byte[capacity];
+		}
+
+		void bytes(byte[] values) {
+			ensure(values.length);
+			System.arraycopy(values, 0, bytes, size, values.length);
+			size += values.length;
+		}
+
+		void varint(int value) {
+			ensure(5);
+			while ((value & ~0x7f) != 0) {
+				bytes[size++] = (byte) (value & 0x7f | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		void string(String value) {
+			if (value == null) {
+				varint(0);
+				return;
+			}
+			byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+			varint(utf8.length + 1);
+			bytes(utf8);
+		}
+
+		private void ensure(int more) {
+			if (size + more > bytes.length)
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + more));
+		}
+
+		byte[] toByteArray() {
+			return size == bytes.length ? bytes : Arrays.copyOf(bytes, size);
+		}
+	}
+}
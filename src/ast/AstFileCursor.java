@@ -0,0 +1,155 @@
+package ast;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// walks the nodes of an AstFile where they are stored, decoding only the
+// node it is on: moves are the same as those of a FlatCursor, but nodes are
+// found by their offset in the file instead of their index, a next sibling
+// being right after the children of the node and a parent an offset the
+// cursor remembered on the way down
+public class AstFileCursor {
+	private final AstFile file;
+	private final ByteBuffer buffer;
+	private final int[] position = new int[1]; //offset being decoded
+
+	// the node the cursor is on
+	private int offset; //offset of its record
+	private int kind;
+	private int payload;
+	private int spanStart; //-1 for none
+	private int spanEnd;
+	private int follows; //span start it follows, see AstFile
+	private int headerEnd; //offset of its first child, or of the next node for a leaf
+	private int childrenEnd; //offset after its last child
+
+	private int[] ancestors = new int[16]; //record offsets from the program down to the parent
+	private int[] ancestorEnds = new int[16]; //children ends of the ancestors
+	private int[] ancestorFollows = new int[16]; //span starts the ancestors follow
+	private int depth; //number of ancestors
+
+	AstFileCursor(AstFile file, int offset) {
+		this.file = file;
+		this.buffer = file.getBuffer();
+		read(offset, 0);
+	}
+
+	// decode the node whose record is at offset, which follows the span start follows
+	void read(int offset, int follows) {
+		this.offset = offset;
+		this.follows = follows;
+		position[0] = offset;
+		kind = AstFile.readVarint(buffer, position);
+		payload = AstFile.PAYLOADS[kind] ? AstFile.unzigzag(AstFile.readVarint(buffer, position)) : 0;
+		spanStart = -1;
+		spanEnd = -1;
+		if (file.hasSpans()) {
+			int delta = AstFile.readVarint(buffer, position);
+			if (delta != 0) {
+				spanStart = follows + AstFile.unzigzag(delta - 1);
+				spanEnd = spanStart + AstFile.readVarint(buffer, position);
+			}
+		}
+		int children = AstFile.PARENTS[kind] ? AstFile.readVarint(buffer, position) : 0;
+		headerEnd = position[0];
+		childrenEnd = headerEnd + children;
+	}
+
+	public boolean firstChild() {
+		if (headerEnd == childrenEnd)
+			return false;
+		if (depth == ancestors.length) {
+			ancestors = Arrays.copyOf(ancestors, depth * 2);
+			ancestorEnds = Arrays.copyOf(ancestorEnds, depth * 2);
+			ancestorFollows = Arrays.copyOf(ancestorFollows, depth * 2);
+		}
+		ancestors[depth] = offset;
+		ancestorEnds[depth] = childrenEnd;
+		ancestorFollows[depth] = follows;
+		depth++;
+		read(headerEnd, getStartFollowed());
+		return true;
+	}
+
+	public boolean nextSibling() {
+		if (depth == 0 || childrenEnd >= ancestorEnds[depth - 1])
+			return false;
+		read(childrenEnd, getStartFollowed());
+		return true;
+	}
+
+	public boolean parent() {
+		if (depth == 0)
+			return false;
+		depth--;
+		read(ancestors[depth], ancestorFollows[depth]);
+		return true;
+	}
+
+	// offset in the file after the node and its children
+	public int getEnd() {
+		return childrenEnd;
+	}
+
+	// number of ancestors, 0 on the program node
+	public int getDepth() {
+		return depth;
+	}
+
+	public int getKind() {
+		return kind;
+	}
+
+	public int getPayload() {
+		return payload;
+	}
+
+	// start offset in the source, -1 for a node without a span
+	public int getSpanStart() {
+		return spanStart;
+	}
+
+	// end offset in the source, exclusive, -1 for a node without a span
+	public int getSpanEnd() {
+		return spanEnd;
+	}
+
+	// name of an IDENTIFIER or IDENTIFIER_EXP node
+	public String getName() {
+		return file.getName(payload);
+	}
+
+	public int getIntValue() {
+		return payload;
+	}
+
+	public float getFloatValue() {
+		return Float.intBitsToFloat(payload);
+	}
+
+	public boolean getBooleanValue() {
+		return payload != 0;
+	}
+
+	public char getCharValue() {
+		return (char) payload;
+	}
+
+	// string of a STRING_LITERAL or name of an IDENTIFIER_TYPE node
+	public String getString() {
+		return file.getConstant(payload);
+	}
+
+	// span start the next sibling or first child follows
+	int getStartFollowed() {
+		return spanStart >= 0 ? spanStart : follows;
+	}
+
+	int getHeaderEnd() {
+		return headerEnd;
+	}
+
+	int getChildrenEnd() {
+		return childrenEnd;
+	}
+}
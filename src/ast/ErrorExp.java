@@ -0,0 +1,10 @@
+package ast;
+
+import visitor.Visitor;
+
+// expression the parser could not make sense of and skipped while recovering
+public class ErrorExp implements Exp {
+	public void accept(Visitor v) {
+		v.visit(this);
+	}
+}
@@ -0,0 +1,10 @@
+package ast;
+
+import visitor.Visitor;
+
+// statement the parser could not make sense of and skipped while recovering
+public class ErrorStatement implements Statement {
+	public void accept(Visitor v) {
+		v.visit(this);
+	}
+}
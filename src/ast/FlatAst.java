@@ -0,0 +1,638 @@
+package ast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// a Program stored as parallel arrays instead of one object per node: each
+// node has a kind, a first child, a next sibling and an int payload. Nodes
+// are stored in preorder, so node 0 is the program, the children of a node
+// follow it and a scan by index visits the source in order. Identifier
+// names are kept once per symbol id and strings in a constant pool; the
+// other literals are stored in the payload itself. A missing node of the
+// object tree (null) is a NULL node, so conversion back is lossless. The
+// source spans of the nodes are kept too when the parser recorded them.
+public class FlatAst {
+
+	// node kinds
+	public static final int NULL = 0;
+	public static final int PROGRAM = 1;
+	public static final int DECLARATIONS = 2;
+	public static final int VAR_DECL_LIST = 3;
+	public static final int VAR_DECL = 4;
+	public static final int STATEMENT_LIST = 5;
+	public static final int IDENTIFIER = 6;
+
+	// statements
+	public static final int BLOCK = 7;
+	public static final int IF = 8;
+	public static final int WHILE = 9;
+	public static final int ASSIGN = 10;
+	public static final int ARRAY_ASSIGN = 11;
+
+	// expressions
+	public static final int AND = 12;
+	public static final int OR = 13;
+	public static final int EQUAL = 14;
+	public static final int NOT_EQUAL = 15;
+	public static final int LESS_THAN = 16;
+	public static final int MORE_THAN = 17;
+	public static final int LESS_THAN_EQUAL = 18;
+	public static final int MORE_THAN_EQUAL = 19;
+	public static final int PLUS = 20;
+	public static final int MINUS = 21;
+	public static final int TIMES = 22;
+	public static final int DIVIDE = 23;
+	public static final int MODULES = 24;
+	public static final int ARRAY_LOOKUP = 25;
+	public static final int ARRAY_LENGTH = 26;
+	public static final int NEW_ARRAY = 27;
+	public static final int NOT = 28;
+	public static final int NEGATIVE = 29;
+	public static final int TRUE = 30;
+	public static final int FALSE = 31;
+	public static final int INTEGER_LITERAL = 32; //payload is the value
+	public static final int FLOAT_LITERAL = 33; //payload is the float bits
+	public static final int BOOLEAN_LITERAL = 34; //payload is 1 or 0
+	public static final int CHAR_LITERAL = 35; //payload is the char
+	public static final int STRING_LITERAL = 36; //payload is a constant, -1 for null
+	public static final int IDENTIFIER_EXP = 37; //payload is the symbol, also of IDENTIFIER
+
+	// types
+	public static final int INTEGER_TYPE = 38;
+	public static final int INTEGER_ARRAY_TYPE = 39;
+	public static final int FLOAT_TYPE = 40;
+	public static final int FLOAT_ARRAY_TYPE = 41;
+	public static final int BOOLEAN_TYPE = 42;
+	public static final int BOOLEAN_ARRAY_TYPE = 43;
+	public static final int CHAR_TYPE = 44;
+	public static final int CHAR_ARRAY_TYPE = 45;
+	public static final int STRING_TYPE = 46;
+	public static final int STRING_ARRAY_TYPE = 47;
+	public static final int IDENTIFIER_TYPE = 48; //payload is a constant
+
+	// nodes a parser made of what it skipped to recover from a syntax error
+	public static final int ERROR_STATEMENT = 49;
+	public static final int ERROR_EXP = 50;
+
+	private byte[] kinds;
+	private int[] firstChildren; //-1 for none
+	private int[] nextSiblings; //-1 for the last child
+	private int[] payloads;
+	private int[] spanStarts; //start offset in the source, -1 for none, null without spans
+	private int[] spanEnds; //end offset in the source, exclusive
+	private int size;
+
+	private String[] names = new String[16]; //identifier names by symbol id
+	private int symbolCount; //1 + the largest symbol id used
+	private final List<String> constants = new ArrayList<>();
+	private final Map<String, Integer> constantIds = new HashMap<>();
+
+	FlatAst(int capacity) {
+		kinds = new byte[capacity];
+		firstChildren = new int[capacity];
+		nextSiblings = new int[capacity];
+		payloads = new int[capacity];
+	}
+
+	// flatten a program, walking it with an explicit stack so that any
+	// nesting depth converts
+	public static FlatAst of(Program program) {
+		return of(program, null);
+	}
+
+	// flatten a program with the spans its parser recorded
+	public static FlatAst of(Program program, SourceSpans spans) {
+		FlatAst ast = new FlatAst(1024);
+		if (spans != null)
+			ast.startSpans();
+		Object[] pending = new Object[64]; //nodes to add, the next one last
+		int[] parents = new int[64]; //parent of each pending node
+		int[] lastChildren = new int[1024]; //last child added to each node so far
+		pending[0] = program;
+		parents[0] = -1;
+		int count = 1;
+		Object[] children = new Object[3];
+		while (count > 0) {
+			count--;
+			Object node = pending[count];
+			pending[count] = null;
+			int parent = parents[count];
+
+			// add the node and link it after the last child of its parent
+			int kind = kind(node);
+			int index = ast.add(kind, ast.payload(kind, node));
+			if (lastChildren.length < ast.kinds.length)
+				lastChildren = Arrays.copyOf(lastChildren, ast.kinds.length);
+			lastChildren[index] = -1;
+			if (parent >= 0) {
+				ast.link(parent, lastChildren[parent], index);
+				lastChildren[parent] = index;
+			}
+			if (spans != null && (isSpanned(kind) || parent >= 0 && isStatement(ast.kinds[parent]))) {
+				long span = spans.getSpan(node);
+				if (span >= 0)
+					ast.setSpan(index, (int) (span >>> 32), (int) span);
+			}
+
+			// push the children last to first, so the first pops next
+			List<?> list = list(kind, node);
+			int childCount = list != null ? list.size() : children(kind, node, children);
+			if (count + childCount > pending.length) {
+				int capacity = Math.max(pending.length * 2, count + childCount);
+				pending = Arrays.copyOf(pending, capacity);
+				parents = Arrays.copyOf(parents, capacity);
+			}
+			for (int i = childCount - 1; i >= 0; i--) {
+				pending[count] = list != null ? list.get(i) : children[i];
+				parents[count] = index;
+				count++;
+			}
+		}
+		return ast;
+	}
+
+	// kinds a parser records a span for, besides the expressions of statements
+	private static boolean isSpanned(int kind) {
+		return kind == VAR_DECL || kind == ERROR_STATEMENT || isStatement(kind);
+	}
+
+	private static boolean isStatement(int kind) {
+		return kind >= BLOCK && kind <= ARRAY_ASSIGN;
+	}
+
+	// append a node without children
+	int add(int kind, int payload) {
+		if (size == kinds.length) {
+			int capacity = size * 2;
+			kinds = Arrays.copyOf(kinds, capacity);
+			firstChildren = Arrays.copyOf(firstChildren, capacity);
+			nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+			payloads = Arrays.copyOf(payloads, capacity);
+			if (spanStarts != null) {
+				spanStarts = Arrays.copyOf(spanStarts, capacity);
+				spanEnds = Arrays.copyOf(spanEnds, capacity);
+			}
+		}
+		kinds[size] = (byte) kind;
+		firstChildren[size] = -1;
+		nextSiblings[size] = -1;
+		payloads[size] = payload;
+		if (spanStarts != null)
+			spanStarts[size] = -1;
+		return size++;
+	}
+
+	// make child the child of parent following previous, -1 for the first child
+	void link(int parent, int previous, int child) {
+		if (previous < 0)
+			firstChildren[parent] = child;
+		else
+			nextSiblings[previous] = child;
+	}
+
+	// keep a span for each node added from now on
+	void startSpans() {
+		spanStarts = new int[kinds.length];
+		spanEnds = new int[kinds.length];
+		Arrays.fill(spanStarts, 0, size, -1);
+	}
+
+	void setSpan(int node, int start, int end) {
+		spanStarts[node] = start;
+		spanEnds[node] = end;
+	}
+
+	// payload of a node of the given kind, recording its names and strings
+	private int payload(int kind, Object node) {
+		switch (kind) {
+		case INTEGER_LITERAL:
+			return ((IntegerLiteral) node).getValue();
+		case FLOAT_LITERAL:
+			return Float.floatToRawIntBits(((FloatLiteral) node).getValue());
+		case BOOLEAN_LITERAL:
+			return ((BooleanLiteral) node).getValue() ? 1 : 0;
+		case CHAR_LITERAL:
+			return ((CharLiteral) node).getValue();
+		case STRING_LITERAL:
+			return constant(((StringLiteral) node).getValue());
+		case IDENTIFIER_TYPE:
+			return constant(((IdentifierType) node).getName());
+		case IDENTIFIER:
+			return symbol(((Identifier) node).getName(), ((Identifier) node).getSymbol());
+		case IDENTIFIER_EXP:
+			return symbol(((IdentifierExp) node).getName(), ((IdentifierExp) node).getSymbol());
+		default:
+			return 0;
+		}
+	}
+
+	// index of a string in the constant pool, -1 for null
+	int constant(String value) {
+		if (value == null)
+			return -1;
+		Integer id = constantIds.get(value);
+		if (id == null) {
+			id = constants.size();
+			constants.add(value);
+			constantIds.put(value, id);
+		}
+		return id;
+	}
+
+	// record the name of an identifier symbol, which must name only one identifier
+	int symbol(String name, int symbol) {
+		if (symbol < 0)
+			throw new IllegalArgumentException("identifier without a symbol: " + name);
+		if (symbol >= names.length)
+			names = Arrays.copyOf(names, Math.max(names.length * 2, symbol + 1));
+		if (names[symbol] == null)
+			names[symbol] = name;
+		else if (!names[symbol].equals(name))
+			throw new IllegalArgumentException("symbol " + symbol + " names both " + names[symbol] + " and " + name);
+		symbolCount = Math.max(symbolCount, symbol + 1);
+		return symbol;
+	}
+
+	// kind of an object tree node, NULL for null
+	public static int kind(Object node) {
+		if (node == null)
+			return NULL;
+		// most frequent first
+		if (node instanceof IdentifierExp)
+			return IDENTIFIER_EXP;
+		if (node instanceof IntegerLiteral)
+			return INTEGER_LITERAL;
+		if (node instanceof Identifier)
+			return IDENTIFIER;
+		if (node instanceof Assign)
+			return ASSIGN;
+		if (node instanceof Plus)
+			return PLUS;
+		if (node instanceof Minus)
+			return MINUS;
+		if (node instanceof Times)
+			return TIMES;
+		if (node instanceof ArrayLookup)
+			return ARRAY_LOOKUP;
+		if (node instanceof If)
+			return IF;
+		if (node instanceof While)
+			return WHILE;
+		if (node instanceof Block)
+			return BLOCK;
+		if (node instanceof ArrayAssign)
+			return ARRAY_ASSIGN;
+		if (node instanceof Program)
+			return PROGRAM;
+		if (node instanceof Declarations)
+			return DECLARATIONS;
+		if (node instanceof VarDeclList)
+			return VAR_DECL_LIST;
+		if (node instanceof VarDecl)
+			return VAR_DECL;
+		if (node instanceof StatementList)
+			return STATEMENT_LIST;
+		if (node instanceof And)
+			return AND;
+		if (node instanceof Or)
+			return OR;
+		if (node instanceof Equal)
+			return EQUAL;
+		if (node instanceof NotEqual)
+			return NOT_EQUAL;
+		if (node instanceof LessThan)
+			return LESS_THAN;
+		if (node instanceof MoreThan)
+			return MORE_THAN;
+		if (node instanceof LessThanEqual)
+			return LESS_THAN_EQUAL;
+		if (node instanceof MoreThanEqual)
+			return MORE_THAN_EQUAL;
+		if (node instanceof Divide)
+			return DIVIDE;
+		if (node instanceof Modules)
+			return MODULES;
+		if (node instanceof ArrayLength)
+			return ARRAY_LENGTH;
+		if (node instanceof NewArray)
+			return NEW_ARRAY;
+		if (node instanceof Not)
+			return NOT;
+		if (node instanceof Negative)
+			return NEGATIVE;
+		if (node instanceof True)
+			return TRUE;
+		if (node instanceof False)
+			return FALSE;
+		if (node instanceof FloatLiteral)
+			return FLOAT_LITERAL;
+		if (node instanceof BooleanLiteral)
+			return BOOLEAN_LITERAL;
+		if (node instanceof CharLiteral)
+			return CHAR_LITERAL;
+		if (node instanceof StringLiteral)
+			return STRING_LITERAL;
+		if (node instanceof IntegerType)
+			return INTEGER_TYPE;
+		if (node instanceof IntegerArrayType)
+			return INTEGER_ARRAY_TYPE;
+		if (node instanceof FloatType)
+			return FLOAT_TYPE;
+		if (node instanceof FloatArrayType)
+			return FLOAT_ARRAY_TYPE;
+		if (node instanceof BooleanType)
+			return BOOLEAN_TYPE;
+		if (node instanceof BooleanArrayType)
+			return BOOLEAN_ARRAY_TYPE;
+		if (node instanceof CharType)
+			return CHAR_TYPE;
+		if (node instanceof CharArrayType)
+			return CHAR_ARRAY_TYPE;
+		if (node instanceof StringType)
+			return STRING_TYPE;
+		if (node instanceof StringArrayType)
+			return STRING_ARRAY_TYPE;
+		if (node instanceof IdentifierType)
+			return IDENTIFIER_TYPE;
+		if (node instanceof ErrorStatement)
+			return ERROR_STATEMENT;
+		if (node instanceof ErrorExp)
+			return ERROR_EXP;
+		throw new IllegalArgumentException("not a program node: " + node.getClass().getName());
+	}
+
+	// children of a list node, null for other nodes
+	private static List<?> list(int kind, Object node) {
+		switch (kind) {
+		case STATEMENT_LIST:
+			return ((StatementList) node).getList();
+		case DECLARATIONS:
+			return ((Declarations) node).getList();
+		case VAR_DECL_LIST:
+			return ((VarDeclList) node).getList();
+		default:
+			return null;
+		}
+	}
+
+	// store the children of a node that is not a list, return their number
+	private static int children(int kind, Object node, Object[] children) {
+		switch (kind) {
+		case PROGRAM:
+			children[0] = ((Program) node).getStm();
+			children[1] = ((Program) node).getList();
+			return 2;
+		case VAR_DECL:
+			children[0] = ((VarDecl) node).getType();
+			children[1] = ((VarDecl) node).getId();
+			return 2;
+		case BLOCK:
+			children[0] = ((Block) node).getStms();
+			return 1;
+		case IF:
+			children[0] = ((If) node).getCondExp();
+			children[1] = ((If) node).getTrueStm();
+			children[2] = ((If) node).getFalseStm();
+			return 3;
+		case WHILE:
+			children[0] = ((While) node).getCondExp();
+			children[1] = ((While) node).getStm();
+			return 2;
+		case ASSIGN:
+			children[0] = ((Assign) node).getId();
+			children[1] = ((Assign) node).getValue();
+			return 2;
+		case ARRAY_ASSIGN:
+			children[0] = ((ArrayAssign) node).getId();
+			children[1] = ((ArrayAssign) node).getIndex();
+			children[2] = ((ArrayAssign) node).getValue();
+			return 3;
+		case AND:
+			return binop(((And) node).getLHS(), ((And) node).getRHS(), children);
+		case OR:
+			return binop(((Or) node).getLHS(), ((Or) node).getRHS(), children);
+		case EQUAL:
+			return binop(((Equal) node).getLHS(), ((Equal) node).getRHS(), children);
+		case NOT_EQUAL:
+			return binop(((NotEqual) node).getLHS(), ((NotEqual) node).getRHS(), children);
+		case LESS_THAN:
+			return binop(((LessThan) node).getLHS(), ((LessThan) node).getRHS(), children);
+		case MORE_THAN:
+			return binop(((MoreThan) node).getLHS(), ((MoreThan) node).getRHS(), children);
+		case LESS_THAN_EQUAL:
+			return binop(((LessThanEqual) node).getLHS(), ((LessThanEqual) node).getRHS(), children);
+		case MORE_THAN_EQUAL:
+			return binop(((MoreThanEqual) node).getLHS(), ((MoreThanEqual) node).getRHS(), children);
+		case PLUS:
+			return binop(((Plus) node).getLHS(), ((Plus) node).getRHS(), children);
+		case MINUS:
+			return binop(((Minus) node).getLHS(), ((Minus) node).getRHS(), children);
+		case TIMES:
+			return binop(((Times) node).getLHS(), ((Times) node).getRHS(), children);
+		case DIVIDE:
+			return binop(((Divide) node).getLHS(), ((Divide) node).getRHS(), children);
+		case MODULES:
+			return binop(((Modules) node).getLHS(), ((Modules) node).getRHS(), children);
+		case ARRAY_LOOKUP:
+			return binop(((ArrayLookup) node).getArray(), ((ArrayLookup) node).getIndex(), children);
+		case ARRAY_LENGTH:
+			children[0] = ((ArrayLength) node).getArray();
+			return 1;
+		case NEW_ARRAY:
+			children[0] = ((NewArray) node).getArraySize();
+			return 1;
+		case NOT:
+			children[0] = ((Not) node).getExp();
+			return 1;
+		case NEGATIVE:
+			children[0] = ((Negative) node).getExp();
+			return 1;
+		default:
+			return 0;
+		}
+	}
+
+	private static int binop(Exp lhs, Exp rhs, Object[] children) {
+		children[0] = lhs;
+		children[1] = rhs;
+		return 2;
+	}
+
+	// rebuild the object tree: children always follow their parent, so
+	// building from the last node to the first finds every child built
+	public Program toProgram() {
+		Object[] built = new Object[size];
+		for (int node = size - 1; node >= 0; node--) {
+			int first = firstChildren[node];
+			Object a = first >= 0 ? built[first] : null; //children in order
+			int second = first >= 0 ? nextSiblings[first] : -1;
+			Object b = second >= 0 ? built[second] : null;
+			int third = second >= 0 ? nextSiblings[second] : -1;
+			Object c = third >= 0 ? built[third] : null;
+			int payload = payloads[node];
+
+			Object object;
+			switch (kinds[node]) {
+			case NULL: object = null; break;
+			case PROGRAM: object = new Program((StatementList) a, (Declarations) b); break;
+			case DECLARATIONS: {
+				Declarations declarations = new Declarations();
+				for (int child = first; child >= 0; child = nextSiblings[child])
+					declarations.addElement((VarDeclList) built[child]);
+				object = declarations;
+				break;
+			}
+			case VAR_DECL_LIST: {
+				VarDeclList varDeclList = new VarDeclList();
+				for (int child = first; child >= 0; child = nextSiblings[child])
+					varDeclList.addElement((VarDecl) built[child]);
+				object = varDeclList;
+				break;
+			}
+			case VAR_DECL: object = new VarDecl((Type) a, (Identifier) b); break;
+			case STATEMENT_LIST: {
+				StatementList statementList = new StatementList();
+				for (int child = first; child >= 0; child = nextSiblings[child])
+					statementList.addElement((Statement) built[child]);
+				object = statementList;
+				break;
+			}
+			case IDENTIFIER: object = new Identifier(names[payload], payload); break;
+			case BLOCK: object = new Block((StatementList) a); break;
+			case IF: object = new If((Exp) a, (Statement) b, (Statement) c); break;
+			case WHILE: object = new While((Exp) a, (Statement) b); break;
+			case ASSIGN: object = new Assign((Identifier) a, (Exp) b); break;
+			case ARRAY_ASSIGN: object = new ArrayAssign((Identifier) a, (Exp) b, (Exp) c); break;
+			case AND: object = new And((Exp) a, (Exp) b); break;
+			case OR: object = new Or((Exp) a, (Exp) b); break;
+			case EQUAL: object = new Equal((Exp) a, (Exp) b); break;
+			case NOT_EQUAL: object = new NotEqual((Exp) a, (Exp) b); break;
+			case LESS_THAN: object = new LessThan((Exp) a, (Exp) b); break;
+			case MORE_THAN: object = new MoreThan((Exp) a, (Exp) b); break;
+			case LESS_THAN_EQUAL: object = new LessThanEqual((Exp) a, (Exp) b); break;
+			case MORE_THAN_EQUAL: object = new MoreThanEqual((Exp) a, (Exp) b); break;
+			case PLUS: object = new Plus((Exp) a, (Exp) b); break;
+			case MINUS: object = new Minus((Exp) a, (Exp) b); break;
+			case TIMES: object = new Times((Exp) a, (Exp) b); break;
+			case DIVIDE: object = new Divide((Exp) a, (Exp) b); break;
+			case MODULES: object = new Modules((Exp) a, (Exp) b); break;
+			case ARRAY_LOOKUP: object = new ArrayLookup((Exp) a, (Exp) b); break;
+			case ARRAY_LENGTH: object = new ArrayLength((Exp) a); break;
+			case NEW_ARRAY: object = new NewArray((Exp) a); break;
+			case NOT: object = new Not((Exp) a); break;
+			case NEGATIVE: object = new Negative((Exp) a); break;
+			case TRUE: object = new True(); break;
+			case FALSE: object = new False(); break;
+			case INTEGER_LITERAL: object = new IntegerLiteral(payload); break;
+			case FLOAT_LITERAL: object = new FloatLiteral(Float.intBitsToFloat(payload)); break;
+			case BOOLEAN_LITERAL: object = new BooleanLiteral(payload != 0); break;
+			case CHAR_LITERAL: object = new CharLiteral((char) payload); break;
+			case STRING_LITERAL: object = new StringLiteral(getConstant(payload)); break;
+			case IDENTIFIER_EXP: object = new IdentifierExp(names[payload], payload); break;
+			case INTEGER_TYPE: object = new IntegerType(); break;
+			case INTEGER_ARRAY_TYPE: object = new IntegerArrayType(); break;
+			case FLOAT_TYPE: object = new FloatType(); break;
+			case FLOAT_ARRAY_TYPE: object = new FloatArrayType(); break;
+			case BOOLEAN_TYPE: object = new BooleanType(); break;
+			case BOOLEAN_ARRAY_TYPE: object = new BooleanArrayType(); break;
+			case CHAR_TYPE: object = new CharType(); break;
+			case CHAR_ARRAY_TYPE: object = new CharArrayType(); break;
+			case STRING_TYPE: object = new StringType(); break;
+			case STRING_ARRAY_TYPE: object = new StringArrayType(); break;
+			case IDENTIFIER_TYPE: object = new IdentifierType(getConstant(payload)); break;
+			case ERROR_STATEMENT: object = new ErrorStatement(); break;
+			case ERROR_EXP: object = new ErrorExp(); break;
+			default:
+				throw new IllegalStateException("unknown node kind " + kinds[node]);
+			}
+			built[node] = object;
+		}
+		return (Program) built[0];
+	}
+
+	// node by node comparison with another flat tree: the same kinds, links,
+	// payloads and spans, and the same names and constants behind the
+	// payloads, so a tree with a wrong identifier or string differs
+	public boolean sameAs(FlatAst other) {
+		if (size != other.size || symbolCount != other.symbolCount || constants.size() != other.constants.size())
+			return false;
+		for (int node = 0; node < size; node++) {
+			if (kinds[node] != other.kinds[node] || firstChildren[node] != other.firstChildren[node]
+					|| nextSiblings[node] != other.nextSiblings[node] || payloads[node] != other.payloads[node]
+					|| getSpanStart(node) != other.getSpanStart(node) || getSpanEnd(node) != other.getSpanEnd(node))
+				return false;
+		}
+		for (int symbol = 0; symbol < symbolCount; symbol++) {
+			if (!Objects.equals(names[symbol], other.names[symbol]))
+				return false;
+		}
+		return constants.equals(other.constants);
+	}
+
+	// cursor on the program node
+	public FlatCursor cursor() {
+		return new FlatCursor(this);
+	}
+
+	// number of nodes
+	public int size() {
+		return size;
+	}
+
+	public int getKind(int node) {
+		return kinds[node];
+	}
+
+	// first child of node, -1 for none
+	public int getFirstChild(int node) {
+		return firstChildren[node];
+	}
+
+	// next child of the parent of node, -1 for none
+	public int getNextSibling(int node) {
+		return nextSiblings[node];
+	}
+
+	public int getPayload(int node) {
+		return payloads[node];
+	}
+
+	// 1 + the largest identifier symbol id, the size of tables by symbol
+	public int getSymbolCount() {
+		return symbolCount;
+	}
+
+	// name of an identifier symbol
+	public String getName(int symbol) {
+		return names[symbol];
+	}
+
+	// number of strings in the constant pool
+	public int getConstantCount() {
+		return constants.size();
+	}
+
+	// the nodes have spans
+	public boolean hasSpans() {
+		return spanStarts != null;
+	}
+
+	// start offset of node in the source, -1 for a node without a span
+	public int getSpanStart(int node) {
+		return spanStarts != null ? spanStarts[node] : -1;
+	}
+
+	// end offset of node in the source, exclusive, -1 for a node without a span
+	public int getSpanEnd(int node) {
+		return spanStarts != null && spanStarts[node] >= 0 ? spanEnds[node] : -1;
+	}
+
+	// string of the constant pool, null for -1
+	public String getConstant(int constant) {
+		return constant >= 0 ? constants.get(constant) : null;
+	}
+}
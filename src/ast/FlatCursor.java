@@ -0,0 +1,99 @@
+package ast;
+
+import java.util.Arrays;
+
+// walks a FlatAst the way a visitor walks the object tree, without
+// recursion: the cursor is on one node and remembers the ancestors it went
+// down through, so it can move to the first child, the next sibling or back
+// up to the parent. Each move returns false, and leaves the cursor where it
+// was, when there is no such node.
+public class FlatCursor {
+	private final FlatAst ast;
+	private int node; //node the cursor is on
+	private int[] ancestors = new int[16]; //nodes from the program down to the parent
+	private int depth; //number of ancestors
+
+	public FlatCursor(FlatAst ast) {
+		this.ast = ast;
+	}
+
+	public boolean firstChild() {
+		int child = ast.getFirstChild(node);
+		if (child < 0)
+			return false;
+		if (depth == ancestors.length)
+			ancestors = Arrays.copyOf(ancestors, depth * 2);
+		ancestors[depth++] = node;
+		node = child;
+		return true;
+	}
+
+	public boolean nextSibling() {
+		int sibling = ast.getNextSibling(node);
+		if (sibling < 0)
+			return false;
+		node = sibling;
+		return true;
+	}
+
+	public boolean parent() {
+		if (depth == 0)
+			return false;
+		node = ancestors[--depth];
+		return true;
+	}
+
+	// index of the node in the FlatAst
+	public int getNode() {
+		return node;
+	}
+
+	// number of ancestors, 0 on the program node
+	public int getDepth() {
+		return depth;
+	}
+
+	public int getKind() {
+		return ast.getKind(node);
+	}
+
+	public int getPayload() {
+		return ast.getPayload(node);
+	}
+
+	// start offset in the source, -1 for a node without a span
+	public int getSpanStart() {
+		return ast.getSpanStart(node);
+	}
+
+	// end offset in the source, exclusive, -1 for a node without a span
+	public int getSpanEnd() {
+		return ast.getSpanEnd(node);
+	}
+
+	// name of an IDENTIFIER or IDENTIFIER_EXP node
+	public String getName() {
+		return ast.getName(ast.getPayload(node));
+	}
+
+	public int getIntValue() {
+		return ast.getPayload(node);
+	}
+
+	public float getFloatValue() {
+		return Float.intBitsToFloat(ast.getPayload(node));
+	}
+
+	public boolean getBooleanValue() {
+		return ast.getPayload(node) != 0;
+	}
+
+	public char getCharValue() {
+		return (char) ast.getPayload(node);
+	}
+
+	// string of a STRING_LITERAL or name of an IDENTIFIER_TYPE node
+	public String getString() {
+		return ast.getConstant(ast.getPayload(node));
+	}
+}
@@ -4,15 +4,21 @@ import visitor.Visitor;
 
 public class Identifier {
 	private String name;
+	private int symbol; //interned id of name
 	
-	public Identifier(String name) {
+	public Identifier(String name, int symbol) {
 		this.name = name;
+		this.symbol = symbol;
 	}
 	
 	public String getName() {
 		return name;
 	}
 	
+	public int getSymbol() {
+		return symbol;
+	}
+	
 	public void accept(Visitor v) {
 		v.visit(this);
 	}
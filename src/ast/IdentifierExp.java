@@ -4,15 +4,21 @@ import visitor.Visitor;
 
 public class IdentifierExp implements Exp {
 	private String name;
+	private int symbol; //interned id of name
 	
-	public IdentifierExp(String name) {
+	public IdentifierExp(String name, int symbol) {
 		this.name = name;
+		this.symbol = symbol;
 	}
 	
 	public String getName() {
 		return name;
 	}
 	
+	public int getSymbol() {
+		return symbol;
+	}
+	
 	public void accept(Visitor v) {
 		v.visit(this);
 	}
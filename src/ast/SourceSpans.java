@@ -0,0 +1,39 @@
+package ast;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// source offsets of the nodes of one Program, kept beside the tree so the
+// node classes stay as they are: a parser given a SourceSpans records the
+// declarations, statements and whole expressions it builds, from the start
+// of their first token to the end of their last one
+public class SourceSpans {
+	private final Map<Object, Long> spans = new IdentityHashMap<>(); //start << 32 | end by node
+
+	public void record(Object node, int start, int end) {
+		if (node != null)
+			spans.put(node, (long) start << 32 | end & 0xffffffffL);
+	}
+
+	// start << 32 | end of node, -1 for a node without a span
+	long getSpan(Object node) {
+		Long span = spans.get(node);
+		return span != null ? span : -1;
+	}
+
+	// start offset of node, -1 for a node without a span
+	public int getStart(Object node) {
+		Long span = spans.get(node);
+		return span != null ? (int) (span >>> 32) : -1;
+	}
+
+	// end offset of node, exclusive, -1 for a node without a span
+	public int getEnd(Object node) {
+		Long span = spans.get(node);
+		return span != null ? (int) (long) span : -1;
+	}
+
+	public int size() {
+		return spans.size();
+	}
+}
@@ -21,4 +21,8 @@ public class StatementList {
 	public int size() {
 		return list.size();
 	}
+
+	public List<Statement> getList() {
+		return list;
+	}
 }
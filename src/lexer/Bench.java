@@ -0,0 +1,81 @@
+package lexer;
+
+import java.io.IOException;
+
+// fixture and timing shared by the Bench and Test drivers: a repeatable
+// pseudo random source (the same sequence on every run), builders of the
+// generated programs, and a timing loop keeping the best of its rounds, so
+// a driver only holds the code it measures
+public class Bench {
+
+    // measured code, returning a value the driver sums into its checksum so
+    // the work cannot be optimized away
+    public interface Task {
+        long run() throws IOException;
+    }
+
+    private final int rounds; //timed rounds, after as many warmup rounds
+    private int seed = 1;
+    private long checksum;
+
+    public Bench(int rounds) {
+        this.rounds = rounds;
+    }
+
+    // best time of task in ns, over 2 * rounds runs
+    public long time(Task task) throws IOException {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 2 * rounds; round++) {
+            long startTime = System.nanoTime();
+            checksum += task.run();
+            best = Math.min(best, System.nanoTime() - startTime);
+        }
+        return best;
+    }
+
+    // sum of the values of every task run
+    public long getChecksum() {
+        return checksum;
+    }
+
+    // next pseudo random number, from 0 to 32767
+    public int next() {
+        seed = seed * 1103515245 + 12345;
+        return seed >>> 16 & 0x7fff;
+    }
+
+    public String pick(String[] choices) {
+        return choices[next() % choices.length];
+    }
+
+    // pieces picked at random, each followed by one of separators, up to
+    // length characters
+    public char[] text(String[] pieces, String[] separators, int length) {
+        StringBuilder source = new StringBuilder(length + 64);
+        while (source.length() < length) {
+            source.append(pick(pieces)).append(pick(separators));
+        }
+        return source.toString().toCharArray();
+    }
+
+    // count assignments of values to targets, one in eight under an if and
+    // one in eight in the block of a while, both on conditions
+    public void statements(StringBuilder source, int count, String[] targets, String[] values,
+            String[] conditions) {
+        for (int i = 0; i < count; i++) {
+            int choice = next() % 8;
+            if (choice == 0) {
+                source.append("if (").append(pick(conditions)).append(") ");
+            } else if (choice == 1) {
+                source.append("while (").append(pick(conditions)).append(") { ");
+            }
+            source.append(pick(targets)).append(" = ").append(pick(values)).append(";");
+            source.append(choice == 1 ? " }\n" : "\n");
+        }
+    }
+
+    public static TokenBuffer lex(String source) {
+        char[] chars = source.toCharArray();
+        return new Lexer(chars, chars.length).tokenize();
+    }
+}
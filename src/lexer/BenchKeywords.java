@@ -0,0 +1,88 @@
+package lexer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+// compares keyword recognition through a HashMap lookup on a new String
+// (the old lexer path) with the allocation-free KeywordTable lookup, then
+// times the whole lexer, on the given files or on generated keyword-dense code
+public class BenchKeywords {
+
+    private static final Bench BENCH = new Bench(20);
+
+    private static final String[] WORDS = {"public", "static", "void", "int", "float", "char",
+            "boolean", "if", "else", "while", "return", "printf", "true", "false", "x", "count"};
+    private static final String[] SEPARATORS = {" ", " ", " ", " ", " ", " ", " ", ";\n"};
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            char[] source = BENCH.text(WORDS, SEPARATORS, 2000000);
+            System.out.println("Benchmarking " + source.length + " generated characters...");
+            run(new Lexer(source, source.length));
+        } else {
+            for (int i = 0; i < args.length; i++) {
+                System.out.println("Benchmarking " + args[i] + "...");
+                run(new Lexer(Paths.get(args[i])));
+            }
+        }
+    }
+
+    private static void run(Lexer lexer) throws IOException {
+        char[] source = lexer.getBuffer();
+        TokenBuffer tokens = lexer.tokenize();
+
+        // collect every word (keyword, boolean constant or identifier) of the input
+        int words = 0;
+        int[] starts = new int[tokens.size()];
+        int[] lengths = new int[tokens.size()];
+        Map<String, TokenType> reserved = new HashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.getLength(i) > 0 && Character.isLetter(source[tokens.getStart(i)])) {
+                starts[words] = tokens.getStart(i);
+                lengths[words] = tokens.getLength(i);
+                words++;
+
+                TokenType type = Token.of(tokens, i).getType();
+                if (type != TokenType.ID) {
+                    reserved.put(tokens.getLexeme(i), type);
+                }
+            }
+        }
+        KeywordTable table = new KeywordTable(reserved);
+
+        // old path: allocate the lexeme and hash it
+        int count = words;
+        long hashMapTime = BENCH.time(() -> {
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                TokenType type = reserved.get(new String(source, starts[i], lengths[i]));
+                sum += type == null ? -1 : type.ordinal();
+            }
+            return sum;
+        });
+
+        // new path: probe the perfect hash table over the buffer
+        long tableTime = BENCH.time(() -> {
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum -= table.lookup(source, starts[i], lengths[i]);
+            }
+            return sum;
+        });
+
+        // whole lexer with the keyword table
+        long lexTime = BENCH.time(() -> new Lexer(source, lexer.getLength()).tokenize().size());
+
+        // print out statistics
+        System.out.println("---");
+        System.out.println("Number of tokens: " + tokens.size());
+        System.out.println("Number of words: " + words + " (" + reserved.size() + " distinct keywords)");
+        System.out.printf("HashMap lookup: %.2f ns/word%n", (double) hashMapTime / words);
+        System.out.printf("KeywordTable lookup: %.2f ns/word%n", (double) tableTime / words);
+        System.out.printf("Lexer: %.2f ms (%.1f Mtokens/s)%n", lexTime / 1e6, tokens.size() * 1e3 / lexTime);
+        System.out.println("Checksum: " + BENCH.getChecksum());
+        System.out.println();
+    }
+}
@@ -0,0 +1,102 @@
+package lexer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import lexerC.LexerC;
+
+// compares number conversion through Integer.parseInt and Float.parseFloat
+// on a new String (the old lexer path) with the allocation-free NumberParser,
+// then times both lexers, on the given files or on generated numeric code
+public class BenchNumbers {
+
+    private static final Bench BENCH = new Bench(20);
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            char[] source = generate(2000000);
+            System.out.println("Benchmarking " + source.length + " generated characters...");
+            run(new Lexer(source, source.length));
+        } else {
+            for (int i = 0; i < args.length; i++) {
+                System.out.println("Benchmarking " + args[i] + "...");
+                run(new Lexer(Paths.get(args[i])));
+            }
+        }
+    }
+
+    private static void run(Lexer lexer) throws IOException {
+        char[] source = lexer.getBuffer();
+        TokenBuffer tokens = lexer.tokenize();
+
+        // collect every int and float literal of the input
+        int ints = 0;
+        int floats = 0;
+        int[] starts = new int[tokens.size()];
+        int[] ends = new int[tokens.size()];
+        boolean[] isFloat = new boolean[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            int type = tokens.getType(i);
+            if (type == TokenType.INT_CONST.ordinal() || type == TokenType.FLOAT_CONST.ordinal()) {
+                int n = ints + floats;
+                starts[n] = tokens.getStart(i);
+                ends[n] = tokens.getStart(i) + tokens.getLength(i);
+                isFloat[n] = type == TokenType.FLOAT_CONST.ordinal();
+                if (isFloat[n]) {
+                    floats++;
+                } else {
+                    ints++;
+                }
+            }
+        }
+        int numbers = ints + floats;
+
+        // old path: allocate the lexeme and parse it
+        long stringTime = BENCH.time(() -> {
+            long sum = 0;
+            for (int i = 0; i < numbers; i++) {
+                String lexeme = new String(source, starts[i], ends[i] - starts[i]);
+                sum += isFloat[i] ? Float.floatToRawIntBits(Float.parseFloat(lexeme)) : Integer.parseInt(lexeme);
+            }
+            return sum;
+        });
+
+        // new path: accumulate the digits straight out of the buffer
+        long parserTime = BENCH.time(() -> {
+            long sum = 0;
+            for (int i = 0; i < numbers; i++) {
+                sum -= isFloat[i] ? Float.floatToRawIntBits(NumberParser.parseFloat(source, starts[i], ends[i]))
+                        : NumberParser.parseInt(source, starts[i], ends[i]);
+            }
+            return sum;
+        });
+
+        // whole lexers with the number parser
+        long lexTime = BENCH.time(() -> new Lexer(source, lexer.getLength()).tokenize().size());
+        long lexCTime = BENCH.time(() -> new LexerC(source, lexer.getLength()).tokenize().size());
+
+        // print out statistics
+        System.out.println("---");
+        System.out.println("Number of tokens: " + tokens.size());
+        System.out.println("Number of literals: " + numbers + " (" + ints + " int, " + floats + " float)");
+        System.out.printf("String + parseInt/parseFloat: %.2f ns/literal%n", (double) stringTime / numbers);
+        System.out.printf("NumberParser: %.2f ns/literal%n", (double) parserTime / numbers);
+        System.out.printf("Lexer: %.2f ms (%.1f Mtokens/s)%n", lexTime / 1e6, tokens.size() * 1e3 / lexTime);
+        System.out.printf("LexerC: %.2f ms (%.1f Mtokens/s)%n", lexCTime / 1e6, tokens.size() * 1e3 / lexCTime);
+        System.out.println("Checksum: " + BENCH.getChecksum());
+        System.out.println();
+    }
+
+    // arithmetic on int and float literals of various lengths
+    private static char[] generate(int length) {
+        StringBuilder source = new StringBuilder(length + 32);
+        while (source.length() < length) {
+            source.append(BENCH.next() % 1000 * (BENCH.next() & 0xff));
+            if (BENCH.next() % 4 != 0) {
+                source.append('.').append(BENCH.next());
+            }
+            source.append(BENCH.next() % 8 == 0 ? ";\n" : " + ");
+        }
+        return source.toString().toCharArray();
+    }
+}
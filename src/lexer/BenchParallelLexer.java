@@ -0,0 +1,119 @@
+package lexer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+import lexerC.LexerC;
+
+// times chunked lexing on pools of 1, 2, 4... workers against a single
+// lexer and checks that both dialects produce the same tokens either way,
+// on the given file or on a generated multi-megabyte corpus
+public class BenchParallelLexer {
+
+    private static final int ROUNDS = 5; //timed rounds, after one warmup round
+
+    private static final String[] LINES = {
+        "public static void main() {",
+        "    int count = 0;",
+        "    float ratio = 12.5;",
+        "    char c = 'x';",
+        "    while (count < 100 && ratio >= 1.0) {",
+        "        count = count + 1;",
+        "        printf(\"count is\");",
+        "        printf(\"a string",
+        "            over three",
+        "            lines\");",
+        "    }",
+        "    if (!flag || count != 7) { ratio = ratio * 2.0; }",
+        "}"};
+
+    public static void main(String[] args) throws IOException {
+        char[] source;
+        if (args.length == 0) {
+            source = generate(32 << 20);
+            System.out.println("Benchmarking " + source.length + " generated characters...");
+        } else {
+            source = new String(Files.readAllBytes(Paths.get(args[0])), "UTF-8").toCharArray();
+            System.out.println("Benchmarking " + args[0] + "...");
+        }
+
+        // sequential baseline
+        String expected = null;
+        String expectedC = null;
+        long sequentialTime = Long.MAX_VALUE;
+        int tokens = 0;
+        for (int round = 0; round <= ROUNDS; round++) {
+            long startTime = System.nanoTime();
+            TokenBuffer buffer = new Lexer(source, source.length).tokenize();
+            long time = System.nanoTime() - startTime;
+            if (round > 0) {
+                sequentialTime = Math.min(sequentialTime, time);
+            } else {
+                tokens = buffer.size();
+                expected = checksum(buffer);
+                expectedC = checksum(new LexerC(source, source.length).tokenize());
+            }
+        }
+
+        System.out.println("---");
+        System.out.println("Number of tokens: " + tokens);
+        System.out.printf("sequential: %8.2f ms%n", sequentialTime / 1e6);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        boolean same = true;
+        for (int workers = 1; ; workers = Math.min(workers * 2, cores)) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            long parallelTime = Long.MAX_VALUE;
+            for (int round = 0; round <= ROUNDS; round++) {
+                long startTime = System.nanoTime();
+                TokenBuffer buffer = new Lexer(source, source.length).tokenize(pool);
+                long time = System.nanoTime() - startTime;
+                if (round > 0) {
+                    parallelTime = Math.min(parallelTime, time);
+                } else {
+                    same &= checksum(buffer).equals(expected);
+                    same &= checksum(new LexerC(source, source.length).tokenize(pool)).equals(expectedC);
+                }
+            }
+            pool.shutdown();
+
+            System.out.printf("%2d workers: %8.2f ms, speedup %.2fx%n", workers, parallelTime / 1e6,
+                    (double) sequentialTime / parallelTime);
+            if (workers == cores) {
+                break;
+            }
+        }
+        System.out.println("Same tokens as the single lexer: " + same);
+        System.out.println();
+    }
+
+    // digest of every field of every token
+    private static String checksum(TokenBuffer tokens) {
+        long hash = tokens.size();
+        for (int i = 0; i < tokens.size(); i++) {
+            hash = hash * 31 + tokens.getType(i);
+            hash = hash * 31 + tokens.getStart(i);
+            hash = hash * 31 + tokens.getLength(i);
+            hash = hash * 31 + tokens.getLineNumber(i);
+            hash = hash * 31 + tokens.getColumnNumber(i);
+            hash = hash * 31 + tokens.getValue(i);
+        }
+        return Long.toHexString(hash) + "/" + tokens.getSymbols().size();
+    }
+
+    // repeat the sample lines, some of them with a tab
+    private static char[] generate(int length) {
+        StringBuilder source = new StringBuilder(length + 64);
+        int line = 0;
+        while (source.length() < length) {
+            if (line % 7 == 0) {
+                source.append('\t');
+            }
+            source.append(LINES[line % LINES.length]).append('x').append(line % 1000).append('\n');
+            line++;
+        }
+        return source.toString().toCharArray();
+    }
+}
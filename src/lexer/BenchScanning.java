@@ -0,0 +1,140 @@
+package lexer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+// compares skipping blank and identifier runs one Character.isWhitespace or
+// Character.isLetterOrDigit call per character (the old scanner loops) with
+// the 4 characters per long SWAR scans, then times the whole lexer, on the
+// given files or on generated whitespace-heavy and identifier-heavy code
+public class BenchScanning {
+
+    private static final Bench BENCH = new Bench(20);
+
+    private static final String[] NAMES = {"accumulatedTotal", "index", "remainingCapacity2",
+            "x", "firstVisibleLineNumber", "tmp", "maximumRetryCount", "cursorPosition"};
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            char[] source = generate(2000000, 24, 2);
+            System.out.println("Benchmarking " + source.length + " generated whitespace-heavy characters...");
+            run(new Lexer(source, source.length));
+
+            source = generate(2000000, 1, 6);
+            System.out.println("Benchmarking " + source.length + " generated identifier-heavy characters...");
+            run(new Lexer(source, source.length));
+        } else {
+            for (int i = 0; i < args.length; i++) {
+                System.out.println("Benchmarking " + args[i] + "...");
+                run(new Lexer(Paths.get(args[i])));
+            }
+        }
+    }
+
+    private static void run(Lexer lexer) throws IOException {
+        char[] source = lexer.getBuffer();
+        int limit = lexer.getLength();
+
+        // starts of the runs of at least two blanks and of the words
+        int blanks = 0;
+        int words = 0;
+        int[] blankStarts = new int[limit / 2 + 1];
+        int[] wordStarts = new int[limit / 2 + 1];
+        int blankChars = 0;
+        int wordChars = 0;
+        for (int i = 0; i < limit; i++) {
+            if (i + 1 < limit && isBlank(source[i]) && isBlank(source[i + 1]) && (i == 0 || !isBlank(source[i - 1]))) {
+                blankStarts[blanks++] = i;
+                blankChars += CharScanner.skipBlanks(source, i, limit) - i;
+            }
+            if (Character.isLetter(source[i]) && (i == 0 || !Character.isLetterOrDigit(source[i - 1]))) {
+                wordStarts[words++] = i;
+                wordChars += CharScanner.skipAsciiWord(source, i, limit) - i;
+            }
+        }
+
+        // old path: classify every character through the Unicode tables
+        int blankRuns = blanks;
+        int wordRuns = words;
+        long scalarBlankTime = BENCH.time(() -> {
+            long sum = 0;
+            for (int i = 0; i < blankRuns; i++) {
+                int index = blankStarts[i];
+                while (index < limit && Character.isWhitespace(source[index]) && source[index] != '\n') {
+                    index++;
+                }
+                sum += index;
+            }
+            return sum;
+        });
+        long scalarWordTime = BENCH.time(() -> {
+            long sum = 0;
+            for (int i = 0; i < wordRuns; i++) {
+                int index = wordStarts[i];
+                while (index < limit && Character.isLetterOrDigit(source[index])) {
+                    index++;
+                }
+                sum += index;
+            }
+            return sum;
+        });
+
+        // new path: 4 ASCII characters per long
+        long swarBlankTime = BENCH.time(() -> {
+            long sum = 0;
+            for (int i = 0; i < blankRuns; i++) {
+                sum -= CharScanner.skipBlanks(source, blankStarts[i], limit);
+            }
+            return sum;
+        });
+        long swarWordTime = BENCH.time(() -> {
+            long sum = 0;
+            for (int i = 0; i < wordRuns; i++) {
+                sum -= CharScanner.skipAsciiWord(source, wordStarts[i], limit);
+            }
+            return sum;
+        });
+
+        // whole lexer with the SWAR scans
+        int tokens = new Lexer(source, limit).tokenize().size();
+        long lexTime = BENCH.time(() -> new Lexer(source, limit).tokenize().size());
+
+        // print out statistics
+        System.out.println("---");
+        System.out.println("Number of tokens: " + tokens);
+        System.out.println("Blank runs: " + blanks + " (" + blankChars + " characters)");
+        System.out.println("Words: " + words + " (" + wordChars + " characters)");
+        if (blankChars > 0) {
+            System.out.printf("Blanks, Character.isWhitespace: %.2f ns/char%n", (double) scalarBlankTime / blankChars);
+            System.out.printf("Blanks, SWAR: %.2f ns/char%n", (double) swarBlankTime / blankChars);
+        }
+        if (wordChars > 0) {
+            System.out.printf("Words, Character.isLetterOrDigit: %.2f ns/char%n", (double) scalarWordTime / wordChars);
+            System.out.printf("Words, SWAR: %.2f ns/char%n", (double) swarWordTime / wordChars);
+        }
+        System.out.printf("Lexer: %.2f ms (%.1f Mtokens/s)%n", lexTime / 1e6, tokens * 1e3 / lexTime);
+        System.out.println("Checksum: " + BENCH.getChecksum());
+        System.out.println();
+    }
+
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    // statements indented by up to indent blanks, with up to words names per statement
+    private static char[] generate(int length, int indent, int words) {
+        StringBuilder source = new StringBuilder(length + 256);
+        while (source.length() < length) {
+            int blanks = BENCH.next() % indent;
+            char blank = BENCH.next() % 2 == 0 ? ' ' : '\t';
+            for (int i = 0; i < blanks; i++) {
+                source.append(blank);
+            }
+            int count = 1 + BENCH.next() % words;
+            for (int i = 0; i < count; i++) {
+                source.append(BENCH.pick(NAMES)).append(i + 1 < count ? " + " : ";\n");
+            }
+        }
+        return source.toString().toCharArray();
+    }
+}
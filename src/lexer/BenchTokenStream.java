@@ -0,0 +1,85 @@
+package lexer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+// compares a token type histogram built with the getToken() loop, with a
+// sequential stream of the lexer and with a parallel stream of the buffer
+// lexed on the common pool, on the given files or on generated code
+public class BenchTokenStream {
+
+    private static final Bench BENCH = new Bench(10);
+
+    private static final String[] PIECES = {"int ", "x", " = ", "count2", " + ", "12", " * ", "3.25",
+            "; ", "if (", ") { ", "} ", "\"text\"", "'c'", " && ", "true", "\n", "// note\n"};
+    private static final String[] SEPARATORS = {""};
+
+    private static boolean same; //every histogram equals the getToken() one
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            char[] source = BENCH.text(PIECES, SEPARATORS, 4000000);
+            System.out.println("Benchmarking " + source.length + " generated characters...");
+            run(source, source.length);
+        } else {
+            for (int i = 0; i < args.length; i++) {
+                System.out.println("Benchmarking " + args[i] + "...");
+                Lexer lexer = new Lexer(Paths.get(args[i]));
+                run(lexer.getBuffer(), lexer.getLength());
+            }
+        }
+    }
+
+    private static void run(char[] source, int length) throws IOException {
+        // old path: pull tokens one at a time
+        Map<TokenType, Long> expected = histogram(source, length);
+        long loopTime = BENCH.time(() -> histogram(source, length).size());
+
+        // the same on a stream lexed as it is pulled
+        same = true;
+        long streamTime = BENCH.time(() -> {
+            Map<TokenType, Long> counts = new Lexer(source, length).tokens()
+                    .collect(Collectors.groupingBy(Token::getType, () -> new EnumMap<>(TokenType.class),
+                            Collectors.counting()));
+            same &= counts.equals(expected);
+            return counts.size();
+        });
+
+        // pre-lexed in chunks, then counted on a parallel stream split by token index
+        long parallelTime = BENCH.time(() -> {
+            TokenBuffer tokens = new Lexer(source, length).tokenize(ForkJoinPool.commonPool());
+            Map<TokenType, Long> counts = Lexer.tokens(tokens).parallel()
+                    .collect(Collectors.groupingBy(Token::getType, () -> new EnumMap<>(TokenType.class),
+                            Collectors.counting()));
+            same &= counts.equals(expected);
+            return counts.size();
+        });
+
+        // print out statistics
+        long total = expected.values().stream().mapToLong(Long::longValue).sum();
+        System.out.println("---");
+        System.out.println("Number of tokens: " + total);
+        System.out.println("Histograms equal: " + same);
+        System.out.printf("getToken() loop: %.2f ms%n", loopTime / 1e6);
+        System.out.printf("tokens() stream: %.2f ms%n", streamTime / 1e6);
+        System.out.printf("tokenize(pool) + parallel stream: %.2f ms (%d workers)%n", parallelTime / 1e6,
+                ForkJoinPool.commonPool().getParallelism());
+        System.out.println();
+    }
+
+    // token type histogram built with the getToken() loop
+    private static Map<TokenType, Long> histogram(char[] source, int length) throws IOException {
+        Map<TokenType, Long> counts = new EnumMap<>(TokenType.class);
+        Lexer lexer = new Lexer(source, length);
+        Token token;
+        do {
+            token = lexer.getToken();
+            counts.merge(token.getType(), 1L, Long::sum);
+        } while (token.getType() != TokenType.EOF);
+        return counts;
+    }
+}
@@ -0,0 +1,420 @@
+package lexer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// character engine shared by Lexer and LexerC: the whole input lives in a
+// char[] window and lexemes are cut out of it by offset and length
+public abstract class CharScanner {
+
+    private static final int CHUNK_SIZE = 8192; //initial read size
+
+    // problems stored as the value of an unknown token
+    public static final int MALFORMED_NUMBER = 1;
+    public static final int INT_OUT_OF_RANGE = 2;
+    public static final int FLOAT_OUT_OF_RANGE = 3;
+    public static final int UNTERMINATED_COMMENT = 4;
+
+    // SWAR constants, a char per 16 bit lane of a long
+    private static final long LANES = 0x0001000100010001L; //1 in every lane
+    private static final long NON_ASCII = 0xff80 * LANES; //bits above 0x7f
+    private static final long BIT7 = 0x80 * LANES;
+    private static final long BIT8 = 0x100 * LANES;
+
+    private static final String[] PROBLEMS = {"malformed number", "integer literal out of range",
+            "float literal out of range", "unterminated comment"};
+
+    protected char[] buffer; //source characters
+    protected int limit; //number of valid characters in buffer
+    protected int position; //index of the character after nextChar
+    protected int nextChar; //current character, -1 at end of input
+    protected LineIndex lines; //offsets of the line starts passed so far
+    protected boolean quiet; //count errors without reporting them
+    private Diagnostics diagnostics = new Diagnostics(System.err); //collector of the reported errors
+    private int errors; //number of errors
+
+    // load the whole reader into the buffer
+    protected CharScanner(Reader reader) throws IOException {
+        char[] chars = new char[CHUNK_SIZE];
+        int length = 0;
+        int read;
+        while ((read = reader.read(chars, length, chars.length - length)) != -1) {
+            length += read;
+            if (length == chars.length) {
+                chars = Arrays.copyOf(chars, chars.length * 2);
+            }
+        }
+        this.buffer = chars;
+        this.limit = length;
+        this.lines = new LineIndex(chars, 0);
+        nextChar = getChar();
+    }
+
+    // map the file and decode its ASCII/UTF-8 bytes straight into the buffer
+    protected CharScanner(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to lex");
+            }
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            // UTF-8 never decodes to more chars than bytes
+            char[] chars = new char[(int) size];
+            int length = 0;
+
+            // fast path: ASCII bytes widen directly to chars
+            while (length < size) {
+                byte b = bytes.get(length);
+                if (b < 0) {
+                    break;
+                }
+                chars[length++] = (char) b;
+            }
+
+            // multi-byte character found, decode the rest as UTF-8
+            if (length < size) {
+                bytes.position(length);
+                CharBuffer out = CharBuffer.wrap(chars, length, chars.length - length);
+                CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                decoder.decode(bytes, out, true);
+                decoder.flush(out);
+                length = out.position();
+            }
+
+            this.buffer = chars;
+            this.limit = length;
+            this.lines = new LineIndex(chars, 0);
+        }
+        nextChar = getChar();
+    }
+
+    // scan the first length characters of an existing buffer
+    protected CharScanner(char[] buffer, int length) {
+        this.buffer = buffer;
+        this.limit = length;
+        this.lines = new LineIndex(buffer, 0);
+        nextChar = getChar();
+    }
+
+    // scan characters [start, end) of an existing buffer, where start is 0 or
+    // just after a newline, recording the lines from start on; errors are
+    // not printed, their line numbers being local to the slice
+    protected CharScanner(char[] buffer, int start, int end) {
+        this(buffer, start, end, new LineIndex(buffer, start));
+    }
+
+    // quiet scanner of characters [start, end) of buffer recording line starts into lines
+    protected CharScanner(char[] buffer, int start, int end, LineIndex lines) {
+        this.buffer = buffer;
+        this.limit = end;
+        this.position = start;
+        this.lines = lines;
+        this.quiet = true;
+        nextChar = getChar();
+    }
+
+    // read the next character of the window (-1 at end of input)
+    protected final int getChar() {
+        if (position < limit) {
+            return buffer[position++];
+        }
+        position = limit + 1;
+        return -1;
+    }
+
+    // buffer offset of nextChar
+    protected final int offset() {
+        return position - 1;
+    }
+
+    // move back to a previously saved offset
+    protected final void reset(int offset) {
+        position = offset;
+        nextChar = getChar();
+    }
+
+    // characters [start, start + length) of the window
+    protected final String lexeme(int start, int length) {
+        return new String(buffer, start, length);
+    }
+
+    public char[] getBuffer() {
+        return buffer;
+    }
+
+    public int getLength() {
+        return limit;
+    }
+
+    // line starts of the input scanned so far
+    public LineIndex getLines() {
+        return lines;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    // count errors without reporting them
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    // report errors to diagnostics instead of printing them to System.err
+    public void setDiagnostics(Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    // report a problem of the token starting at offset
+    protected final void error(int problem, int offset) {
+        errors++;
+        if (!quiet) {
+            diagnostics.report(describe(problem, lines, offset));
+        }
+    }
+
+    // message of a problem of the token starting at offset
+    public static String describe(int problem, LineIndex lines, int offset) {
+        return "ERROR: " + PROBLEMS[problem - 1] + " at line " + lines.line(offset)
+                + ", column " + lines.column(offset);
+    }
+
+    // report the problems recorded in a token buffer lexed quietly, return their number
+    public static int report(TokenBuffer tokens, int unknownType, Diagnostics diagnostics) {
+        int count = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.getType(i) == unknownType && tokens.getValue(i) != 0) {
+                diagnostics.report(describe((int) tokens.getValue(i), tokens.getLines(), tokens.getStart(i)));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // columns between tab stops in reported column numbers
+    public void setTabWidth(int tabWidth) {
+        lines.setTabWidth(tabWidth);
+    }
+
+    // detect and skip possible '\n', '\r' and '\rn' line breaks
+    protected final boolean skipNewline() {
+        if (nextChar == '\n') {
+            nextChar = getChar();
+            lines.add(offset());
+            return true;
+        }
+        if (nextChar == '\r') {
+            nextChar = getChar();
+
+            // skip over next char if '\n'
+            if (nextChar == '\n') {
+                nextChar = getChar();
+            }
+            lines.add(offset());
+            return true;
+        }
+        // newline char not found
+        return false;
+    }
+
+    // skip whitespace characters and comments, return false when the input
+    // ends inside a block comment, stopping at its "/*"
+    protected final boolean skipWhitespace() {
+        while (true) {
+            while (Character.isWhitespace(nextChar)) {
+                // skip a run of blanks 4 characters at a time
+                if (isBlank(nextChar) && position < limit && isBlank(buffer[position])) {
+                    reset(skipBlanks(buffer, position + 1, limit));
+                    continue;
+                }
+
+                // check if whitespace char is a newline
+                if (!skipNewline()) {
+                    nextChar = getChar();
+                }
+            }
+
+            // buffer[position] is the character after nextChar
+            if (nextChar != '/' || position >= limit) {
+                return true;
+            }
+            char next = buffer[position];
+            if (next == '/') {
+                skipLineComment();
+            } else if (next == '*') {
+                if (!skipBlockComment()) {
+                    return false;
+                }
+            } else {
+                return true;
+            }
+        }
+    }
+
+    // move to the line break ending a "//" comment, searching the buffer directly
+    private void skipLineComment() {
+        int end = position + 1;
+        while (end < limit && buffer[end] != '\n' && buffer[end] != '\r') {
+            end++;
+        }
+        reset(end);
+    }
+
+    // move past a "/* */" comment, searching the buffer for each '/' and checking
+    // the '*' before it; return false without moving if the comment is not closed
+    private boolean skipBlockComment() {
+        int start = offset();
+        int end = start + 3;
+        while (true) {
+            while (end < limit && buffer[end] != '/') {
+                end++;
+            }
+            if (end >= limit) {
+                return false;
+            }
+            if (buffer[end - 1] == '*') {
+                break;
+            }
+            end++;
+        }
+
+        lines.addBreaks(start, end);
+        reset(end + 1);
+        return true;
+    }
+
+    // consume the rest of the input, recording its lines
+    protected final void skipRest() {
+        lines.addBreaks(offset(), limit);
+        reset(limit);
+    }
+
+    // consume a run of letters and digits
+    protected final void skipLettersOrDigits() {
+        while (Character.isLetterOrDigit(nextChar)) {
+            nextChar = getChar();
+        }
+    }
+
+    // consume a run of digits
+    protected final void skipDigits() {
+        while (Character.isDigit(nextChar)) {
+            nextChar = getChar();
+        }
+    }
+
+    // run the table from nextChar, consume the longest lexeme it accepts and
+    // return the matching rule (-1 at end of input)
+    protected final int match(LexerTable table) {
+        byte[] classes = table.classes;
+        int[] transitions = table.transitions;
+        int[] accepts = table.accepts;
+        int classCount = table.classCount;
+        boolean[] wordLoops = table.wordLoops;
+
+        int index = offset();
+        int end = index;
+        int rule = -1;
+        int state = LexerTable.START;
+        while (index < limit) {
+            char c = buffer[index];
+            state = transitions[state * classCount + (c < LexerTable.LETTER ? classes[c] : table.classOf(c))];
+            if (state == LexerTable.DEAD) {
+                break;
+            }
+            index++;
+
+            // skip the ASCII letters and digits the state loops on 4 at a time
+            if (wordLoops[state]) {
+                index = skipAsciiWord(buffer, index, limit);
+            }
+            if (accepts[state] >= 0) {
+                rule = accepts[state];
+                end = index;
+            }
+        }
+
+        reset(end);
+        return rule;
+    }
+
+    private static boolean isBlank(int c) {
+        return c == ' ' || c == '\t';
+    }
+
+    // 4 characters from index on, one per 16 bit lane
+    private static long lanes(char[] buffer, int index) {
+        return buffer[index] | (long) buffer[index + 1] << 16
+                | (long) buffer[index + 2] << 32 | (long) buffer[index + 3] << 48;
+    }
+
+    // index of the first character from index on that is not a space or a tab
+    static int skipBlanks(char[] buffer, int index, int limit) {
+        while (index + 4 <= limit) {
+            long word = lanes(buffer, index);
+            if ((word & NON_ASCII) != 0) {
+                break;
+            }
+
+            // bit 7 of a lane is set when the lane differs from the character,
+            // lanes being below 0x80 nothing carries into the next lane
+            long notSpace = ((word ^ ' ' * LANES) + 0x7f * LANES) & BIT7;
+            long notTab = ((word ^ '\t' * LANES) + 0x7f * LANES) & BIT7;
+            long other = notSpace & notTab;
+            if (other != 0) {
+                return index + (Long.numberOfTrailingZeros(other) >>> 4);
+            }
+            index += 4;
+        }
+        while (index < limit && isBlank(buffer[index])) {
+            index++;
+        }
+        return index;
+    }
+
+    // index of the first character from index on that is not an ASCII letter or digit
+    static int skipAsciiWord(char[] buffer, int index, int limit) {
+        while (index + 4 <= limit) {
+            long word = lanes(buffer, index);
+            if ((word & NON_ASCII) != 0) {
+                break;
+            }
+
+            // bit 8 of a lane is set when the lane is at least the character,
+            // letters are matched in lower case
+            long lower = word | 0x20 * LANES;
+            long digit = atLeast(word, '0') & ~atLeast(word, '9' + 1);
+            long letter = atLeast(lower, 'a') & ~atLeast(lower, 'z' + 1);
+            long other = ~(digit | letter) & BIT8;
+            if (other != 0) {
+                return index + (Long.numberOfTrailingZeros(other) >>> 4);
+            }
+            index += 4;
+        }
+        while (index < limit && buffer[index] < 0x80 && Character.isLetterOrDigit(buffer[index])) {
+            index++;
+        }
+        return index;
+    }
+
+    // bit 8 of each lane below 0x80 set when the lane is at least c
+    private static long atLeast(long word, int c) {
+        return (word + (0x100 - c) * LANES) & BIT8;
+    }
+}
@@ -0,0 +1,50 @@
+package lexer;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// error messages of one compilation in the order they were reported: the
+// lexer, parser and semantic analyzer of a file share one collector, so
+// files compiled at the same time keep their messages apart. A collector
+// with an echo stream also prints each message as it is reported, which
+// is what the single file tools do with System.err.
+public class Diagnostics {
+
+    private final List<String> messages = new ArrayList<>();
+    private final PrintStream echo; //stream printing each message as reported, null for none
+
+    // collect messages without printing them
+    public Diagnostics() {
+        this(null);
+    }
+
+    // collect messages and print each one to echo as well
+    public Diagnostics(PrintStream echo) {
+        this.echo = echo;
+    }
+
+    public void report(String message) {
+        messages.add(message);
+        if (echo != null) {
+            echo.println(message);
+        }
+    }
+
+    // number of messages reported
+    public int size() {
+        return messages.size();
+    }
+
+    public List<String> getMessages() {
+        return Collections.unmodifiableList(messages);
+    }
+
+    // print the messages reported so far, one per line
+    public void print(PrintStream out) {
+        for (String message : messages) {
+            out.println(message);
+        }
+    }
+}
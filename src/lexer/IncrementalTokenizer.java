@@ -0,0 +1,102 @@
+package lexer;
+
+// re-lexes a token stream after an edit of its source instead of the whole
+// source: lexing restarts at the last token the edit cannot have changed
+// and stops at the first new token past the edit that starts where an old
+// token started, moved by the edit, since the same characters lexed from
+// the same token start give the same tokens. The old tokens are kept from
+// there on, so the lexing costs the size of the edit, not of the source.
+public class IncrementalTokenizer {
+
+    // lexer of source from offset start, where a token starts, interning
+    // identifiers into symbols and recording the line starts into lines
+    public interface Relexer {
+        TokenScanner open(char[] source, int start, SymbolInterner symbols, LineIndex lines);
+    }
+
+    // appends the next token to tokens and returns its type ordinal
+    public interface TokenScanner {
+        int scan(TokenBuffer tokens);
+    }
+
+    private final TokenBuffer tokens; //stream of the source before the edit
+    private final int lookahead; //most characters the lexer reads past the end of a token
+    private final Relexer lexer;
+
+    public IncrementalTokenizer(TokenBuffer tokens, int lookahead, Relexer lexer) {
+        this.tokens = tokens;
+        this.lookahead = lookahead;
+        this.lexer = lexer;
+    }
+
+    // re-lex the stream after replacing removed characters at offset of its source by text
+    public TokenEdit relex(int offset, int removed, String text) {
+        char[] old = tokens.getSource();
+        int length = tokens.getStart(tokens.size() - 1); // EOF is at the end of input
+        if (offset < 0 || removed < 0 || offset + removed > length) {
+            throw new IndexOutOfBoundsException("edit [" + offset + ", " + (offset + removed)
+                    + ") out of source [0, " + length + ")");
+        }
+
+        // the edited source
+        int shift = text.length() - removed;
+        char[] source = new char[length + shift];
+        System.arraycopy(old, 0, source, 0, offset);
+        text.getChars(0, text.length(), source, offset);
+        System.arraycopy(old, offset + removed, source, offset + text.length(), length - offset - removed);
+
+        int first = restart(offset);
+        int start = first == 0 ? 0 : tokens.getStart(first);
+        LineIndex lines = new LineIndex(source, start);
+        TokenBuffer middle = new TokenBuffer(source, tokens.getSymbols(), lines, 0);
+        TokenScanner scanner = lexer.open(source, start, tokens.getSymbols(), lines);
+
+        // lex until a token past the edit starts where an old one did (EOF at the latest)
+        int end = offset + text.length();
+        int next = first; //first old token not before the last new token
+        while (true) {
+            scanner.scan(middle);
+            int count = middle.size() - 1;
+            int at = middle.getStart(count);
+            if (at < end) {
+                continue;
+            }
+            while (tokens.getStart(next) < at - shift) {
+                next++;
+            }
+            if (tokens.getStart(next) == at - shift) {
+                int from = tokens.getStart(next);
+                LineIndex merged = tokens.getLines().replace(source, start, lines, at, from, shift);
+                return new TokenEdit(tokens.replace(first, next, middle, count, shift, source, merged),
+                        first, next, first + count);
+            }
+        }
+    }
+
+    // last token lexing can restart at: it starts before offset, so the
+    // whitespace and comments before it still end there, and the token
+    // before it ends before offset with the characters read past it
+    private int restart(int offset) {
+        if (lookahead == LexerTable.UNBOUNDED) {
+            return 0;
+        }
+
+        // last token starting before offset
+        int low = 0;
+        int high = tokens.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (tokens.getStart(middle) < offset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        int token = low;
+        while (token > 0 && tokens.getStart(token - 1) + tokens.getLength(token - 1) + lookahead > offset) {
+            token--;
+        }
+        return token;
+    }
+}
@@ -0,0 +1,96 @@
+package lexer;
+
+import java.util.Map;
+
+// collision-free keyword table: the hash of a lexeme is built from its
+// length and its first, middle and last characters, with multipliers picked
+// at construction so every keyword lands in its own slot. A lookup is one
+// probe plus a char comparison against the source buffer, with no String.
+public class KeywordTable {
+
+    private static final int MAX_MULTIPLIER = 256;
+
+    private final char[][] keywords; //keyword spelling by slot
+    private final int[] types; //token type ordinal by slot
+    private final int mask;
+    private final int firstMultiplier;
+    private final int lastMultiplier;
+    private final int minLength;
+    private final int maxLength;
+
+    // build a table for the given keyword to token type ordinal mapping
+    public KeywordTable(Map<String, ? extends Enum<?>> words) {
+        String[] spellings = words.keySet().toArray(new String[0]);
+
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (String word : spellings) {
+            min = Math.min(min, word.length());
+            max = Math.max(max, word.length());
+        }
+        this.minLength = min;
+        this.maxLength = max;
+
+        // search the smallest table and multipliers without collisions
+        int size = Integer.highestOneBit(Math.max(spellings.length, 1) * 2 - 1) << 1;
+        while (true) {
+            for (int first = 1; first < MAX_MULTIPLIER; first++) {
+                for (int last = 1; last < MAX_MULTIPLIER; last++) {
+                    if (isPerfect(spellings, size - 1, first, last)) {
+                        this.mask = size - 1;
+                        this.firstMultiplier = first;
+                        this.lastMultiplier = last;
+                        this.keywords = new char[size][];
+                        this.types = new int[size];
+                        for (String word : spellings) {
+                            int slot = hash(word, mask, first, last);
+                            keywords[slot] = word.toCharArray();
+                            types[slot] = words.get(word).ordinal();
+                        }
+                        return;
+                    }
+                }
+            }
+            size <<= 1;
+        }
+    }
+
+    // token type ordinal of the keyword spelled by chars [start, start + length), -1 if none
+    public int lookup(char[] chars, int start, int length) {
+        if (length < minLength || length > maxLength) {
+            return -1;
+        }
+
+        int end = start + length - 1;
+        int slot = ((chars[start] * firstMultiplier + chars[end] * lastMultiplier
+                + chars[start + (length >> 1)] + length) & mask);
+        char[] keyword = keywords[slot];
+        if (keyword == null || keyword.length != length) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            if (keyword[i] != chars[start + i]) {
+                return -1;
+            }
+        }
+        return types[slot];
+    }
+
+    private static boolean isPerfect(String[] words, int mask, int first, int last) {
+        boolean[] used = new boolean[mask + 1];
+        for (String word : words) {
+            int slot = hash(word, mask, first, last);
+            if (used[slot]) {
+                return false;
+            }
+            used[slot] = true;
+        }
+        return true;
+    }
+
+    private static int hash(String word, int mask, int first, int last) {
+        int length = word.length();
+        return (word.charAt(0) * first + word.charAt(length - 1) * last
+                + word.charAt(length >> 1) + length) & mask;
+    }
+}
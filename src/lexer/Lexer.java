@@ -1,25 +1,36 @@
 package lexer;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class Lexer {
+public class Lexer extends CharScanner {
 
-    private BufferedReader stream; //input stream reader
-    private Token nextToken;
-    private int nextChar;
-    private int lineNumber = 1; //current line number
-    private int columnNumber = 1; //current column number
+    private final LookaheadRing ahead = new LookaheadRing(); //tokens scanned by peek(k)
+
+    // fields of the token produced by scan()
+    private int tokenStart; //lexeme start offset
+    private int tokenLength; //lexeme length
+    private long tokenValue; //packed literal value or symbol id
+
+    private final SymbolInterner symbols; //identifier ids
 
     private final static Map<String, TokenType> reservedWords; //reserved words dictionary
+    private final static TokenType[] TYPES = TokenType.values(); //token types by ordinal
+    private final static KeywordTable keywords; //reserved words and boolean constants by perfect hash
     private final static Map<Character, TokenType> punctuation; //punctuation characters dictionary
     private final static Map<String, TokenType> operators; //operator characters dictionary
-
-    private int errors; //number of errors
+    private final static LexerTable table; //token DFA generated from the dictionaries
 
     static {
         reservedWords = new HashMap<>();
@@ -43,6 +54,11 @@ public class Lexer {
         reservedWords.put("printf", TokenType.PRINTF);
         reservedWords.put("scanf", TokenType.SCANF);
 
+        Map<String, TokenType> words = new HashMap<>(reservedWords);
+        words.put("true", TokenType.BOOLEAN_CONST);
+        words.put("false", TokenType.BOOLEAN_CONST);
+        keywords = new KeywordTable(words);
+
         punctuation = new HashMap<>();
         punctuation.put('(', TokenType.LPAREN);
         punctuation.put('.', TokenType.PUNTO);
@@ -71,315 +87,292 @@ public class Lexer {
         operators.put("*", TokenType.TIMES);
         operators.put("/", TokenType.DIV);
         operators.put("%", TokenType.MOD);
+
+        // generate the token table from the dictionaries
+        LexerSpec spec = LexerSpec.standard(TokenType.ID, TokenType.INT_CONST, TokenType.FLOAT_CONST,
+                TokenType.CHAR_CONST, TokenType.STRING_CONTS, TokenType.UNKNOWN);
+        for (Map.Entry<String, TokenType> operator : operators.entrySet()) {
+            spec.literal(operator.getKey(), operator.getValue());
+        }
+        for (Map.Entry<Character, TokenType> symbol : punctuation.entrySet()) {
+            spec.literal(String.valueOf(symbol.getKey()), symbol.getValue());
+        }
+        table = spec.build();
     }
 
-    public Lexer(FileReader file) throws FileNotFoundException {
-        this.stream = new BufferedReader(file);
-        nextChar = getChar();
+    public Lexer(Reader file) throws IOException {
+        super(file);
+        symbols = new SymbolInterner();
     }
 
-    public int getErrors() {
-        return errors;
+    // lex a memory mapped ASCII/UTF-8 file
+    public Lexer(Path file) throws IOException {
+        this(file, new SymbolInterner());
     }
 
-    // handles I/O for char stream
-    private int getChar() {
-        try {
-            return stream.read();
-        } catch (IOException e) {
-            System.err.print(e.getMessage());
-            System.err.println("IOException occured in Lexer::getChar()");
-            return -1;
-        }
+    // lex a memory mapped file into identifier ids shared with a token ring
+    private Lexer(Path file, SymbolInterner symbols) throws IOException {
+        super(file);
+        this.symbols = symbols;
     }
 
-    // 
-    // detect and skip possible '\n', '\r' and '\rn' line breaks
-    private boolean skipNewline() {
-        if (nextChar == '\n') {
-            lineNumber++;
-            columnNumber = 1;
-            nextChar = getChar();
-            return true;
-        }
-        if (nextChar == '\r') {
-            lineNumber++;
-            columnNumber = 1;
-            nextChar = getChar();
-
-            // skip over next char if '\n'
-            if (nextChar == '\n') {
-                nextChar = getChar();
-            }
-            return true;
-        }
-        // newline char not found
-        return false;
+    // lex the first length characters of buffer
+    public Lexer(char[] buffer, int length) {
+        super(buffer, length);
+        symbols = new SymbolInterner();
+    }
+
+    // lex characters [start, end) of buffer as one chunk of a parallel tokenize
+    private Lexer(char[] buffer, int start, int end) {
+        super(buffer, start, end);
+        symbols = new SymbolInterner();
+    }
+
+    // lex buffer from offset start, where a token starts, for relex()
+    private Lexer(char[] buffer, int start, SymbolInterner symbols, LineIndex lines) {
+        super(buffer, start, buffer.length, lines);
+        this.symbols = symbols;
+    }
+
+    public SymbolInterner getSymbols() {
+        return symbols;
     }
 
     // return the next token without consuming it
     public Token peek() throws IOException {
-        // advance token only if its been reset by getToken()
-        if (nextToken == null) {
-            nextToken = getToken();
+        return peek(0);
+    }
+
+    // return the token k positions ahead without consuming it (peek(0) is the next token)
+    public Token peek(int k) throws IOException {
+        // scan ahead until the ring holds k + 1 tokens
+        while (ahead.size() <= k) {
+            TokenType type = scan();
+            ahead.add(type.ordinal(), tokenStart, tokenLength, tokenValue);
         }
 
-        return nextToken;
+        int start = ahead.getStart(k);
+        return Token.of(TYPES[ahead.getType(k)], buffer, start, ahead.getLength(k),
+                lines.line(start), lines.column(start), ahead.getValue(k));
     }
 
     // return the next token in the input stream (EOF signals end of input)
     public Token getToken() throws IOException {
-        // check if peek() was called
-        if (nextToken != null) {
-            Token token = nextToken;
-            nextToken = null; // allow peek to call for next token
-            return token;
-        }
-
-        // skip whitespace character
-        while (Character.isWhitespace(nextChar)) {
-            // check if whitespace char is a newline
-            if (!skipNewline()) {
-                columnNumber++;
-                nextChar = getChar();
-            }
+        return token(next());
+    }
 
-            // offset colNum for tab chars
-            if (nextChar == '\t') {
-                columnNumber += 3;
-            }
-        }
+    // tokens of the rest of the input, lexed as the stream pulls them (ends with EOF)
+    public Stream<Token> tokens() {
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<Token>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private boolean done; //EOF passed
 
-        // identifier or reserved word ([a-zA-Z][a-zA-Z0-9_]*)
-        if (Character.isLetter(nextChar)) {
-            // create new idVal starting with first char of identifier
-            String current = Character.toString((char) nextChar);
-            columnNumber++;
-            nextChar = getChar();
-
-            // include remaining sequence of chars that are letters, digits, or _
-            while (Character.isLetterOrDigit(nextChar)) {
-                current += (char) nextChar;
-                columnNumber++;
-                nextChar = getChar();
+            public boolean tryAdvance(Consumer<? super Token> action) {
+                if (done) {
+                    return false;
+                }
+                TokenType type = next();
+                done = type == TokenType.EOF;
+                action.accept(token(type));
+                return true;
             }
+        }, false);
+    }
 
-            // check if identifier is a reserved word
-            TokenType type = reservedWords.get(current);
-
-            if (type != null) {
-                return new Token(type, new TokenAttribute(), lineNumber, columnNumber - current.length());
-            }
+    // tokens of a buffer lexed by a Lexer, sized and split by token index for parallel streams
+    public static Stream<Token> tokens(TokenBuffer tokens) {
+        return StreamSupport.stream(new TokenSpliterator<>(tokens, Token::of), false);
+    }
 
-            if (current.equals("true")) {
-                return new Token(TokenType.BOOLEAN_CONST, new TokenAttribute(true), lineNumber, columnNumber - current.length());
-            } else if (current.equals("false")) {
-                return new Token(TokenType.BOOLEAN_CONST, new TokenAttribute(false), lineNumber, columnNumber - current.length());
-            }
+    // token object of the token fields
+    private Token token(TokenType type) {
+        return Token.of(type, buffer, tokenStart, tokenLength,
+                lines.line(tokenStart), lines.column(tokenStart), tokenValue);
+    }
 
-            // token is an identifier
-            return new Token(TokenType.ID, new TokenAttribute(current), lineNumber, columnNumber - current.length());
+    // load the next token into the token fields, taking peeked tokens first
+    private TokenType next() {
+        if (ahead.size() == 0) {
+            return scan();
         }
 
-        // integer literal ([0-9]+) OR float literal ([0-9]+.[0-9]+)
-        if (Character.isDigit(nextChar)) {
+        tokenStart = ahead.getStart(0);
+        tokenLength = ahead.getLength(0);
+        tokenValue = ahead.getValue(0);
+        TokenType type = TYPES[ahead.getType(0)];
+        ahead.remove();
+        return type;
+    }
 
-            // create string representation of number
-            String numString = Character.toString((char) nextChar);
-            columnNumber++;
-            nextChar = getChar();
+    // lex the rest of the input into a token buffer (ends with EOF)
+    public TokenBuffer tokenize() {
+        TokenBuffer tokens = new TokenBuffer(buffer, symbols, lines, (limit - offset()) / 4);
+        TokenType type;
+        do {
+            type = next();
+            tokens.add(type.ordinal(), tokenStart, tokenLength, tokenValue);
+        } while (type != TokenType.EOF);
+        return tokens;
+    }
 
-            // concatenate remaining sequence of digits
-            while (Character.isDigit(nextChar)) {
-                numString += (char) nextChar;
-                columnNumber++;
-                nextChar = getChar();
-            }
+    // lex the rest of the input into a token ring (ends with EOF)
+    public void tokenize(TokenRing ring) {
+        TokenType type;
+        do {
+            type = next();
+            String name = type == TokenType.ID ? symbols.name((int) tokenValue) : null;
+            ring.add(type.ordinal(), tokenStart, tokenLength,
+                    lines.line(tokenStart), lines.column(tokenStart), tokenValue, name);
+        } while (type != TokenType.EOF);
+    }
 
-            if (nextChar == '.') {
-                //stream.mark(0);
-                nextChar = getChar();
-                columnNumber++;
-
-                if (Character.isDigit(nextChar)) {
-                    numString += '.';
-                    // concatenate remaining sequence of digits
-                    while (Character.isDigit(nextChar)) {
-                        numString += (char) nextChar;
-                        columnNumber++;
-                        nextChar = getChar();
-                    }
-
-                    return new Token(TokenType.FLOAT_CONST, new TokenAttribute(Float.parseFloat(numString)), lineNumber, columnNumber - numString.length());
-                }
-                while (!Character.isWhitespace(nextChar)) {
-                    columnNumber++;
-                    numString += nextChar;
-                    nextChar = getChar();
-                }
+    // lex the rest of the input on a new thread into a ring of the given
+    // capacity, for a parser reading it meanwhile (close the ring when done)
+    public TokenRing pipeline(int capacity) {
+        return pipeline(new TokenRing(buffer, symbols, capacity), () -> this);
+    }
 
-                return new Token(TokenType.UNKNOWN, new TokenAttribute(), lineNumber, columnNumber - numString.length() + 1);
+    // open and lex file on a new thread into a ring of the given capacity, so
+    // that reading and decoding the file overlap parsing as well; an error
+    // opening it is thrown to the parser reading the first token
+    public static TokenRing pipeline(Path file, int capacity) {
+        SymbolInterner symbols = new SymbolInterner();
+        return pipeline(new TokenRing(null, symbols, capacity), () -> new Lexer(file, symbols));
+    }
+
+    // run the lexer made by open on a new thread, filling ring
+    private static TokenRing pipeline(TokenRing ring, Callable<Lexer> open) {
+        Thread producer = new Thread(() -> {
+            try {
+                Lexer lexer = open.call();
+                ring.setSource(lexer.buffer);
+                lexer.tokenize(ring);
+            } catch (CancellationException e) {
+                // the parser stopped reading
+            } catch (Throwable e) {
+                ring.fail(e);
             }
+        }, "lexer");
+        producer.setDaemon(true);
+        producer.start();
+        return ring;
+    }
 
-            // return integer literal token
-            return new Token(TokenType.INT_CONST, new TokenAttribute(Integer.parseInt(numString)), lineNumber, columnNumber - numString.length());
+    // lex the whole input in newline separated chunks on pool, giving the same tokens as tokenize()
+    public TokenBuffer tokenize(ForkJoinPool pool) {
+        if (ahead.size() != 0 || offset() != 0) {
+            throw new IllegalStateException("tokenize(pool) called after getToken()");
         }
-        if (nextChar == '\"') {
-            nextChar = getChar();
-            columnNumber++;
-            String current = "";
-            while (Character.isLetterOrDigit(nextChar) || Character.isWhitespace(nextChar)) {
-                current += (char) nextChar;
-                columnNumber++;
-                nextChar = getChar();
 
-            }
-            if (nextChar == '\"') {
-                nextChar = getChar();
-                columnNumber++;
-                return new Token(TokenType.STRING_CONTS, new TokenAttribute(current), lineNumber, columnNumber - 1);
-            }
+        TokenBuffer tokens = new ParallelTokenizer(buffer, limit, symbols, TokenType.ID.ordinal(),
+                (start, end) -> new Lexer(buffer, start, end).tokenize()).tokenize(pool);
 
-            return new Token(TokenType.UNKNOWN, new TokenAttribute(), lineNumber, columnNumber - 1);
-        }
+        // the input is consumed, leave the lexer at EOF
+        tokens.getLines().setTabWidth(lines.getTabWidth());
+        lines = tokens.getLines();
+        reset(limit);
 
-        if (nextChar == '\'') {
-            nextChar = getChar();
-            columnNumber++;
-            if (Character.isAlphabetic(nextChar)) {
-                char current = (char) nextChar;
-                stream.mark(0);
-                nextChar = getChar();
-                columnNumber++;
-
-                if (nextChar == '\'') {
-                    nextChar = getChar();
-                    columnNumber++;
-                    return new Token(TokenType.CHAR_CONST, new TokenAttribute(current), lineNumber, columnNumber - 1);
-                }
-                stream.reset();
+        // report the problems found in the chunks, now that lines are global
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.getType(i) == TokenType.UNKNOWN.ordinal() && tokens.getValue(i) != 0) {
+                error((int) tokens.getValue(i), tokens.getStart(i));
             }
-
-            return new Token(TokenType.UNKNOWN, new TokenAttribute(), lineNumber, columnNumber - 1);
         }
+        return tokens;
+    }
 
-        // EOF reached
-        if (nextChar == -1) {
-            return new Token(TokenType.EOF, new TokenAttribute(), lineNumber, columnNumber);
-        }
+    // lex tokens of a Lexer again after replacing removed characters at offset
+    // of their source by text, from the last token the edit cannot change to
+    // the first token lining up with the old stream
+    public static TokenEdit relex(TokenBuffer tokens, int offset, int removed, String text) {
+        return new IncrementalTokenizer(tokens, table.getLookahead(),
+                (source, start, symbols, lines) -> new Lexer(source, start, symbols, lines)::scan)
+                .relex(offset, removed, text);
+    }
 
-        // check for binops
-        switch (nextChar) {
+    // lex the next token into tokens and return its type ordinal
+    private int scan(TokenBuffer tokens) {
+        TokenType type = next();
+        tokens.add(type.ordinal(), tokenStart, tokenLength, tokenValue);
+        return type.ordinal();
+    }
 
-            case '&':
-                columnNumber++;
-                nextChar = getChar();
+    // record the fields of the token produced by scan(), ending at the current offset
+    private TokenType emit(TokenType type, long value) {
+        tokenLength = offset() - tokenStart;
+        tokenValue = value;
+        return type;
+    }
 
-                // check if next char is '&' to match '&&' binop
-                if (nextChar == '&') {
-                    nextChar = getChar();
-                    return new Token(TokenType.AND, new TokenAttribute(), lineNumber, columnNumber - 2);
-                } else {
-                    return new Token(TokenType.UNKNOWN, new TokenAttribute(), lineNumber, columnNumber - 1);
-                }
+    // report a problem of the lexeme and record it as an unknown token
+    private TokenType problem(int problem) {
+        error(problem, tokenStart);
+        return emit(TokenType.UNKNOWN, problem);
+    }
 
-            case '|':
-                columnNumber++;
-                nextChar = getChar();
+    // lex the next token into the token fields and return its type
+    private TokenType scan() {
+        // skip whitespace characters and comments
+        boolean closed = skipWhitespace();
+        tokenStart = offset();
 
-                // check if next char is '|' to match '||' binop
-                if (nextChar == '|') {
-                    nextChar = getChar();
-                    return new Token(TokenType.OR, new TokenAttribute(), lineNumber, columnNumber - 2);
-                } else {
-                    return new Token(TokenType.UNKNOWN, new TokenAttribute(), lineNumber, columnNumber - 1);
-                }
+        // an unterminated comment runs to the end of input
+        if (!closed) {
+            skipRest();
+            return problem(UNTERMINATED_COMMENT);
+        }
 
-            case '=':
-                columnNumber++;
-                nextChar = getChar();
+        // EOF reached
+        if (nextChar == -1) {
+            return emit(TokenType.EOF, 0);
+        }
 
-                // check if next char is '=' to match '==' binop
-                if (nextChar == '=') {
-                    nextChar = getChar();
-                    return new Token(TokenType.EQ, new TokenAttribute(), lineNumber, columnNumber - 2);
-                } else {
-                    return new Token(TokenType.ASSIGN, new TokenAttribute(), lineNumber, columnNumber - 1);
-                }
+        // consume the longest lexeme the table accepts
+        int rule = match(table);
+        int length = offset() - tokenStart;
+        if (table.isMultiline(rule)) {
+            lines.addBreaks(tokenStart, offset());
+        }
+        TokenType type = TYPES[table.getType(rule)];
 
-            case '!':
-                columnNumber++;
-                nextChar = getChar();
+        switch (table.getAction(rule)) {
+            case LexerSpec.WORD:
+                // check if identifier is a reserved word or boolean constant
+                int keyword = keywords.lookup(buffer, tokenStart, length);
 
-                // check if next char is '!' to match '!=' binop
-                if (nextChar == '=') {
-                    nextChar = getChar();
-                    return new Token(TokenType.NEQ, new TokenAttribute(), lineNumber, columnNumber - 2);
-                } else {
-                    return new Token(TokenType.NOT, new TokenAttribute(), lineNumber, columnNumber - 1);
+                // "true" and "false" differ in length
+                if (keyword == TokenType.BOOLEAN_CONST.ordinal()) {
+                    return emit(TokenType.BOOLEAN_CONST, TokenBuffer.pack(length == 4));
+                }
+                if (keyword >= 0) {
+                    return emit(TYPES[keyword], 0);
                 }
 
-            case '<':
-                columnNumber++;
-                nextChar = getChar();
+                // token is an identifier
+                return emit(type, symbols.intern(buffer, tokenStart, length));
 
-                // check if next char is '<' to match '<=' binop
-                if (nextChar == '=') {
-                    nextChar = getChar();
-                    return new Token(TokenType.LT_EQ, new TokenAttribute(), lineNumber, columnNumber - 2);
-                } else {
-                    return new Token(TokenType.LT, new TokenAttribute(), lineNumber, columnNumber - 1);
+            case LexerSpec.INT:
+                long intVal = NumberParser.parseInt(buffer, tokenStart, offset());
+                if (intVal == NumberParser.OUT_OF_RANGE) {
+                    return problem(INT_OUT_OF_RANGE);
                 }
+                return emit(type, TokenBuffer.pack((int) intVal));
 
-            case '>':
-                columnNumber++;
-                nextChar = getChar();
-
-                // check if next char is '<' to match '<=' binop
-                if (nextChar == '=') {
-                    nextChar = getChar();
-                    return new Token(TokenType.RT_EQ, new TokenAttribute(), lineNumber, columnNumber - 2);
-                } else {
-                    return new Token(TokenType.RT, new TokenAttribute(), lineNumber, columnNumber - 1);
+            case LexerSpec.FLOAT:
+                float floatVal = NumberParser.parseFloat(buffer, tokenStart, offset());
+                if (Float.isInfinite(floatVal)) {
+                    return problem(FLOAT_OUT_OF_RANGE);
                 }
+                return emit(type, TokenBuffer.pack(floatVal));
 
-            case '+':
-                columnNumber++;
-                nextChar = getChar();
-                return new Token(TokenType.PLUS, new TokenAttribute(), lineNumber, columnNumber - 1);
-
-            case '-':
-                columnNumber++;
-                nextChar = getChar();
-                return new Token(TokenType.MINUS, new TokenAttribute(), lineNumber, columnNumber - 1);
-
-            case '*':
-                columnNumber++;
-                nextChar = getChar();
-                return new Token(TokenType.TIMES, new TokenAttribute(), lineNumber, columnNumber - 1);
-
-            case '/':
-                columnNumber++;
-                nextChar = getChar();
-                return new Token(TokenType.DIV, new TokenAttribute(), lineNumber, columnNumber - 1);
-
-            case '%':
-                columnNumber++;
-                nextChar = getChar();
-                return new Token(TokenType.MOD, new TokenAttribute(), lineNumber, columnNumber - 1);
-        }
+            case LexerSpec.MALFORMED:
+                return problem(MALFORMED_NUMBER);
 
-        // check for punctuation
-        TokenType type = punctuation.get((char) nextChar);
-        columnNumber++;
-        nextChar = getChar();
+            case LexerSpec.CHAR:
+                return emit(type, TokenBuffer.pack(buffer[tokenStart + 1]));
 
-        // found punctuation token
-        if (type != null) {
-            return new Token(type, new TokenAttribute(), lineNumber, columnNumber - 1);
+            default:
+                return emit(type, 0);
         }
-
-        // token type is unknown
-        return new Token(TokenType.UNKNOWN, new TokenAttribute(), lineNumber, columnNumber - 1);
     }
 }
@@ -0,0 +1,371 @@
+package lexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// declarative token spec: an ordered list of rules (pattern, token type,
+// action) compiled into a LexerTable. The patterns go through a Thompson NFA
+// and subset construction; input characters that behave alike are merged
+// into character classes. On a match the longest lexeme wins, and the
+// earliest rule wins between rules matching the same lexeme.
+public class LexerSpec {
+
+    // actions the lexer runs on the lexeme of a rule
+    public static final int TOKEN = 0; //plain token without value
+    public static final int WORD = 1; //identifier, reserved word or boolean constant
+    public static final int INT = 2; //integer literal
+    public static final int FLOAT = 3; //float literal
+    public static final int CHAR = 4; //char literal between quotes
+    public static final int STRING = 5; //string literal between double quotes
+    public static final int MALFORMED = 6; //malformed number, reported as an unknown token
+
+    private final List<Rule> rules = new ArrayList<>();
+    private final int unknown; //token type of characters no rule matches
+
+    // spec whose unmatched characters become single character tokens of the given type
+    public LexerSpec(Enum<?> unknown) {
+        this.unknown = unknown.ordinal();
+    }
+
+    // rules for the identifiers and literals both dialects share
+    public static LexerSpec standard(Enum<?> id, Enum<?> intConst, Enum<?> floatConst,
+            Enum<?> charConst, Enum<?> stringConst, Enum<?> unknown) {
+        Pattern letter = Pattern.letter();
+        Pattern digit = Pattern.digit();
+        Pattern whitespace = Pattern.whitespace();
+        Pattern digits = Pattern.plus(digit);
+        Pattern text = Pattern.star(Pattern.or(letter, digit, whitespace));
+
+        LexerSpec spec = new LexerSpec(unknown);
+        spec.rule(Pattern.seq(letter, Pattern.star(Pattern.or(letter, digit))), id, WORD);
+        spec.rule(digits, intConst, INT);
+        spec.rule(Pattern.seq(digits, Pattern.literal("."), digits), floatConst, FLOAT);
+
+        // a dot not followed by a digit swallows the rest of the word
+        Pattern junk = Pattern.seq(Pattern.except(digit, whitespace), Pattern.star(Pattern.except(whitespace)));
+        spec.rule(Pattern.seq(digits, Pattern.literal("."), Pattern.opt(junk)), unknown, MALFORMED);
+
+        spec.rule(Pattern.seq(Pattern.literal("\""), text, Pattern.literal("\"")), stringConst, STRING);
+        spec.rule(Pattern.seq(Pattern.literal("\""), text), unknown, TOKEN);
+        spec.rule(Pattern.seq(Pattern.literal("'"), Pattern.alphabetic(), Pattern.literal("'")), charConst, CHAR);
+        return spec;
+    }
+
+    // add a rule, earlier rules take precedence
+    public LexerSpec rule(Pattern pattern, Enum<?> type, int action) {
+        rules.add(new Rule(pattern, type.ordinal(), action));
+        return this;
+    }
+
+    // add a fixed string token
+    public LexerSpec literal(String text, Enum<?> type) {
+        return rule(Pattern.literal(text), type, TOKEN);
+    }
+
+    // compile the rules into a DFA table
+    public LexerTable build() {
+        List<Rule> all = new ArrayList<>(rules);
+        all.add(new Rule(Pattern.any(), unknown, TOKEN));
+
+        // Thompson construction, state 0 starts every rule
+        Nfa nfa = new Nfa();
+        nfa.newState();
+        for (int i = 0; i < all.size(); i++) {
+            int start = nfa.newState();
+            nfa.epsilon(0, start);
+            int end = all.get(i).pattern.compile(nfa, start);
+            nfa.accept(end, i);
+        }
+
+        // subset construction, DFA state 0 is dead and 1 is the start state
+        List<BitSet> states = new ArrayList<>();
+        Map<BitSet, Integer> ids = new HashMap<>();
+        List<int[]> moves = new ArrayList<>();
+        BitSet dead = new BitSet();
+        states.add(dead);
+        ids.put(dead, 0);
+        BitSet initial = new BitSet();
+        initial.set(0);
+        nfa.close(initial);
+        states.add(initial);
+        ids.put(initial, 1);
+
+        for (int i = 0; i < states.size(); i++) {
+            int[] move = new int[LexerTable.SYMBOLS];
+            for (int symbol = 0; symbol < LexerTable.SYMBOLS; symbol++) {
+                BitSet next = nfa.step(states.get(i), symbol);
+                Integer id = ids.get(next);
+                if (id == null) {
+                    id = states.size();
+                    states.add(next);
+                    ids.put(next, id);
+                }
+                move[symbol] = id;
+            }
+            moves.add(move);
+        }
+
+        // merge symbols with the same transitions into character classes
+        byte[] classes = new byte[LexerTable.SYMBOLS];
+        List<int[]> columns = new ArrayList<>();
+        for (int symbol = 0; symbol < LexerTable.SYMBOLS; symbol++) {
+            int[] column = new int[states.size()];
+            for (int state = 0; state < states.size(); state++) {
+                column[state] = moves.get(state)[symbol];
+            }
+            int cls = 0;
+            while (cls < columns.size() && !Arrays.equals(columns.get(cls), column)) {
+                cls++;
+            }
+            if (cls == columns.size()) {
+                columns.add(column);
+            }
+            classes[symbol] = (byte) cls;
+        }
+
+        int classCount = columns.size();
+        int[] transitions = new int[states.size() * classCount];
+        int[] accepts = new int[states.size()];
+        for (int state = 0; state < states.size(); state++) {
+            for (int cls = 0; cls < classCount; cls++) {
+                transitions[state * classCount + cls] = columns.get(cls)[state];
+            }
+            accepts[state] = nfa.accepting(states.get(state));
+        }
+
+        int[] types = new int[all.size()];
+        int[] actions = new int[all.size()];
+        boolean[] multiline = new boolean[all.size()];
+        for (int i = 0; i < all.size(); i++) {
+            Rule rule = all.get(i);
+            types[i] = rule.type;
+            actions[i] = rule.action;
+            multiline[i] = rule.pattern.matches('\n') || rule.pattern.matches('\r');
+        }
+
+        return new LexerTable(classes, classCount, transitions, accepts, types, actions, multiline);
+    }
+
+    private static class Rule {
+
+        private final Pattern pattern;
+        private final int type; //token type ordinal
+        private final int action;
+
+        private Rule(Pattern pattern, int type, int action) {
+            this.pattern = pattern;
+            this.type = type;
+            this.action = action;
+        }
+    }
+
+    // regular expression over the symbols of LexerTable
+    public static class Pattern {
+
+        private static final int SET = 0;
+        private static final int SEQ = 1;
+        private static final int OR = 2;
+        private static final int STAR = 3;
+
+        private final int kind;
+        private final BitSet set; //symbols matched by a SET
+        private final Pattern[] parts; //sub patterns of SEQ, OR and STAR
+
+        private Pattern(int kind, BitSet set, Pattern... parts) {
+            this.kind = kind;
+            this.set = set;
+            this.parts = parts;
+        }
+
+        // any character
+        public static Pattern any() {
+            BitSet set = new BitSet();
+            set.set(0, LexerTable.SYMBOLS);
+            return new Pattern(SET, set);
+        }
+
+        // characters where Character.isLetter holds
+        public static Pattern letter() {
+            return new Pattern(SET, LexerTable.symbols(LexerTable.LETTER));
+        }
+
+        // characters where Character.isDigit holds
+        public static Pattern digit() {
+            return new Pattern(SET, LexerTable.symbols(LexerTable.DIGIT));
+        }
+
+        // characters where Character.isWhitespace holds
+        public static Pattern whitespace() {
+            return new Pattern(SET, LexerTable.symbols(LexerTable.WHITESPACE));
+        }
+
+        // characters where Character.isAlphabetic holds
+        public static Pattern alphabetic() {
+            BitSet set = LexerTable.symbols(LexerTable.LETTER);
+            set.or(LexerTable.symbols(LexerTable.ALPHABETIC));
+            return new Pattern(SET, set);
+        }
+
+        // any single character outside the given character sets
+        public static Pattern except(Pattern... excluded) {
+            BitSet set = new BitSet();
+            set.set(0, LexerTable.SYMBOLS);
+            for (Pattern pattern : excluded) {
+                set.andNot(pattern.set);
+            }
+            return new Pattern(SET, set);
+        }
+
+        // the ASCII characters of text in order
+        public static Pattern literal(String text) {
+            Pattern[] chars = new Pattern[text.length()];
+            for (int i = 0; i < chars.length; i++) {
+                BitSet set = new BitSet();
+                set.set(text.charAt(i));
+                chars[i] = new Pattern(SET, set);
+            }
+            return seq(chars);
+        }
+
+        public static Pattern seq(Pattern... parts) {
+            return new Pattern(SEQ, null, parts);
+        }
+
+        public static Pattern or(Pattern... parts) {
+            return new Pattern(OR, null, parts);
+        }
+
+        public static Pattern star(Pattern part) {
+            return new Pattern(STAR, null, part);
+        }
+
+        public static Pattern plus(Pattern part) {
+            return seq(part, star(part));
+        }
+
+        public static Pattern opt(Pattern part) {
+            return or(part, seq());
+        }
+
+        // check if some lexeme of the pattern contains symbol
+        private boolean matches(int symbol) {
+            if (kind == SET) {
+                return set.get(symbol);
+            }
+            for (Pattern part : parts) {
+                if (part.matches(symbol)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // add the pattern to the NFA from state start and return its end state
+        private int compile(Nfa nfa, int start) {
+            switch (kind) {
+                case SET:
+                    int end = nfa.newState();
+                    nfa.edge(start, set, end);
+                    return end;
+                case SEQ:
+                    for (Pattern part : parts) {
+                        start = part.compile(nfa, start);
+                    }
+                    return start;
+                case OR:
+                    int join = nfa.newState();
+                    for (Pattern part : parts) {
+                        int branch = nfa.newState();
+                        nfa.epsilon(start, branch);
+                        nfa.epsilon(part.compile(nfa, branch), join);
+                    }
+                    return join;
+                default:
+                    int loop = nfa.newState();
+                    int exit = nfa.newState();
+                    nfa.epsilon(start, loop);
+                    nfa.epsilon(loop, exit);
+                    nfa.epsilon(parts[0].compile(nfa, loop), loop);
+                    return exit;
+            }
+        }
+    }
+
+    // NFA under construction, each state has epsilon moves and at most one symbol edge
+    private static class Nfa {
+
+        private final List<List<Integer>> epsilons = new ArrayList<>();
+        private final List<BitSet> edgeSymbols = new ArrayList<>();
+        private final List<Integer> edgeTargets = new ArrayList<>();
+        private final List<Integer> accepts = new ArrayList<>(); //rule accepted in each state, -1 if none
+
+        private int newState() {
+            epsilons.add(new ArrayList<Integer>());
+            edgeSymbols.add(null);
+            edgeTargets.add(-1);
+            accepts.add(-1);
+            return accepts.size() - 1;
+        }
+
+        private void epsilon(int from, int to) {
+            epsilons.get(from).add(to);
+        }
+
+        private void edge(int from, BitSet symbols, int to) {
+            edgeSymbols.set(from, symbols);
+            edgeTargets.set(from, to);
+        }
+
+        private void accept(int state, int rule) {
+            if (accepts.get(state) < 0) {
+                accepts.set(state, rule);
+            }
+        }
+
+        // add every state reachable through epsilon moves
+        private void close(BitSet states) {
+            List<Integer> pending = new ArrayList<>();
+            for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+                pending.add(state);
+            }
+            while (!pending.isEmpty()) {
+                int state = pending.remove(pending.size() - 1);
+                for (int next : epsilons.get(state)) {
+                    if (!states.get(next)) {
+                        states.set(next);
+                        pending.add(next);
+                    }
+                }
+            }
+        }
+
+        // states reached from states on symbol
+        private BitSet step(BitSet states, int symbol) {
+            BitSet next = new BitSet();
+            for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+                BitSet symbols = edgeSymbols.get(state);
+                if (symbols != null && symbols.get(symbol)) {
+                    next.set(edgeTargets.get(state));
+                }
+            }
+            close(next);
+            return next;
+        }
+
+        // earliest rule accepted by a set of states, -1 if none
+        private int accepting(BitSet states) {
+            int rule = -1;
+            for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+                int accepted = accepts.get(state);
+                if (accepted >= 0 && (rule < 0 || accepted < rule)) {
+                    rule = accepted;
+                }
+            }
+            return rule;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package lexer;
+
+import java.util.BitSet;
+
+// DFA compiled from a LexerSpec: a dense transition table indexed by state
+// and character class, the rule accepted in each state and what the lexer
+// does with each rule. Input symbols are the 128 ASCII characters plus one
+// symbol per category of the other characters.
+public class LexerTable {
+
+    // symbols standing for the non-ASCII characters
+    static final int LETTER = 128; //Character.isLetter
+    static final int ALPHABETIC = 129; //Character.isAlphabetic but not a letter
+    static final int DIGIT = 130; //Character.isDigit
+    static final int WHITESPACE = 131; //Character.isWhitespace
+    static final int OTHER = 132; //anything else
+    static final int SYMBOLS = 133;
+
+    static final int DEAD = 0; //state without way out
+    static final int START = 1; //state at the start of a token
+
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    final byte[] classes; //character class by symbol
+    final int classCount;
+    final int[] transitions; //next state by state * classCount + class
+    final int[] accepts; //rule accepted by state, -1 if none
+    final boolean[] wordLoops; //state stays itself on every ASCII letter and digit
+    final int lookahead; //most characters match() reads past the end of a token, UNBOUNDED if no limit
+
+    private final int[] types; //token type ordinal by rule
+    private final int[] actions; //LexerSpec action by rule
+    private final boolean[] multiline; //lexemes of the rule may contain line breaks
+
+    LexerTable(byte[] classes, int classCount, int[] transitions, int[] accepts,
+            int[] types, int[] actions, boolean[] multiline) {
+        this.classes = classes;
+        this.classCount = classCount;
+        this.transitions = transitions;
+        this.accepts = accepts;
+        this.types = types;
+        this.actions = actions;
+        this.multiline = multiline;
+
+        // states a run of ASCII letters and digits can be skipped in bulk
+        wordLoops = new boolean[accepts.length];
+        for (int state = START; state < accepts.length; state++) {
+            boolean loops = true;
+            for (char c = 0; c < LETTER && loops; c++) {
+                if (Character.isLetterOrDigit(c)) {
+                    loops = transitions[state * classCount + classes[c]] == state;
+                }
+            }
+            wordLoops[state] = loops;
+        }
+
+        // past the last accepting state match() reads through states accepting
+        // nothing, then one more character to find the token cannot grow
+        int[] reads = new int[accepts.length];
+        int most = 0;
+        for (int state = START; state < accepts.length; state++) {
+            if (accepts[state] >= 0) {
+                most = Math.max(most, reads(state, reads));
+            }
+        }
+        lookahead = most == UNBOUNDED ? UNBOUNDED : most + 1;
+    }
+
+    // most characters read from state on through states accepting nothing;
+    // reads memoizes the characters read entering each state and on, -1
+    // marking the states being explored
+    private int reads(int state, int[] reads) {
+        int most = 0;
+        for (int cls = 0; cls < classCount && most != UNBOUNDED; cls++) {
+            int next = transitions[state * classCount + cls];
+            if (next == DEAD || accepts[next] >= 0) {
+                continue;
+            }
+            if (reads[next] < 0) {
+                return UNBOUNDED; // a loop accepting nothing
+            }
+            if (reads[next] == 0) {
+                reads[next] = -1;
+                int after = reads(next, reads);
+                reads[next] = after == UNBOUNDED ? UNBOUNDED : after + 1;
+            }
+            most = Math.max(most, reads[next]);
+        }
+        return most;
+    }
+
+    // character class of c
+    final int classOf(char c) {
+        return classes[c < LETTER ? c : symbolOf(c)];
+    }
+
+    // symbol of a non-ASCII character
+    private static int symbolOf(char c) {
+        if (Character.isLetter(c)) {
+            return LETTER;
+        }
+        if (Character.isAlphabetic(c)) {
+            return ALPHABETIC;
+        }
+        if (Character.isDigit(c)) {
+            return DIGIT;
+        }
+        if (Character.isWhitespace(c)) {
+            return WHITESPACE;
+        }
+        return OTHER;
+    }
+
+    // ASCII characters of a category together with its non-ASCII symbol
+    static BitSet symbols(int category) {
+        BitSet set = new BitSet();
+        for (char c = 0; c < LETTER; c++) {
+            if ((category == LETTER && Character.isLetter(c))
+                    || (category == DIGIT && Character.isDigit(c))
+                    || (category == WHITESPACE && Character.isWhitespace(c))) {
+                set.set(c);
+            }
+        }
+        set.set(category);
+        return set;
+    }
+
+    public int getStates() {
+        return accepts.length;
+    }
+
+    public int getClasses() {
+        return classCount;
+    }
+
+    // most characters read past the end of a token before it is accepted,
+    // UNBOUNDED if a lexeme may depend on any amount of input after it
+    public int getLookahead() {
+        return lookahead;
+    }
+
+    // token type ordinal of a rule
+    public int getType(int rule) {
+        return types[rule];
+    }
+
+    // LexerSpec action of a rule
+    public int getAction(int rule) {
+        return actions[rule];
+    }
+
+    // check if a lexeme of the rule may span lines, so its line breaks must be recorded
+    public boolean isMultiline(int rule) {
+        return multiline[rule];
+    }
+}
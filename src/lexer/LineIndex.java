@@ -0,0 +1,130 @@
+package lexer;
+
+import java.util.Arrays;
+
+// offsets where the lines of a source buffer start, recorded by the scanner
+// as it passes line breaks ('\n', '\r' or "\r\n"). Tokens only keep their
+// start offset; line and column numbers are looked up here when needed.
+public class LineIndex {
+
+    public static final int DEFAULT_TAB_WIDTH = 4;
+
+    private static final int MIN_CAPACITY = 64;
+
+    private final char[] source;
+    private int[] starts; //line start offsets in increasing order
+    private int size; //number of lines
+    private int tabWidth = DEFAULT_TAB_WIDTH; //columns between tab stops
+
+    // index of a buffer whose first line starts at offset first
+    public LineIndex(char[] source, int first) {
+        this.source = source;
+        this.starts = new int[MIN_CAPACITY];
+        this.starts[0] = first;
+        this.size = 1;
+    }
+
+    // record a line starting at offset, just after a line break
+    public void add(int offset) {
+        int last = starts[size - 1];
+        if (offset <= last) {
+            return; // already recorded
+        }
+
+        // '\r' and '\n' of a "\r\n" recorded one at a time make a single break
+        if (last == offset - 1 && last > 0 && source[last] == '\n' && source[last - 1] == '\r') {
+            starts[size - 1] = offset;
+            return;
+        }
+
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+        }
+        starts[size++] = offset;
+    }
+
+    // record the line breaks of characters [start, end)
+    public void addBreaks(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (source[i] == '\n' || source[i] == '\r') {
+                add(i + 1);
+            }
+        }
+    }
+
+    // record the lines of an index covering the input after this one
+    public void append(LineIndex next) {
+        for (int i = 0; i < next.size; i++) {
+            add(next.starts[i]);
+        }
+    }
+
+    // copy of this index over an edited source: the lines starting up to
+    // offset start, the lines of middle after its first up to offset end,
+    // then the lines after offset from of this index moved by shift
+    LineIndex replace(char[] source, int start, LineIndex middle, int end, int from, int shift) {
+        int before = line(start);
+        int after = line(from);
+        int count = middle.line(end) - 1;
+        LineIndex lines = new LineIndex(source, 0);
+        lines.tabWidth = tabWidth;
+        lines.size = before + count + size - after;
+        lines.starts = new int[Math.max(lines.size, MIN_CAPACITY)];
+        System.arraycopy(starts, 0, lines.starts, 0, before);
+        System.arraycopy(middle.starts, 1, lines.starts, before, count);
+        for (int i = after; i < size; i++) {
+            lines.starts[before + count + i - after] = starts[i] + shift;
+        }
+        return lines;
+    }
+
+    // number of lines
+    public int size() {
+        return size;
+    }
+
+    // start offset of a line (1 based)
+    public int getLineStart(int line) {
+        return starts[line - 1];
+    }
+
+    public int getTabWidth() {
+        return tabWidth;
+    }
+
+    public void setTabWidth(int tabWidth) {
+        if (tabWidth < 1) {
+            throw new IllegalArgumentException("tab width must be positive: " + tabWidth);
+        }
+        this.tabWidth = tabWidth;
+    }
+
+    // line number (1 based) of the character at offset
+    public int line(int offset) {
+        // tokens are mostly looked up in order, try the last line first
+        if (offset >= starts[size - 1]) {
+            return size;
+        }
+
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (starts[middle] <= offset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low + 1;
+    }
+
+    // column number (1 based) of the character at offset, tabs moving to the next tab stop
+    public int column(int offset) {
+        int column = 0;
+        for (int i = starts[line(offset) - 1]; i < offset; i++) {
+            column = source[i] == '\t' ? (column / tabWidth + 1) * tabWidth : column + 1;
+        }
+        return column + 1;
+    }
+}
@@ -0,0 +1,87 @@
+package lexer;
+
+import java.util.Arrays;
+
+// queue of tokens a lexer scanned ahead for peek(k), stored as packed
+// fields in power-of-two arrays indexed by (first + k) & mask
+public class LookaheadRing {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private byte[] types = new byte[MIN_CAPACITY]; //token type ordinals
+    private int[] starts = new int[MIN_CAPACITY]; //lexeme start offsets
+    private int[] lengths = new int[MIN_CAPACITY]; //lexeme lengths
+    private long[] values = new long[MIN_CAPACITY]; //packed literal values or symbol ids
+    private int mask = MIN_CAPACITY - 1;
+    private int first; //slot of the oldest token
+    private int size; //number of queued tokens
+
+    public int size() {
+        return size;
+    }
+
+    // queue a token after the others
+    public void add(int type, int start, int length, long value) {
+        if (size > mask) {
+            grow();
+        }
+        int slot = (first + size) & mask;
+        types[slot] = (byte) type;
+        starts[slot] = start;
+        lengths[slot] = length;
+        values[slot] = value;
+        size++;
+    }
+
+    // drop the oldest token
+    public void remove() {
+        first = (first + 1) & mask;
+        size--;
+    }
+
+    // double the capacity, moving the queued tokens to the front
+    private void grow() {
+        int capacity = types.length * 2;
+        types = unwrap(types, capacity);
+        starts = unwrap(starts, capacity);
+        lengths = unwrap(lengths, capacity);
+        values = unwrap(values, capacity);
+        first = 0;
+        mask = capacity - 1;
+    }
+
+    private byte[] unwrap(byte[] ring, int capacity) {
+        byte[] result = Arrays.copyOfRange(ring, first, first + capacity);
+        System.arraycopy(ring, 0, result, ring.length - first, first);
+        return result;
+    }
+
+    private int[] unwrap(int[] ring, int capacity) {
+        int[] result = Arrays.copyOfRange(ring, first, first + capacity);
+        System.arraycopy(ring, 0, result, ring.length - first, first);
+        return result;
+    }
+
+    private long[] unwrap(long[] ring, int capacity) {
+        long[] result = Arrays.copyOfRange(ring, first, first + capacity);
+        System.arraycopy(ring, 0, result, ring.length - first, first);
+        return result;
+    }
+
+    // fields of the token k positions after the oldest one
+    public int getType(int k) {
+        return types[(first + k) & mask];
+    }
+
+    public int getStart(int k) {
+        return starts[(first + k) & mask];
+    }
+
+    public int getLength(int k) {
+        return lengths[(first + k) & mask];
+    }
+
+    public long getValue(int k) {
+        return values[(first + k) & mask];
+    }
+}
@@ -0,0 +1,140 @@
+package lexer;
+
+import java.math.BigInteger;
+
+// converts number lexemes straight out of the source buffer: integers are
+// accumulated with an overflow check and floats are rounded correctly to
+// the nearest float without building a String. Digits are the characters
+// where Character.isDigit holds, like in the lexer tables.
+public class NumberParser {
+
+    // returned by parseInt for a literal above Integer.MAX_VALUE
+    public static final long OUT_OF_RANGE = -1;
+
+    private static final int MAX_DIGITS = 18; //significant digits that always fit in a long
+    private static final long MAX_EXACT = 1L << 53; //integers a double holds exactly
+    private static final BigInteger CHUNK = BigInteger.TEN.pow(MAX_DIGITS);
+
+    // powers of ten a double holds exactly
+    private static final double[] POWERS = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private NumberParser() {
+    }
+
+    private static int digit(char c) {
+        return c <= '9' ? c - '0' : Character.digit(c, 10);
+    }
+
+    // value of the digits chars [start, end), OUT_OF_RANGE above Integer.MAX_VALUE
+    public static long parseInt(char[] chars, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + digit(chars[i]);
+            if (value > Integer.MAX_VALUE) {
+                return OUT_OF_RANGE;
+            }
+        }
+        return value;
+    }
+
+    // value of the digits and dot chars [start, end) rounded to the nearest
+    // float, infinite when too large for a float
+    public static float parseFloat(char[] chars, int start, int end) {
+        long mantissa = 0; //digits read so far, without the dot
+        int digits = 0; //significant digits in mantissa
+        int scale = 0; //fraction digits in mantissa
+        boolean fraction = false;
+
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c == '.') {
+                fraction = true;
+                continue;
+            }
+            if (digits == MAX_DIGITS) {
+                return parseLong(chars, start, end);
+            }
+            mantissa = mantissa * 10 + digit(c);
+            if (mantissa != 0) {
+                digits++;
+            }
+            if (fraction) {
+                scale++;
+            }
+        }
+
+        // both operands are exact doubles, and rounding the quotient to a double
+        // then to a float is the same as rounding it to a float once, since a
+        // double has more than twice the precision of a float plus two bits
+        if (mantissa < MAX_EXACT && scale < POWERS.length) {
+            return (float) (mantissa / POWERS[scale]);
+        }
+        return parseLong(chars, start, end);
+    }
+
+    // slow path of parseFloat for long literals, on exact big integers
+    private static float parseLong(char[] chars, int start, int end) {
+        BigInteger numerator = BigInteger.ZERO;
+        long chunk = 0; //digits not yet added to numerator
+        int chunkDigits = 0;
+        int scale = 0;
+        boolean fraction = false;
+
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c == '.') {
+                fraction = true;
+                continue;
+            }
+            chunk = chunk * 10 + digit(c);
+            if (++chunkDigits == MAX_DIGITS) {
+                numerator = numerator.multiply(CHUNK).add(BigInteger.valueOf(chunk));
+                chunk = 0;
+                chunkDigits = 0;
+            }
+            if (fraction) {
+                scale++;
+            }
+        }
+        numerator = numerator.multiply(BigInteger.TEN.pow(chunkDigits)).add(BigInteger.valueOf(chunk));
+
+        return round(numerator, BigInteger.TEN.pow(scale));
+    }
+
+    // numerator / denominator rounded to the nearest float, ties to even
+    private static float round(BigInteger numerator, BigInteger denominator) {
+        if (numerator.signum() == 0) {
+            return 0f;
+        }
+
+        // quotient scaled to 62 or 63 bits, the lowest one set when inexact
+        int shift = 62 - (numerator.bitLength() - denominator.bitLength());
+        BigInteger[] division = shift >= 0
+                ? numerator.shiftLeft(shift).divideAndRemainder(denominator)
+                : numerator.divideAndRemainder(denominator.shiftLeft(-shift));
+        long quotient = division[0].longValue();
+        if (division[1].signum() != 0) {
+            quotient |= 1;
+        }
+
+        // normal float: convert the 63 bit quotient once, then scale exactly
+        int exponent = 63 - Long.numberOfLeadingZeros(quotient) - shift;
+        if (exponent >= Float.MIN_EXPONENT) {
+            return Math.scalb((float) quotient, -shift);
+        }
+
+        // subnormal float: round to a multiple of Float.MIN_VALUE
+        int drop = shift - 149;
+        if (drop >= 64) {
+            return 0f;
+        }
+        long bits = quotient >>> drop;
+        long rest = quotient & ((1L << drop) - 1);
+        long half = 1L << (drop - 1);
+        if (rest > half || (rest == half && (bits & 1) != 0)) {
+            bits++;
+        }
+        return Float.intBitsToFloat((int) bits);
+    }
+}
@@ -0,0 +1,139 @@
+package lexer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// lexes a buffer in chunks split after newlines on a ForkJoinPool and
+// stitches the chunk token buffers into the stream a single lexer would
+// produce: the chunk line indexes are concatenated, identifiers are
+// interned again in input order, and a chunk that ends
+// inside a token running over its last newline (a string literal) is lexed
+// again together with the chunks that follow it
+public class ParallelTokenizer {
+
+    private static final int MIN_CHUNK_SIZE = 1 << 16; //smallest chunk worth a task
+
+    // lexer of the characters [start, end) of the buffer, start being 0 or just after a newline
+    public interface ChunkLexer {
+        TokenBuffer tokenize(int start, int end);
+    }
+
+    private final char[] source;
+    private final int length;
+    private final SymbolInterner symbols; //global identifier ids
+    private final int identifierType; //ordinal of the identifier token type
+    private final ChunkLexer lexer;
+
+    public ParallelTokenizer(char[] source, int length, SymbolInterner symbols, int identifierType, ChunkLexer lexer) {
+        this.source = source;
+        this.length = length;
+        this.symbols = symbols;
+        this.identifierType = identifierType;
+        this.lexer = lexer;
+    }
+
+    // lex with a few chunks per worker of the pool
+    public TokenBuffer tokenize(ForkJoinPool pool) {
+        return tokenize(pool, pool.getParallelism() * 4);
+    }
+
+    // lex in at most the given number of chunks
+    public TokenBuffer tokenize(ForkJoinPool pool, int chunks) {
+        int[] bounds = split(Math.max(1, Math.min(chunks, length / MIN_CHUNK_SIZE)));
+        int count = bounds.length - 1;
+
+        List<ForkJoinTask<TokenBuffer>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int start = bounds[i];
+            final int end = bounds[i + 1];
+            tasks.add(pool.submit(() -> lexer.tokenize(start, end)));
+        }
+
+        // stitch the chunks in order while the later ones are still being lexed
+        List<TokenBuffer> pieces = new ArrayList<>(count);
+        int size = 0;
+        int chunk = 0;
+        while (chunk < count) {
+            TokenBuffer tokens = tasks.get(chunk).join();
+            int next = chunk + 1;
+
+            // the last token ran into the next chunk, lex the chunks again as one
+            while (next < count && isCut(tokens, bounds[next])) {
+                next++;
+                tokens = lexer.tokenize(bounds[chunk], bounds[next]);
+            }
+            for (int i = chunk + 1; i < next; i++) {
+                tasks.get(i).cancel(false);
+            }
+
+            pieces.add(tokens);
+            size += tokens.size() - 1;
+            chunk = next;
+        }
+
+        return stitch(pieces, size + 1);
+    }
+
+    // chunk bounds: starts of the chunks followed by the end of input
+    private int[] split(int chunks) {
+        List<Integer> bounds = new ArrayList<>(chunks + 1);
+        bounds.add(0);
+        for (int i = 1; i < chunks; i++) {
+            int bound = Math.max((int) ((long) length * i / chunks), bounds.get(bounds.size() - 1));
+
+            // move the bound just after the next newline
+            while (bound < length && source[bound] != '\n') {
+                bound++;
+            }
+            if (bound + 1 >= length) {
+                break;
+            }
+            if (bound + 1 > bounds.get(bounds.size() - 1)) {
+                bounds.add(bound + 1);
+            }
+        }
+        bounds.add(length);
+
+        int[] result = new int[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    // check if the last token before EOF reaches the end of its chunk, only a
+    // token running over the newline before the chunk end can do so
+    private static boolean isCut(TokenBuffer tokens, int end) {
+        int last = tokens.size() - 2;
+        return last >= 0 && tokens.getStart(last) + tokens.getLength(last) == end;
+    }
+
+    // concatenate the chunk token buffers into one stream ending with the last EOF
+    private TokenBuffer stitch(List<TokenBuffer> pieces, int size) {
+        LineIndex lines = new LineIndex(source, 0);
+        TokenBuffer result = new TokenBuffer(source, symbols, lines, size);
+
+        for (int piece = 0; piece < pieces.size(); piece++) {
+            TokenBuffer tokens = pieces.get(piece);
+            lines.append(tokens.getLines());
+            SymbolInterner local = tokens.getSymbols();
+            int[] ids = new int[local.size()]; //global id + 1 of each chunk symbol
+
+            int count = piece == pieces.size() - 1 ? tokens.size() : tokens.size() - 1;
+            for (int i = 0; i < count; i++) {
+                long value = tokens.getValue(i);
+                if (tokens.getType(i) == identifierType) {
+                    int id = tokens.getSymbol(i);
+                    if (ids[id] == 0) {
+                        ids[id] = symbols.intern(source, tokens.getStart(i), tokens.getLength(i)) + 1;
+                    }
+                    value = ids[id] - 1;
+                }
+                result.add(tokens.getType(i), tokens.getStart(i), tokens.getLength(i), value);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,328 @@
+package lexer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// the hand-written scanner the table driven lexer replaced, kept unchanged
+// as the reference TestLexerTables compares the generated tables against;
+// the lexer changes made since are expected differences of the test
+public class ReferenceLexer extends ReferenceScanner {
+
+    private final SymbolInterner symbols = new SymbolInterner(); //identifier ids
+
+    private final static Map<String, TokenType> reservedWords; //reserved words dictionary
+    private final static TokenType[] TYPES = TokenType.values(); //token types by ordinal
+    private final static KeywordTable keywords; //reserved words and boolean constants by perfect hash
+    private final static Map<Character, TokenType> punctuation; //punctuation characters dictionary
+    private final static Map<String, TokenType> operators; //operator characters dictionary
+
+    static {
+        reservedWords = new HashMap<>();
+        reservedWords.put("int", TokenType.INT);
+        reservedWords.put("float", TokenType.FLOAT);
+        reservedWords.put("char", TokenType.CHAR);
+        reservedWords.put("boolean", TokenType.BOOLEAN);
+        reservedWords.put("if", TokenType.IF);
+        reservedWords.put("else", TokenType.ELSE);
+        reservedWords.put("while", TokenType.WHILE);
+        reservedWords.put("main", TokenType.MAIN);
+        reservedWords.put("package", TokenType.PACKAGE);
+        reservedWords.put("private", TokenType.PRIVATE);
+        reservedWords.put("public", TokenType.PUBLIC);
+        reservedWords.put("protected", TokenType.PROTECTED);
+        reservedWords.put("class", TokenType.CLASS);
+        reservedWords.put("import", TokenType.IMPORT);
+        reservedWords.put("static", TokenType.STATIC);
+        reservedWords.put("void", TokenType.VOID);
+        reservedWords.put("return", TokenType.RETURN);
+        reservedWords.put("printf", TokenType.PRINTF);
+        reservedWords.put("scanf", TokenType.SCANF);
+
+        Map<String, TokenType> words = new HashMap<>(reservedWords);
+        words.put("true", TokenType.BOOLEAN_CONST);
+        words.put("false", TokenType.BOOLEAN_CONST);
+        keywords = new KeywordTable(words);
+
+        punctuation = new HashMap<>();
+        punctuation.put('(', TokenType.LPAREN);
+        punctuation.put('.', TokenType.PUNTO);
+        punctuation.put(')', TokenType.RPAREN);
+        punctuation.put('[', TokenType.LBRACKET);
+        punctuation.put(']', TokenType.RBRACKET);
+        punctuation.put('{', TokenType.LBRACE);
+        punctuation.put('}', TokenType.RBRACE);
+        punctuation.put(';', TokenType.SEMI);
+        punctuation.put(',', TokenType.COMMA);
+        punctuation.put('=', TokenType.ASSIGN);
+        punctuation.put('-', TokenType.NEGATIVE);
+        punctuation.put('!', TokenType.NOT);
+
+        operators = new HashMap<>();
+        operators.put("&&", TokenType.AND);
+        operators.put("||", TokenType.OR);
+        operators.put("==", TokenType.EQ);
+        operators.put("!=", TokenType.NEQ);
+        operators.put("<", TokenType.LT);
+        operators.put(">", TokenType.RT);
+        operators.put("<=", TokenType.LT_EQ);
+        operators.put(">=", TokenType.RT_EQ);
+        operators.put("+", TokenType.PLUS);
+        operators.put("-", TokenType.MINUS);
+        operators.put("*", TokenType.TIMES);
+        operators.put("/", TokenType.DIV);
+        operators.put("%", TokenType.MOD);
+    }
+
+    // lex the first length characters of buffer
+    public ReferenceLexer(char[] buffer, int length) {
+        super(buffer, length);
+    }
+
+    // lex the next token into the token fields and return its type
+    public TokenType next() {
+        return scan();
+    }
+
+    // record the token ending at the current offset
+    private TokenType emit(TokenType type, long value, int column) {
+        return emit(type, tokenStart, offset() - tokenStart, value, column);
+    }
+
+    // record the fields of the token produced by scan()
+    private TokenType emit(TokenType type, int start, int length, long value, int column) {
+        tokenStart = start;
+        tokenLength = length;
+        tokenLine = lineNumber;
+        tokenColumn = column;
+        tokenValue = value;
+        return type;
+    }
+
+    // lex the next token into the token fields and return its type
+    private TokenType scan() {
+        // skip whitespace character
+        skipWhitespace();
+        tokenStart = offset();
+
+        // identifier or reserved word ([a-zA-Z][a-zA-Z0-9_]*)
+        if (Character.isLetter(nextChar)) {
+            // cut the identifier out of the buffer
+            int start = tokenStart;
+            columnNumber++;
+            nextChar = getChar();
+
+            // include remaining sequence of chars that are letters, digits, or _
+            skipLettersOrDigits();
+            int length = offset() - start;
+
+            // check if identifier is a reserved word or boolean constant
+            int keyword = keywords.lookup(buffer, start, length);
+
+            // "true" and "false" differ in length
+            if (keyword == TokenType.BOOLEAN_CONST.ordinal()) {
+                return emit(TokenType.BOOLEAN_CONST, TokenBuffer.pack(length == 4), columnNumber - length);
+            }
+            if (keyword >= 0) {
+                return emit(TYPES[keyword], 0, columnNumber - length);
+            }
+
+            // token is an identifier
+            return emit(TokenType.ID, symbols.intern(buffer, start, length), columnNumber - length);
+        }
+
+        // integer literal ([0-9]+) OR float literal ([0-9]+.[0-9]+)
+        if (Character.isDigit(nextChar)) {
+            int start = tokenStart;
+            columnNumber++;
+            nextChar = getChar();
+
+            // consume remaining sequence of digits
+            skipDigits();
+
+            if (nextChar == '.') {
+                int digits = offset() - start;
+                nextChar = getChar();
+                columnNumber++;
+
+                if (Character.isDigit(nextChar)) {
+                    // consume remaining sequence of digits
+                    skipDigits();
+
+                    int length = offset() - start;
+                    return emit(TokenType.FLOAT_CONST, TokenBuffer.pack(Float.parseFloat(lexeme(start, length))), columnNumber - length);
+                }
+                while (nextChar != -1 && !Character.isWhitespace(nextChar)) {
+                    columnNumber++;
+                    digits++;
+                    nextChar = getChar();
+                }
+
+                return emit(TokenType.UNKNOWN, 0, columnNumber - digits + 1);
+            }
+
+            // return integer literal token
+            int length = offset() - start;
+            return emit(TokenType.INT_CONST, TokenBuffer.pack(Integer.parseInt(lexeme(start, length))), columnNumber - length);
+        }
+        if (nextChar == '\"') {
+            nextChar = getChar();
+            columnNumber++;
+            int start = offset();
+            while (Character.isLetterOrDigit(nextChar) || Character.isWhitespace(nextChar)) {
+                columnNumber++;
+                nextChar = getChar();
+
+            }
+            if (nextChar == '\"') {
+                int length = offset() - start;
+                nextChar = getChar();
+                columnNumber++;
+                return emit(TokenType.STRING_CONTS, start, length, 0, columnNumber - 1);
+            }
+
+            return emit(TokenType.UNKNOWN, 0, columnNumber - 1);
+        }
+
+        if (nextChar == '\'') {
+            nextChar = getChar();
+            columnNumber++;
+            if (Character.isAlphabetic(nextChar)) {
+                char current = (char) nextChar;
+                int mark = offset();
+                nextChar = getChar();
+                columnNumber++;
+
+                if (nextChar == '\'') {
+                    nextChar = getChar();
+                    columnNumber++;
+                    return emit(TokenType.CHAR_CONST, TokenBuffer.pack(current), columnNumber - 1);
+                }
+
+                // not a char literal, lex the letter again as part of the next token
+                reset(mark);
+                columnNumber--;
+            }
+
+            return emit(TokenType.UNKNOWN, 0, columnNumber - 1);
+        }
+
+        // EOF reached
+        if (nextChar == -1) {
+            return emit(TokenType.EOF, 0, columnNumber);
+        }
+
+        // check for binops
+        switch (nextChar) {
+
+            case '&':
+                columnNumber++;
+                nextChar = getChar();
+
+                // check if next char is '&' to match '&&' binop
+                if (nextChar == '&') {
+                    nextChar = getChar();
+                    return emit(TokenType.AND, 0, columnNumber - 2);
+                } else {
+                    return emit(TokenType.UNKNOWN, 0, columnNumber - 1);
+                }
+
+            case '|':
+                columnNumber++;
+                nextChar = getChar();
+
+                // check if next char is '|' to match '||' binop
+                if (nextChar == '|') {
+                    nextChar = getChar();
+                    return emit(TokenType.OR, 0, columnNumber - 2);
+                } else {
+                    return emit(TokenType.UNKNOWN, 0, columnNumber - 1);
+                }
+
+            case '=':
+                columnNumber++;
+                nextChar = getChar();
+
+                // check if next char is '=' to match '==' binop
+                if (nextChar == '=') {
+                    nextChar = getChar();
+                    return emit(TokenType.EQ, 0, columnNumber - 2);
+                } else {
+                    return emit(TokenType.ASSIGN, 0, columnNumber - 1);
+                }
+
+            case '!':
+                columnNumber++;
+                nextChar = getChar();
+
+                // check if next char is '!' to match '!=' binop
+                if (nextChar == '=') {
+                    nextChar = getChar();
+                    return emit(TokenType.NEQ, 0, columnNumber - 2);
+                } else {
+                    return emit(TokenType.NOT, 0, columnNumber - 1);
+                }
+
+            case '<':
+                columnNumber++;
+                nextChar = getChar();
+
+                // check if next char is '<' to match '<=' binop
+                if (nextChar == '=') {
+                    nextChar = getChar();
+                    return emit(TokenType.LT_EQ, 0, columnNumber - 2);
+                } else {
+                    return emit(TokenType.LT, 0, columnNumber - 1);
+                }
+
+            case '>':
+                columnNumber++;
+                nextChar = getChar();
+
+                // check if next char is '<' to match '<=' binop
+                if (nextChar == '=') {
+                    nextChar = getChar();
+                    return emit(TokenType.RT_EQ, 0, columnNumber - 2);
+                } else {
+                    return emit(TokenType.RT, 0, columnNumber - 1);
+                }
+
+            case '+':
+                columnNumber++;
+                nextChar = getChar();
+                return emit(TokenType.PLUS, 0, columnNumber - 1);
+
+            case '-':
+                columnNumber++;
+                nextChar = getChar();
+                return emit(TokenType.MINUS, 0, columnNumber - 1);
+
+            case '*':
+                columnNumber++;
+                nextChar = getChar();
+                return emit(TokenType.TIMES, 0, columnNumber - 1);
+
+            case '/':
+                columnNumber++;
+                nextChar = getChar();
+                return emit(TokenType.DIV, 0, columnNumber - 1);
+
+            case '%':
+                columnNumber++;
+                nextChar = getChar();
+                return emit(TokenType.MOD, 0, columnNumber - 1);
+        }
+
+        // check for punctuation
+        TokenType type = punctuation.get((char) nextChar);
+        columnNumber++;
+        nextChar = getChar();
+
+        // found punctuation token
+        if (type != null) {
+            return emit(type, 0, columnNumber - 1);
+        }
+
+        // token type is unknown
+        return emit(TokenType.UNKNOWN, 0, columnNumber - 1);
+    }
+}
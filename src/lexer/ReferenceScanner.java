@@ -0,0 +1,143 @@
+package lexer;
+
+// the character primitives of CharScanner as they were when the table driven
+// lexers replaced the hand-written ones, frozen together with the reference
+// lexers so that later changes to CharScanner never reach the reference:
+// line and column counters moved character by character, whitespace only
+// (no comments) skipped, and the fields of the last token lexed
+public abstract class ReferenceScanner {
+
+    protected final char[] buffer; //source characters
+    protected final int limit; //number of valid characters in buffer
+    protected int position; //index of the character after nextChar
+    protected int nextChar; //current character, -1 at end of input
+    protected int lineNumber = 1; //current line number
+    protected int columnNumber = 1; //current column number
+
+    // fields of the token produced by next()
+    protected int tokenStart; //lexeme start offset
+    protected int tokenLength; //lexeme length
+    protected int tokenLine; //token line number
+    protected int tokenColumn; //token column number
+    protected long tokenValue; //packed literal value or symbol id
+
+    // scan the first length characters of buffer
+    protected ReferenceScanner(char[] buffer, int length) {
+        this.buffer = buffer;
+        this.limit = length;
+        nextChar = getChar();
+    }
+
+    // lex the next token into the token fields and return its type
+    public abstract Enum<?> next();
+
+    public int getStart() {
+        return tokenStart;
+    }
+
+    public int getLength() {
+        return tokenLength;
+    }
+
+    public int getLine() {
+        return tokenLine;
+    }
+
+    public int getColumn() {
+        return tokenColumn;
+    }
+
+    public long getValue() {
+        return tokenValue;
+    }
+
+    // buffer offset of the next character to lex
+    public int getOffset() {
+        return offset();
+    }
+
+    // go on lexing from offset, skipping input the reference does not know
+    public void skipTo(int offset) {
+        reset(offset);
+    }
+
+    // read the next character of the window (-1 at end of input)
+    protected final int getChar() {
+        if (position < limit) {
+            return buffer[position++];
+        }
+        position = limit + 1;
+        return -1;
+    }
+
+    // buffer offset of nextChar
+    protected final int offset() {
+        return position - 1;
+    }
+
+    // move back to a previously saved offset
+    protected final void reset(int offset) {
+        position = offset;
+        nextChar = getChar();
+    }
+
+    // characters [start, start + length) of the window
+    protected final String lexeme(int start, int length) {
+        return new String(buffer, start, length);
+    }
+
+    // detect and skip possible '\n', '\r' and '\rn' line breaks
+    protected final boolean skipNewline() {
+        if (nextChar == '\n') {
+            lineNumber++;
+            columnNumber = 1;
+            nextChar = getChar();
+            return true;
+        }
+        if (nextChar == '\r') {
+            lineNumber++;
+            columnNumber = 1;
+            nextChar = getChar();
+
+            // skip over next char if '\n'
+            if (nextChar == '\n') {
+                nextChar = getChar();
+            }
+            return true;
+        }
+        // newline char not found
+        return false;
+    }
+
+    // skip whitespace characters
+    protected final void skipWhitespace() {
+        while (Character.isWhitespace(nextChar)) {
+            // check if whitespace char is a newline
+            if (!skipNewline()) {
+                columnNumber++;
+                nextChar = getChar();
+            }
+
+            // offset colNum for tab chars
+            if (nextChar == '\t') {
+                columnNumber += 3;
+            }
+        }
+    }
+
+    // consume a run of letters and digits
+    protected final void skipLettersOrDigits() {
+        while (Character.isLetterOrDigit(nextChar)) {
+            columnNumber++;
+            nextChar = getChar();
+        }
+    }
+
+    // consume a run of digits
+    protected final void skipDigits() {
+        while (Character.isDigit(nextChar)) {
+            columnNumber++;
+            nextChar = getChar();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package lexer;
+
+import java.util.Arrays;
+
+// per-compilation identifier table: hashes lexeme slices straight out of the
+// source buffer and hands out dense int ids, so the front end can compare
+// and index identifiers by id instead of by String
+public class SymbolInterner {
+
+    private static final int MIN_CAPACITY = 64;
+
+    private int[] slots; //open addressing table of symbol id + 1 (0 = empty)
+    private int[] hashes; //hash of each symbol
+    private char[] pool; //characters of every symbol, back to back
+    private int[] offsets; //start of each symbol in the pool
+    private int[] lengths; //length of each symbol
+    private String[] names; //String form of each symbol
+    private int poolSize; //used characters in the pool
+    private int size; //number of symbols
+
+    public SymbolInterner() {
+        slots = new int[MIN_CAPACITY * 2];
+        hashes = new int[MIN_CAPACITY];
+        offsets = new int[MIN_CAPACITY];
+        lengths = new int[MIN_CAPACITY];
+        names = new String[MIN_CAPACITY];
+        pool = new char[MIN_CAPACITY * 8];
+    }
+
+    // id of the symbol spelled by chars [start, start + length), added if new
+    public int intern(char[] chars, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && matches(id, chars, start, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return add(slot, hash, chars, start, length);
+    }
+
+    // id of a symbol given as a String, added if new
+    public int intern(String name) {
+        return intern(name.toCharArray(), 0, name.length());
+    }
+
+    // String form of a symbol
+    public String name(int id) {
+        return names[id];
+    }
+
+    // number of symbols, every id is below this value
+    public int size() {
+        return size;
+    }
+
+    private boolean matches(int id, char[] chars, int start, int length) {
+        if (lengths[id] != length) {
+            return false;
+        }
+        int offset = offsets[id];
+        for (int i = 0; i < length; i++) {
+            if (pool[offset + i] != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int add(int slot, int hash, char[] chars, int start, int length) {
+        if (size == names.length) {
+            int capacity = names.length * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+        if (poolSize + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+        }
+
+        int id = size++;
+        System.arraycopy(chars, start, pool, poolSize, length);
+        hashes[id] = hash;
+        offsets[id] = poolSize;
+        lengths[id] = length;
+        names[id] = new String(chars, start, length);
+        poolSize += length;
+        slots[slot] = id + 1;
+
+        // keep the table at most half full
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    // spread the low bits of a polynomial hash
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,160 @@
+package lexer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import lexerC.LexerC;
+import lexerC.TokenTypeC;
+
+// checks that re-lexing after random edits gives the tokens of lexing the
+// edited source from scratch, and that only the reported token range
+// changed, on the given files and on random input; also times the relexing
+// against a full lexing of the files
+public class TestIncrementalLexer {
+
+    private static final int RANDOM_INPUTS = 500;
+    private static final int EDITS = 40; //edits applied one after the other to each input
+
+    public static void main(String[] args) throws IOException {
+        Random random = new Random(11);
+        int failures = 0;
+        if (args.length == 0) {
+            for (int i = 0; i < RANDOM_INPUTS; i++) {
+                failures += check("random input " + i, text(random, random.nextInt(64)).toCharArray(), random);
+            }
+            System.out.println(RANDOM_INPUTS + " random inputs edited " + EDITS + " times");
+        } else {
+            for (int i = 0; i < args.length; i++) {
+                char[] source = new String(Files.readAllBytes(Paths.get(args[i])), "UTF-8").toCharArray();
+                failures += check(args[i], source, random);
+                time(args[i], source, random);
+            }
+            System.out.println(args.length + " files edited " + EDITS + " times");
+        }
+
+        System.out.println("Mismatches: " + failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    // random pieces of tokens, comments and whitespace
+    private static String text(Random random, int pieces) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < pieces; i++) {
+            text.append(TestLexerTables.PIECES[random.nextInt(TestLexerTables.PIECES.length)]);
+        }
+        return text.toString();
+    }
+
+    // apply random edits to source with both dialects, return the number of mismatches
+    private static int check(String name, char[] source, Random random) {
+        int failures = 0;
+        Lexer lexer = new Lexer(source, source.length);
+        lexer.setQuiet(true);
+        TokenBuffer tokens = lexer.tokenize();
+        LexerC lexerC = new LexerC(source, source.length);
+        lexerC.setQuiet(true);
+        TokenBuffer tokensC = lexerC.tokenize();
+
+        for (int i = 0; i < EDITS && failures == 0; i++) {
+            int length = tokens.getSource().length;
+            int offset = random.nextInt(length + 1);
+            int removed = random.nextInt(Math.min(length - offset, 8) + 1);
+            String text = text(random, random.nextInt(3));
+            String edit = name + ", edit " + i + " [" + offset + "+" + removed + " -> " + text.replace("\n", "\\n") + "]";
+
+            TokenEdit result = Lexer.relex(tokens, offset, removed, text);
+            Lexer full = new Lexer(result.getTokens().getSource(), length - removed + text.length());
+            full.setQuiet(true);
+            failures += compare("Lexer", edit, tokens, result, full.tokenize(), TokenType.ID.ordinal());
+            tokens = result.getTokens();
+
+            TokenEdit resultC = LexerC.relex(tokensC, offset, removed, text);
+            LexerC fullC = new LexerC(resultC.getTokens().getSource(), length - removed + text.length());
+            fullC.setQuiet(true);
+            failures += compare("LexerC", edit, tokensC, resultC, fullC.tokenize(), TokenTypeC.ID.ordinal());
+            tokensC = resultC.getTokens();
+        }
+        return failures;
+    }
+
+    // compare a relexed stream with the one lexed from scratch and with the old one outside the changed range
+    private static int compare(String lexer, String edit, TokenBuffer old, TokenEdit result, TokenBuffer expected,
+            int identifierType) {
+        TokenBuffer actual = result.getTokens();
+        String expectedDump = dump(expected, 0, expected.size(), 0, true, identifierType);
+        String actualDump = dump(actual, 0, actual.size(), 0, true, identifierType);
+        if (!expectedDump.equals(actualDump)) {
+            String[] expectedLines = expectedDump.split("\n");
+            String[] actualLines = actualDump.split("\n");
+            int line = 0;
+            while (line < expectedLines.length && line < actualLines.length
+                    && expectedLines[line].equals(actualLines[line])) {
+                line++;
+            }
+            System.err.println(lexer + " differs from a full lexing after " + edit + " at token " + line);
+            System.err.println("  expected: " + (line < expectedLines.length ? expectedLines[line] : "<end>"));
+            System.err.println("  actual:   " + (line < actualLines.length ? actualLines[line] : "<end>"));
+            return 1;
+        }
+
+        // the tokens outside the range are the old ones
+        int shift = actual.getSource().length - old.getSource().length;
+        int first = result.getFirst();
+        if (!dump(old, 0, first, 0, true, identifierType).equals(dump(actual, 0, first, 0, true, identifierType))
+                || !dump(old, result.getOldEnd(), old.size(), shift, false, identifierType)
+                        .equals(dump(actual, result.getNewEnd(), actual.size(), 0, false, identifierType))) {
+            System.err.println(lexer + " changed tokens outside [" + first + ", " + result.getNewEnd()
+                    + ") after " + edit);
+            return 1;
+        }
+        return 0;
+    }
+
+    // one line per token of [from, to), starts moved by shift and identifiers by name
+    private static String dump(TokenBuffer tokens, int from, int to, int shift, boolean positions,
+            int identifierType) {
+        StringBuilder out = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            out.append(tokens.getType(i)).append(' ')
+                    .append(tokens.getStart(i) + shift).append('+').append(tokens.getLength(i)).append(' ')
+                    .append(tokens.getType(i) == identifierType ? tokens.getName(i) : tokens.getValue(i));
+            if (positions) {
+                out.append(' ').append(tokens.getLineNumber(i)).append(':').append(tokens.getColumnNumber(i));
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    // average time of a relex after a small edit against a full lexing
+    private static void time(String name, char[] source, Random random) {
+        TokenBuffer tokens = new Lexer(source, source.length).tokenize();
+        long fullTime = Long.MAX_VALUE;
+        for (int round = 0; round < 20; round++) {
+            long startTime = System.nanoTime();
+            new Lexer(source, source.length).tokenize();
+            fullTime = Math.min(fullTime, System.nanoTime() - startTime);
+        }
+
+        int edits = 2000;
+        long relexed = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < edits; i++) {
+            int offset = random.nextInt(tokens.getSource().length + 1);
+            TokenEdit result = Lexer.relex(tokens, offset, 0, "x");
+            relexed += result.getNewEnd() - result.getFirst();
+            tokens = Lexer.relex(result.getTokens(), offset, 1, "").getTokens();
+        }
+        long relexTime = (System.nanoTime() - startTime) / (2 * edits);
+
+        System.out.println("---");
+        System.out.println(name + ": " + tokens.size() + " tokens");
+        System.out.printf("Full lexing: %.3f ms%n", fullTime / 1e6);
+        System.out.printf("Relex after a one character edit: %.3f ms, %.1f tokens lexed again%n",
+                relexTime / 1e6, (double) relexed / edits);
+    }
+}
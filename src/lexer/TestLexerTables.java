@@ -0,0 +1,247 @@
+package lexer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.function.Function;
+
+import lexerC.LexerC;
+import lexerC.ReferenceLexerC;
+import lexerC.TokenTypeC;
+
+// checks that the table driven lexers produce the tokens of the hand-written
+// reference lexers, on the given files and on random input. The reference
+// is frozen as it was when the tables replaced it; each change made to the
+// lexers since is applied to its tokens here as an expected difference:
+// - positions are the line and column of the first character of a token,
+//   '\n', '\r' and "\r\n" breaking lines and tabs moving to stops of 4,
+//   and a string literal token covers its quotes
+// - an int literal out of range, a float literal out of range and a
+//   malformed number are UNKNOWN tokens with their problem as value, and a
+//   float literal of non-ASCII digits is read by the value of its digits
+// - "//" and "/* */" comments are skipped, an unterminated one being an
+//   UNKNOWN token up to the end of input
+public class TestLexerTables {
+
+    private static final int RANDOM_INPUTS = 2000;
+    private static final int TAB_WIDTH = 4; //columns between tab stops
+
+    // pieces random inputs are made of
+    static final String[] PIECES = {"int", "float", "char", "boolean", "if", "else", "while",
+            "main", "printf", "String", "cout", "include", "true", "false", "x", "count2", "a1b",
+            "0", "12", "3.25", "7.", "4.x", "5.-", "2147483647", "2147483648", "99999999999", "0.1",
+            "16777217.0", "123456789012345678901234.5", "1.00000005960464477539062500000001",
+            "340282356779733661637539395458142568448.0", "0.00000000000000000000000000000000000000000000140129846", "\"ab c\"", "\"ab", "\"", "'a'", "'ab", "'", "'1'",
+            "&&", "&", "||", "|", "==", "=", "!=", "!", "<", "<=", ">", ">=", "+", "-", "*", "/", "%",
+            "(", ")", "[", "]", "{", "}", ";", ",", ".", "#", "_", "@", "$", "\u00e9t\u00e9", "\u216b",
+            "\u0663", "\u00a0", "\u2028", "//", "// x y\n", "/*", "*/", "/* a\r\n b */", "/**/", "/*/", " ", " ", " ", "\t", "\n", "\r\n", "\r", "\u001c"};
+
+    public static void main(String[] args) throws IOException {
+        int failures = 0;
+        if (args.length == 0) {
+            Random random = new Random(7);
+            for (int i = 0; i < RANDOM_INPUTS; i++) {
+                StringBuilder input = new StringBuilder();
+                int pieces = random.nextInt(64);
+                for (int j = 0; j < pieces; j++) {
+                    input.append(PIECES[random.nextInt(PIECES.length)]);
+                }
+                failures += compare("random input " + i, input.toString().toCharArray());
+            }
+            System.out.println(RANDOM_INPUTS + " random inputs compared");
+        } else {
+            for (int i = 0; i < args.length; i++) {
+                char[] source = new String(Files.readAllBytes(Paths.get(args[i])), "UTF-8").toCharArray();
+                failures += compare(args[i], source);
+            }
+            System.out.println(args.length + " files compared");
+        }
+
+        System.out.println("Mismatches: " + failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    // lex source with both dialects and both implementations, return the number of mismatches
+    private static int compare(String name, char[] source) {
+        int failures = 0;
+
+        String expected = expected(source, chars -> new ReferenceLexer(chars, chars.length));
+        String actual = dump(new Lexer(source, source.length));
+        if (!expected.equals(actual)) {
+            report("Lexer", name, expected, actual);
+            failures++;
+        }
+
+        expected = expected(source, chars -> new ReferenceLexerC(chars, chars.length));
+        actual = dumpC(new LexerC(source, source.length));
+        if (!expected.equals(actual)) {
+            report("LexerC", name, expected, actual);
+            failures++;
+        }
+        return failures;
+    }
+
+    // tokens of the reference lexer made by reference, with the expected differences applied
+    private static String expected(char[] source, Function<char[], ReferenceScanner> reference) {
+        ReferenceScanner lexer = reference.apply(source);
+        int[][] positions = positions(source);
+        StringBuilder out = new StringBuilder();
+        String type;
+        try {
+            do {
+                int start;
+                int length;
+                long value;
+                try {
+                    type = lexer.next().name();
+                    start = lexer.getStart();
+                    length = lexer.getLength();
+                    value = lexer.getValue();
+                } catch (NumberFormatException e) {
+                    // an int literal out of range or a float literal of
+                    // non-ASCII digits, the reference stopping after it
+                    start = lexer.getStart();
+                    length = lexer.getOffset() - start;
+                    String lexeme = new String(source, start, length);
+                    if (lexeme.indexOf('.') < 0) {
+                        type = "UNKNOWN";
+                        value = CharScanner.INT_OUT_OF_RANGE;
+                    } else {
+                        type = "FLOAT_CONST";
+                        value = TokenBuffer.pack(Float.parseFloat(ascii(lexeme)));
+                    }
+                }
+
+                if (type.equals("DIV") && start + 1 < source.length
+                        && (source[start + 1] == '/' || source[start + 1] == '*')) {
+                    int end = commentEnd(source, start);
+                    if (end < 0) {
+                        append(out, "UNKNOWN", start, source.length - start, positions, CharScanner.UNTERMINATED_COMMENT);
+                        end = source.length;
+                    }
+                    lexer.skipTo(end);
+                    continue;
+                }
+                if (type.equals("FLOAT_CONST") && Float.isInfinite(Float.intBitsToFloat((int) value))) {
+                    type = "UNKNOWN";
+                    value = CharScanner.FLOAT_OUT_OF_RANGE;
+                } else if (type.equals("UNKNOWN") && value == 0 && Character.isDigit(source[start])) {
+                    value = CharScanner.MALFORMED_NUMBER;
+                } else if (type.equals("STRING_CONTS")) {
+                    start--;
+                    length += 2;
+                }
+                append(out, type, start, length, positions, value);
+            } while (!type.equals("EOF"));
+        } catch (RuntimeException e) {
+            return e.toString();
+        }
+        return out.toString();
+    }
+
+    // end of the comment starting at offset start, -1 for an unterminated "/*"
+    private static int commentEnd(char[] source, int start) {
+        int end = start + 2;
+        if (source[start + 1] == '/') {
+            while (end < source.length && source[end] != '\n' && source[end] != '\r') {
+                end++;
+            }
+            return end;
+        }
+        for (end++; end < source.length; end++) {
+            if (source[end] == '/' && source[end - 1] == '*') {
+                return end + 1;
+            }
+        }
+        return -1;
+    }
+
+    // lexeme with every digit replaced by the ASCII digit of its value
+    private static String ascii(String lexeme) {
+        StringBuilder digits = new StringBuilder(lexeme.length());
+        for (int i = 0; i < lexeme.length(); i++) {
+            char c = lexeme.charAt(i);
+            digits.append(Character.isDigit(c) ? (char) ('0' + Character.digit(c, 10)) : c);
+        }
+        return digits.toString();
+    }
+
+    // line and column of every offset of source, the end included
+    private static int[][] positions(char[] source) {
+        int[] lines = new int[source.length + 1];
+        int[] columns = new int[source.length + 1];
+        int line = 1;
+        int column = 0;
+        for (int i = 0; i <= source.length; i++) {
+            lines[i] = line;
+            columns[i] = column + 1;
+            if (i == source.length) {
+                break;
+            }
+            char c = source[i];
+            if (c == '\n' || c == '\r' && (i + 1 == source.length || source[i + 1] != '\n')) {
+                line++;
+                column = 0;
+            } else if (c == '\t') {
+                column = (column / TAB_WIDTH + 1) * TAB_WIDTH;
+            } else if (c != '\r') {
+                column++;
+            }
+        }
+        return new int[][]{lines, columns};
+    }
+
+    private static String dump(Lexer lexer) {
+        lexer.setQuiet(true);
+        try {
+            return dump(lexer.tokenize(), TokenType.values());
+        } catch (RuntimeException e) {
+            return e.toString();
+        }
+    }
+
+    private static String dumpC(LexerC lexer) {
+        lexer.setQuiet(true);
+        try {
+            return dump(lexer.tokenize(), TokenTypeC.values());
+        } catch (RuntimeException e) {
+            return e.toString();
+        }
+    }
+
+    // one line per token with every field of the buffer
+    private static String dump(TokenBuffer tokens, Enum<?>[] types) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            out.append(types[tokens.getType(i)].name()).append(' ')
+                    .append(tokens.getStart(i)).append('+').append(tokens.getLength(i)).append(' ')
+                    .append(tokens.getLineNumber(i)).append(':').append(tokens.getColumnNumber(i)).append(' ')
+                    .append(tokens.getValue(i)).append('\n');
+        }
+        return out.toString();
+    }
+
+    // a token in the format of dump, placed by positions
+    private static void append(StringBuilder out, String type, int start, int length, int[][] positions, long value) {
+        out.append(type).append(' ')
+                .append(start).append('+').append(length).append(' ')
+                .append(positions[0][start]).append(':').append(positions[1][start]).append(' ')
+                .append(value).append('\n');
+    }
+
+    private static void report(String lexer, String name, String expected, String actual) {
+        String[] expectedLines = expected.split("\n");
+        String[] actualLines = actual.split("\n");
+        int line = 0;
+        while (line < expectedLines.length && line < actualLines.length
+                && expectedLines[line].equals(actualLines[line])) {
+            line++;
+        }
+        System.err.println(lexer + " differs on " + name + " at token " + line);
+        System.err.println("  expected: " + (line < expectedLines.length ? expectedLines[line] : "<end>"));
+        System.err.println("  actual:   " + (line < actualLines.length ? actualLines[line] : "<end>"));
+    }
+}
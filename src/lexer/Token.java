@@ -2,6 +2,8 @@ package lexer;
 
 public class Token {
 
+    private static final TokenType[] TYPES = TokenType.values(); //token types by ordinal
+
     private TokenType type; //token type
     private TokenAttribute attribute; //token attribute 
     private int lineNumber; //token line number
@@ -29,4 +31,40 @@ public class Token {
     public int getColumnNumber() {
         return columnNumber;
     }
+
+    // Token view of a token buffer slot
+    public static Token of(TokenBuffer tokens, int index) {
+        return of(TYPES[tokens.getType(index)], tokens.getSource(), tokens.getStart(index), tokens.getLength(index),
+                tokens.getLineNumber(index), tokens.getColumnNumber(index), tokens.getValue(index));
+    }
+
+    // Token view of a lexed token, the attribute is unpacked from its value slot
+    public static Token of(TokenType type, char[] source, int start, int length, int lineNumber, int columnNumber, long value) {
+        TokenAttribute attribute;
+        switch (type) {
+            case ID:
+                attribute = new TokenAttribute(new String(source, start, length));
+                break;
+            case STRING_CONTS:
+                // the value of a string literal is its text without quotes
+                attribute = new TokenAttribute(new String(source, start + 1, length - 2));
+                break;
+            case INT_CONST:
+                attribute = new TokenAttribute((int) value);
+                break;
+            case FLOAT_CONST:
+                attribute = new TokenAttribute(Float.intBitsToFloat((int) value));
+                break;
+            case CHAR_CONST:
+                attribute = new TokenAttribute((char) value);
+                break;
+            case BOOLEAN_CONST:
+                attribute = new TokenAttribute(value != 0);
+                break;
+            default:
+                attribute = new TokenAttribute();
+                break;
+        }
+        return new Token(type, attribute, lineNumber, columnNumber);
+    }
 }
@@ -0,0 +1,173 @@
+package lexer;
+
+import java.util.Arrays;
+
+// compact token stream stored as parallel primitive arrays: one slot per
+// token instead of a Token and a TokenAttribute object. Token types are kept
+// as enum ordinals so the same buffer serves TokenType and TokenTypeC.
+public class TokenBuffer implements TokenSource {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final char[] source; //characters the tokens were lexed from
+    private final SymbolInterner symbols; //identifier ids of this compilation
+    private final LineIndex lines; //line starts giving token line and column numbers
+
+    private byte[] types; //token type ordinals
+    private int[] starts; //lexeme start offsets in source
+    private int[] lengths; //lexeme lengths
+    private long[] values; //packed symbol id, int, float, char or boolean value
+    private int size; //number of tokens
+
+    public TokenBuffer(char[] source, SymbolInterner symbols, LineIndex lines, int capacity) {
+        this.source = source;
+        this.symbols = symbols;
+        this.lines = lines;
+        capacity = Math.max(capacity, MIN_CAPACITY);
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.values = new long[capacity];
+    }
+
+    // append a token and return its index
+    public int add(int type, int start, int length, long value) {
+        if (size == types.length) {
+            grow();
+        }
+        types[size] = (byte) type;
+        starts[size] = start;
+        lengths[size] = length;
+        values[size] = value;
+        return size++;
+    }
+
+    // copy of this stream over an edited source: tokens [from, to) replaced by
+    // tokens [0, count) of middle and the tokens after them moved by shift characters
+    TokenBuffer replace(int from, int to, TokenBuffer middle, int count, int shift, char[] source, LineIndex lines) {
+        TokenBuffer tokens = new TokenBuffer(source, symbols, lines, from + count + size - to);
+        copy(this, 0, tokens, 0, from);
+        copy(middle, 0, tokens, from, count);
+        copy(this, to, tokens, from + count, size - to);
+        tokens.size = from + count + size - to;
+        for (int i = from + count; i < tokens.size; i++) {
+            tokens.starts[i] += shift;
+        }
+        return tokens;
+    }
+
+    private static void copy(TokenBuffer from, int start, TokenBuffer to, int index, int count) {
+        System.arraycopy(from.types, start, to.types, index, count);
+        System.arraycopy(from.starts, start, to.starts, index, count);
+        System.arraycopy(from.lengths, start, to.lengths, index, count);
+        System.arraycopy(from.values, start, to.values, index, count);
+    }
+
+    private void grow() {
+        int capacity = types.length + (types.length >> 1);
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public char[] getSource() {
+        return source;
+    }
+
+    public SymbolInterner getSymbols() {
+        return symbols;
+    }
+
+    public LineIndex getLines() {
+        return lines;
+    }
+
+    // token type ordinals by index, the backing array itself (read only, valid
+    // until the next add), for parsers reading the types of a whole buffer
+    public byte[] getTypes() {
+        return types;
+    }
+
+    // token type ordinal
+    public int getType(int index) {
+        return types[index];
+    }
+
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+    public int getLength(int index) {
+        return lengths[index];
+    }
+
+    public int getLineNumber(int index) {
+        return lines.line(starts[index]);
+    }
+
+    public int getColumnNumber(int index) {
+        return lines.column(starts[index]);
+    }
+
+    public long getValue(int index) {
+        return values[index];
+    }
+
+    // interned id of an identifier token
+    public int getSymbol(int index) {
+        return (int) values[index];
+    }
+
+    // name of an identifier token
+    public String getName(int index) {
+        return symbols.name((int) values[index]);
+    }
+
+    public int getIntVal(int index) {
+        return (int) values[index];
+    }
+
+    public float getFloatVal(int index) {
+        return Float.intBitsToFloat((int) values[index]);
+    }
+
+    public char getCharVal(int index) {
+        return (char) values[index];
+    }
+
+    public boolean getBooleanVal(int index) {
+        return values[index] != 0;
+    }
+
+    // token text, read out of the source on demand
+    public String getLexeme(int index) {
+        return new String(source, starts[index], lengths[index]);
+    }
+
+    // text of a string literal token without its quotes
+    public String getString(int index) {
+        return new String(source, starts[index] + 1, lengths[index] - 2);
+    }
+
+    // pack a literal value into a token value slot
+    public static long pack(int intVal) {
+        return intVal;
+    }
+
+    public static long pack(float floatVal) {
+        return Float.floatToRawIntBits(floatVal);
+    }
+
+    public static long pack(char charVal) {
+        return charVal;
+    }
+
+    public static long pack(boolean booleanVal) {
+        return booleanVal ? 1 : 0;
+    }
+}
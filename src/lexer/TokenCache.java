@@ -0,0 +1,126 @@
+package lexer;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// token buffers of source files kept between runs: a file is lexed again
+// when its size, modification time or content changed, the content being
+// compared by a CRC-32 of the mapped file, since an edit of the same length
+// can be saved within the granularity of the modification time. Each entry
+// keeps the whole source and its tokens in memory, so a cache only pays off
+// for files compiled again and again, and callers opt in. Buffers are never
+// written after lexing, so one buffer can feed any number of parses, also
+// at the same time. Lexing problems are not printed: they stay in the
+// buffer as unknown tokens, which CharScanner.report() reports on each use.
+public class TokenCache {
+
+    // lexer of a whole file (file -> new Lexer(file).tokenize())
+    public interface FileLexer {
+        TokenBuffer tokenize(Path file) throws IOException;
+    }
+
+    // tokens of a file as it was when lexed
+    private static class Lexed {
+        final long size;
+        final FileTime modified;
+        final long checksum; //CRC-32 of the content
+        final TokenBuffer tokens;
+
+        Lexed(long size, FileTime modified, long checksum, TokenBuffer tokens) {
+            this.size = size;
+            this.modified = modified;
+            this.checksum = checksum;
+            this.tokens = tokens;
+        }
+    }
+
+    private final FileLexer lexer;
+    private final Map<Path, Lexed> entries; //by absolute path, least recently used first
+    private int hits;
+    private int misses;
+
+    // cache of at most capacity files, dropping the least recently used
+    public TokenCache(FileLexer lexer, final int capacity) {
+        this.lexer = lexer;
+        this.entries = new LinkedHashMap<Path, Lexed>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Path, Lexed> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // tokens of file, lexed now unless the cached ones are still current
+    public TokenBuffer get(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        // hashed before lexing, so a change while lexing only makes the next get lex again
+        long checksum = checksum(key);
+        synchronized (entries) {
+            Lexed lexed = entries.get(key);
+            if (lexed != null && lexed.size == attributes.size()
+                    && lexed.modified.equals(attributes.lastModifiedTime()) && lexed.checksum == checksum) {
+                hits++;
+                return lexed.tokens;
+            }
+            misses++;
+        }
+
+        // lex outside the lock, a file lexed twice at once is harmless
+        TokenBuffer tokens = lexer.tokenize(key);
+        synchronized (entries) {
+            entries.put(key, new Lexed(attributes.size(), attributes.lastModifiedTime(), checksum, tokens));
+        }
+        return tokens;
+    }
+
+    // CRC-32 of the content of file, read through a memory mapping
+    private static long checksum(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        return crc.getValue();
+    }
+
+    // forget the tokens of file, to free its memory
+    public void invalidate(Path file) {
+        synchronized (entries) {
+            entries.remove(file.toAbsolutePath().normalize());
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    // number of files cached
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // number of get() calls answered from the cache
+    public int getHits() {
+        synchronized (entries) {
+            return hits;
+        }
+    }
+
+    // number of get() calls that lexed the file
+    public int getMisses() {
+        synchronized (entries) {
+            return misses;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package lexer;
+
+// token stream re-lexed after an edit of its source and the tokens that
+// changed: tokens [first, oldEnd) of the old stream were replaced by tokens
+// [first, newEnd) of the new one, the tokens before are the same and the
+// tokens after are the same moved by the length difference of the edit
+public class TokenEdit {
+
+    private final TokenBuffer tokens;
+    private final int first;
+    private final int oldEnd;
+    private final int newEnd;
+
+    public TokenEdit(TokenBuffer tokens, int first, int oldEnd, int newEnd) {
+        this.tokens = tokens;
+        this.first = first;
+        this.oldEnd = oldEnd;
+        this.newEnd = newEnd;
+    }
+
+    // token stream of the edited source
+    public TokenBuffer getTokens() {
+        return tokens;
+    }
+
+    // index of the first token lexed again
+    public int getFirst() {
+        return first;
+    }
+
+    // end of the replaced tokens in the old stream
+    public int getOldEnd() {
+        return oldEnd;
+    }
+
+    // end of the replacing tokens in the new stream
+    public int getNewEnd() {
+        return newEnd;
+    }
+
+    // difference between the new and the old token count
+    public int getShift() {
+        return newEnd - oldEnd;
+    }
+}
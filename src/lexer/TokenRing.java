@@ -0,0 +1,243 @@
+package lexer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.LockSupport;
+
+// bounded single producer / single consumer token queue: a lexer thread
+// appends packed tokens while a parser reads them by increasing index on
+// another thread. Each side publishes its position through a volatile
+// counter and, when it has to wait for the other one, spins for a while
+// before parking until it is woken up.
+public class TokenRing implements TokenSource {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int SPINS = 1 << 10; //busy polls before parking
+
+    private char[] source; //characters the tokens were lexed from, set before the first token
+    private final SymbolInterner symbols; //identifier ids, only written by the producer
+    private final int mask; //capacity - 1
+    private final int batch; //consumed tokens released to the producer at once
+
+    private final byte[] types; //token type ordinals
+    private final int[] starts; //lexeme start offsets in source
+    private final int[] lengths; //lexeme lengths
+    private final int[] lines; //token line numbers, computed by the producer
+    private final int[] columns; //token column numbers, computed by the producer
+    private final long[] values; //packed symbol id, int, float, char or boolean value
+    private final String[] names; //identifier names, so the consumer never reads the interner
+
+    private volatile int tail; //tokens published by the producer
+    private volatile int head; //tokens below this index may be overwritten
+    private volatile Thread parkedProducer; //producer waiting for free slots
+    private volatile Thread parkedConsumer; //consumer waiting for tokens
+    private volatile Throwable failure; //error that stopped the producer
+    private volatile boolean closed; //consumer is done reading
+
+    private int written; //producer copy of tail
+    private int freed; //producer copy of head
+    private int available; //consumer copy of tail
+    private int released; //consumer copy of head
+
+    // capacity is rounded up to a power of two
+    public TokenRing(char[] source, SymbolInterner symbols, int capacity) {
+        capacity = Integer.highestOneBit(Math.max(capacity, MIN_CAPACITY) * 2 - 1);
+        this.source = source;
+        this.symbols = symbols;
+        this.mask = capacity - 1;
+        this.batch = capacity >> 2;
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.lines = new int[capacity];
+        this.columns = new int[capacity];
+        this.values = new long[capacity];
+        this.names = new String[capacity];
+    }
+
+    // producer: characters of the tokens, for a ring made before its file
+    // was read; set before the first token, which publishes it
+    public void setSource(char[] source) {
+        this.source = source;
+    }
+
+    // producer: append a token, waiting while the ring is full
+    public void add(int type, int start, int length, int lineNumber, int columnNumber, long value, String name) {
+        if (written - freed > mask) {
+            freed = awaitHead(written - mask);
+        }
+
+        int slot = written & mask;
+        types[slot] = (byte) type;
+        starts[slot] = start;
+        lengths[slot] = length;
+        lines[slot] = lineNumber;
+        columns[slot] = columnNumber;
+        values[slot] = value;
+        names[slot] = name;
+
+        // publish the token, then wake the consumer if it gave up spinning
+        tail = ++written;
+        Thread consumer = parkedConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    // producer: stop the consumer with the error that ended lexing
+    public void fail(Throwable error) {
+        failure = error;
+        Thread consumer = parkedConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    // consumer: no more tokens will be read, a waiting producer gives up
+    public void close() {
+        closed = true;
+        Thread producer = parkedProducer;
+        if (producer != null) {
+            LockSupport.unpark(producer);
+        }
+    }
+
+    // wait until the consumer freed the slots below index
+    private int awaitHead(int index) {
+        int spins = 0;
+        int current;
+        while ((current = head) < index) {
+            if (closed) {
+                throw new CancellationException("token ring closed");
+            }
+            if (++spins < SPINS) {
+                continue;
+            }
+            parkedProducer = Thread.currentThread();
+            if (head < index && !closed) {
+                LockSupport.park(this);
+            }
+            parkedProducer = null;
+        }
+        return current;
+    }
+
+    // wait until the producer published the token at index
+    private int awaitTail(int index) {
+        int spins = 0;
+        int current;
+        while ((current = tail) <= index) {
+            if (failure != null) {
+                rethrow(failure);
+            }
+            if (++spins < SPINS) {
+                continue;
+            }
+            parkedConsumer = Thread.currentThread();
+            if (tail <= index && failure == null) {
+                LockSupport.park(this);
+            }
+            parkedConsumer = null;
+        }
+        return current;
+    }
+
+    private static void rethrow(Throwable error) {
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        if (error instanceof IOException) {
+            throw new UncheckedIOException((IOException) error);
+        }
+        throw new IllegalStateException("lexer failed", error);
+    }
+
+    // consumer: slot of the token at index, once published; reading a token
+    // gives back the slots of the tokens before it
+    private int slot(int index) {
+        if (index >= available) {
+            available = awaitTail(index);
+        }
+        if (index - released >= batch) {
+            released = index;
+            head = index;
+            Thread producer = parkedProducer;
+            if (producer != null) {
+                LockSupport.unpark(producer);
+            }
+        }
+        return index & mask;
+    }
+
+    public int getType(int index) {
+        return types[slot(index)];
+    }
+
+    public int getStart(int index) {
+        return starts[slot(index)];
+    }
+
+    public int getLength(int index) {
+        return lengths[slot(index)];
+    }
+
+    public int getLineNumber(int index) {
+        return lines[slot(index)];
+    }
+
+    public int getColumnNumber(int index) {
+        return columns[slot(index)];
+    }
+
+    public long getValue(int index) {
+        return values[slot(index)];
+    }
+
+    public int getSymbol(int index) {
+        return (int) values[slot(index)];
+    }
+
+    public String getName(int index) {
+        return names[slot(index)];
+    }
+
+    public int getIntVal(int index) {
+        return (int) values[slot(index)];
+    }
+
+    public float getFloatVal(int index) {
+        return Float.intBitsToFloat((int) values[slot(index)]);
+    }
+
+    public char getCharVal(int index) {
+        return (char) values[slot(index)];
+    }
+
+    public boolean getBooleanVal(int index) {
+        return values[slot(index)] != 0;
+    }
+
+    public String getLexeme(int index) {
+        int slot = slot(index);
+        return new String(source, starts[slot], lengths[slot]);
+    }
+
+    public String getString(int index) {
+        int slot = slot(index);
+        return new String(source, starts[slot] + 1, lengths[slot] - 2);
+    }
+
+    // waits for the first token, as the producer may still be reading the file
+    public char[] getSource() {
+        slot(0);
+        return source;
+    }
+
+    public SymbolInterner getSymbols() {
+        return symbols;
+    }
+}
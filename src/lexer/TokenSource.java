@@ -0,0 +1,42 @@
+package lexer;
+
+// tokens read by index, in increasing order, by the parsers: a whole
+// TokenBuffer or a TokenRing filled by a lexer running on another thread
+public interface TokenSource {
+
+    // token type ordinal
+    int getType(int index);
+
+    int getLineNumber(int index);
+
+    int getColumnNumber(int index);
+
+    // lexeme start offset in the source
+    int getStart(int index);
+
+    // lexeme length
+    int getLength(int index);
+
+    // interned id of an identifier token
+    int getSymbol(int index);
+
+    // name of an identifier token
+    String getName(int index);
+
+    int getIntVal(int index);
+
+    float getFloatVal(int index);
+
+    char getCharVal(int index);
+
+    boolean getBooleanVal(int index);
+
+    // token text
+    String getLexeme(int index);
+
+    // text of a string literal token without its quotes
+    String getString(int index);
+
+    // identifier ids of this compilation, complete once EOF has been read
+    SymbolInterner getSymbols();
+}
@@ -0,0 +1,67 @@
+package lexer;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+// spliterator over the tokens [from, to) of a pre-lexed token buffer, each
+// slot turned into a token object on demand. Splits halve the index range,
+// so both halves always hold whole tokens and parallel streams over a
+// buffer need no lexing.
+public class TokenSpliterator<T> implements Spliterator<T> {
+
+    private static final int MIN_SPLIT = 1 << 10; //fewest tokens worth splitting
+
+    // token object of a buffer slot (Token::of, TokenC::of)
+    public interface TokenView<T> {
+        T of(TokenBuffer tokens, int index);
+    }
+
+    private final TokenBuffer tokens;
+    private final TokenView<T> view;
+    private int index; //next token
+    private final int end;
+
+    public TokenSpliterator(TokenBuffer tokens, TokenView<T> view) {
+        this(tokens, view, 0, tokens.size());
+    }
+
+    public TokenSpliterator(TokenBuffer tokens, TokenView<T> view, int from, int to) {
+        this.tokens = tokens;
+        this.view = view;
+        this.index = from;
+        this.end = to;
+    }
+
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (index >= end) {
+            return false;
+        }
+        action.accept(view.of(tokens, index++));
+        return true;
+    }
+
+    public void forEachRemaining(Consumer<? super T> action) {
+        for (; index < end; index++) {
+            action.accept(view.of(tokens, index));
+        }
+    }
+
+    public Spliterator<T> trySplit() {
+        int size = end - index;
+        if (size < MIN_SPLIT) {
+            return null;
+        }
+        int middle = index + (size >>> 1);
+        Spliterator<T> prefix = new TokenSpliterator<>(tokens, view, index, middle);
+        index = middle;
+        return prefix;
+    }
+
+    public long estimateSize() {
+        return end - index;
+    }
+
+    public int characteristics() {
+        return ORDERED | NONNULL | SIZED | SUBSIZED | IMMUTABLE;
+    }
+}
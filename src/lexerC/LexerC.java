@@ -1,27 +1,50 @@
 package lexerC;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
-import lexer.Token;
-import lexer.TokenType;
-
-public class LexerC {
-
-    private BufferedReader stream; //input stream reader
-    private TokenC nextToken;
-    private int nextChar;
-    private int lineNumber = 1; //current line number
-    private int columnNumber = 1; //current column number
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import lexer.CharScanner;
+import lexer.IncrementalTokenizer;
+import lexer.KeywordTable;
+import lexer.LexerSpec;
+import lexer.LexerTable;
+import lexer.LineIndex;
+import lexer.LookaheadRing;
+import lexer.NumberParser;
+import lexer.ParallelTokenizer;
+import lexer.SymbolInterner;
+import lexer.TokenBuffer;
+import lexer.TokenEdit;
+import lexer.TokenRing;
+import lexer.TokenSpliterator;
+
+public class LexerC extends CharScanner {
+
+    private final LookaheadRing ahead = new LookaheadRing(); //tokens scanned by peek(k)
+
+    // fields of the token produced by scan()
+    private int tokenStart; //lexeme start offset
+    private int tokenLength; //lexeme length
+    private long tokenValue; //packed literal value or symbol id
+
+    private final SymbolInterner symbols; //identifier ids
 
     private final static Map<String, TokenTypeC> reservedWords; //reserved words dictionary
+    private final static TokenTypeC[] TYPES = TokenTypeC.values(); //token types by ordinal
+    private final static KeywordTable keywords; //reserved words and boolean constants by perfect hash
     private final static Map<Character, TokenTypeC> simbolos; //punctuation characters dictionary
     private final static Map<String, TokenTypeC> operators; //operator characters dictionary
-
-    private int errors; //number of errors
+    private final static LexerTable table; //token DFA generated from the dictionaries
 
     static {
 
@@ -45,6 +68,11 @@ public class LexerC {
         reservedWords.put(">", TokenTypeC.RMAYINC);
         reservedWords.put("printf", TokenTypeC.PRINTF);
 
+        Map<String, TokenTypeC> words = new HashMap<>(reservedWords);
+        words.put("true", TokenTypeC.BOOLEAN_CONST);
+        words.put("false", TokenTypeC.BOOLEAN_CONST);
+        keywords = new KeywordTable(words);
+
         simbolos = new HashMap<>();
         simbolos.put('(', TokenTypeC.LPAREN);
         simbolos.put(')', TokenTypeC.RPAREN);
@@ -72,328 +100,297 @@ public class LexerC {
         operators.put("*", TokenTypeC.TIMES);
         operators.put("/", TokenTypeC.DIV);
         operators.put("%", TokenTypeC.MOD);
+
+        // generate the token table from the dictionaries
+        LexerSpec spec = LexerSpec.standard(TokenTypeC.ID, TokenTypeC.INT_CONST, TokenTypeC.FLOAT_CONST,
+                TokenTypeC.CHAR_CONST, TokenTypeC.STRING_CONTS, TokenTypeC.UNKNOWN);
+        for (Map.Entry<String, TokenTypeC> operator : operators.entrySet()) {
+            spec.literal(operator.getKey(), operator.getValue());
+        }
+        for (Map.Entry<String, TokenTypeC> word : reservedWords.entrySet()) {
+            if (!Character.isLetter(word.getKey().charAt(0))) {
+                spec.literal(word.getKey(), word.getValue());
+            }
+        }
+        for (Map.Entry<Character, TokenTypeC> symbol : simbolos.entrySet()) {
+            spec.literal(String.valueOf(symbol.getKey()), symbol.getValue());
+        }
+        table = spec.build();
     }
 
-    public LexerC(FileReader file) throws FileNotFoundException {
-        this.stream = new BufferedReader(file);
-        nextChar = getChar();
+    public LexerC(Reader file) throws IOException {
+        super(file);
+        symbols = new SymbolInterner();
     }
 
-    public int getErrors() {
-        return errors;
+    // lex a memory mapped ASCII/UTF-8 file
+    public LexerC(Path file) throws IOException {
+        this(file, new SymbolInterner());
     }
 
-    // handles I/O for char stream
-    private int getChar() {
-        try {
-            return stream.read();
-        } catch (IOException e) {
-            System.err.print(e.getMessage());
-            System.err.println("IOException occured in Lexer::getChar()");
-            return -1;
-        }
+    // lex a memory mapped file into identifier ids shared with a token ring
+    private LexerC(Path file, SymbolInterner symbols) throws IOException {
+        super(file);
+        this.symbols = symbols;
     }
 
-    // detect and skip possible '\n', '\r' and '\rn' line breaks
-    private boolean skipNewline() {
-        if (nextChar == '\n') {
-            lineNumber++;
-            columnNumber = 1;
-            nextChar = getChar();
-            return true;
-        }
-        if (nextChar == '\r') {
-            lineNumber++;
-            columnNumber = 1;
-            nextChar = getChar();
-
-            // skip over next char if '\n'
-            if (nextChar == '\n') {
-                nextChar = getChar();
-            }
-            return true;
-        }
-        // newline char not found
-        return false;
+    // lex the first length characters of buffer
+    public LexerC(char[] buffer, int length) {
+        super(buffer, length);
+        symbols = new SymbolInterner();
+    }
+
+    // lex characters [start, end) of buffer as one chunk of a parallel tokenize
+    private LexerC(char[] buffer, int start, int end) {
+        super(buffer, start, end);
+        symbols = new SymbolInterner();
+    }
+
+    // lex buffer from offset start, where a token starts, for relex()
+    private LexerC(char[] buffer, int start, SymbolInterner symbols, LineIndex lines) {
+        super(buffer, start, buffer.length, lines);
+        this.symbols = symbols;
+    }
+
+    public SymbolInterner getSymbols() {
+        return symbols;
     }
 
     // return the next token without consuming it
     public TokenC peek() throws IOException {
-        // advance token only if its been reset by getToken()
-        if (nextToken == null) {
-            nextToken = getToken();
+        return peek(0);
+    }
+
+    // return the token k positions ahead without consuming it (peek(0) is the next token)
+    public TokenC peek(int k) throws IOException {
+        // scan ahead until the ring holds k + 1 tokens
+        while (ahead.size() <= k) {
+            TokenTypeC type = scan();
+            ahead.add(type.ordinal(), tokenStart, tokenLength, tokenValue);
         }
 
-        return nextToken;
+        int start = ahead.getStart(k);
+        return TokenC.of(TYPES[ahead.getType(k)], buffer, start, ahead.getLength(k),
+                lines.line(start), lines.column(start), ahead.getValue(k));
     }
 
     // return the next token in the input stream (EOF signals end of input)
     public TokenC getToken() throws IOException {
-        // check if peek() was called
-        if (nextToken != null) {
-            TokenC token = nextToken;
-            nextToken = null; // allow peek to call for next token
-            return token;
-        }
+        return token(next());
+    }
 
-        // skip whitespace character
-        while (Character.isWhitespace(nextChar)) {
-            // check if whitespace char is a newline
-            if (!skipNewline()) {
-                columnNumber++;
-                nextChar = getChar();
-            }
+    // tokens of the rest of the input, lexed as the stream pulls them (ends with EOF)
+    public Stream<TokenC> tokens() {
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<TokenC>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private boolean done; //EOF passed
 
-            // offset colNum for tab chars
-            if (nextChar == '\t') {
-                columnNumber += 3;
+            public boolean tryAdvance(Consumer<? super TokenC> action) {
+                if (done) {
+                    return false;
+                }
+                TokenTypeC type = next();
+                done = type == TokenTypeC.EOF;
+                action.accept(token(type));
+                return true;
             }
-        }
+        }, false);
+    }
 
-        // identifier or reserved word ([a-zA-Z][a-zA-Z0-9_]*)
-        if (Character.isLetter(nextChar)) {
-            // create new idVal starting with first char of identifier
-            String current = Character.toString((char) nextChar);
-            columnNumber++;
-            nextChar = getChar();
-
-            // include remaining sequence of chars that are letters, digits, or _
-            while (Character.isLetterOrDigit(nextChar)) {
-                current += (char) nextChar;
-                columnNumber++;
-                nextChar = getChar();
-            }
+    // tokens of a buffer lexed by a LexerC, sized and split by token index for parallel streams
+    public static Stream<TokenC> tokens(TokenBuffer tokens) {
+        return StreamSupport.stream(new TokenSpliterator<>(tokens, TokenC::of), false);
+    }
 
-            // check if identifier is a reserved word
-            TokenTypeC type = reservedWords.get(current);
+    // token object of the token fields
+    private TokenC token(TokenTypeC type) {
+        return TokenC.of(type, buffer, tokenStart, tokenLength,
+                lines.line(tokenStart), lines.column(tokenStart), tokenValue);
+    }
 
-            if (type != null) {
-                return new TokenC(type, new TokenAttribute(), lineNumber, columnNumber - current.length());
-            }
+    // load the next token into the token fields, taking peeked tokens first
+    private TokenTypeC next() {
+        if (ahead.size() == 0) {
+            return scan();
+        }
 
-            if (current.equals("true")) {
-                return new TokenC(TokenTypeC.BOOLEAN_CONST, new TokenAttribute(true), lineNumber, columnNumber - current.length());
-            } else if (current.equals("false")) {
-                return new TokenC(TokenTypeC.BOOLEAN_CONST, new TokenAttribute(false), lineNumber, columnNumber - current.length());
-            }
+        tokenStart = ahead.getStart(0);
+        tokenLength = ahead.getLength(0);
+        tokenValue = ahead.getValue(0);
+        TokenTypeC type = TYPES[ahead.getType(0)];
+        ahead.remove();
+        return type;
+    }
 
-            // token is an identifier
-            return new TokenC(TokenTypeC.ID, new TokenAttribute(current), lineNumber, columnNumber - current.length());
-        }
+    // lex the rest of the input into a token buffer (ends with EOF)
+    public TokenBuffer tokenize() {
+        TokenBuffer tokens = new TokenBuffer(buffer, symbols, lines, (limit - offset()) / 4);
+        TokenTypeC type;
+        do {
+            type = next();
+            tokens.add(type.ordinal(), tokenStart, tokenLength, tokenValue);
+        } while (type != TokenTypeC.EOF);
+        return tokens;
+    }
 
-        if (nextChar == '\"') {
-            nextChar = getChar();
-            columnNumber++;
-            String current = "";
-            while (Character.isLetterOrDigit(nextChar) || Character.isWhitespace(nextChar)) {
-                current += (char) nextChar;
-                columnNumber++;
-                nextChar = getChar();
+    // lex the rest of the input into a token ring (ends with EOF)
+    public void tokenize(TokenRing ring) {
+        TokenTypeC type;
+        do {
+            type = next();
+            String name = type == TokenTypeC.ID ? symbols.name((int) tokenValue) : null;
+            ring.add(type.ordinal(), tokenStart, tokenLength,
+                    lines.line(tokenStart), lines.column(tokenStart), tokenValue, name);
+        } while (type != TokenTypeC.EOF);
+    }
 
+    // lex the rest of the input on a new thread into a ring of the given
+    // capacity, for a parser reading it meanwhile (close the ring when done)
+    public TokenRing pipeline(int capacity) {
+        return pipeline(new TokenRing(buffer, symbols, capacity), () -> this);
+    }
+
+    // open and lex file on a new thread into a ring of the given capacity, so
+    // that reading and decoding the file overlap parsing as well; an error
+    // opening it is thrown to the parser reading the first token
+    public static TokenRing pipeline(Path file, int capacity) {
+        SymbolInterner symbols = new SymbolInterner();
+        return pipeline(new TokenRing(null, symbols, capacity), () -> new LexerC(file, symbols));
+    }
+
+    // run the lexer made by open on a new thread, filling ring
+    private static TokenRing pipeline(TokenRing ring, Callable<LexerC> open) {
+        Thread producer = new Thread(() -> {
+            try {
+                LexerC lexer = open.call();
+                ring.setSource(lexer.buffer);
+                lexer.tokenize(ring);
+            } catch (CancellationException e) {
+                // the parser stopped reading
+            } catch (Throwable e) {
+                ring.fail(e);
             }
-            if (nextChar == '\"') {
-                nextChar = getChar();
-                columnNumber++;
-                return new TokenC(TokenTypeC.STRING_CONTS, new lexerC.TokenAttribute(current), lineNumber, columnNumber - 1);
-            }
-            Character.isUnicodeIdentifierPart(nextChar);
+        }, "lexer");
+        producer.setDaemon(true);
+        producer.start();
+        return ring;
+    }
 
-            return new TokenC(TokenTypeC.UNKNOWN, new lexerC.TokenAttribute(), lineNumber, columnNumber - 1);
+    // lex the whole input in newline separated chunks on pool, giving the same tokens as tokenize()
+    public TokenBuffer tokenize(ForkJoinPool pool) {
+        if (ahead.size() != 0 || offset() != 0) {
+            throw new IllegalStateException("tokenize(pool) called after getToken()");
         }
 
-        // integer literal ([0-9]+) OR float literal ([0-9]+.[0-9]+)
-        if (Character.isDigit(nextChar)) {
+        TokenBuffer tokens = new ParallelTokenizer(buffer, limit, symbols, TokenTypeC.ID.ordinal(),
+                (start, end) -> new LexerC(buffer, start, end).tokenize()).tokenize(pool);
 
-            // create string representation of number
-            String numString = Character.toString((char) nextChar);
-            columnNumber++;
-            nextChar = getChar();
+        // the input is consumed, leave the lexer at EOF
+        tokens.getLines().setTabWidth(lines.getTabWidth());
+        lines = tokens.getLines();
+        reset(limit);
 
-            // concatenate remaining sequence of digits
-            while (Character.isDigit(nextChar)) {
-                numString += (char) nextChar;
-                columnNumber++;
-                nextChar = getChar();
+        // report the problems found in the chunks, now that lines are global
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.getType(i) == TokenTypeC.UNKNOWN.ordinal() && tokens.getValue(i) != 0) {
+                error((int) tokens.getValue(i), tokens.getStart(i));
             }
+        }
+        return tokens;
+    }
 
-            if (nextChar == '.') {
-                //stream.mark(0);
-                nextChar = getChar();
-                columnNumber++;
-
-                if (Character.isDigit(nextChar)) {
-                    numString += '.';
-                    // concatenate remaining sequence of digits
-                    while (Character.isDigit(nextChar)) {
-                        numString += (char) nextChar;
-                        columnNumber++;
-                        nextChar = getChar();
-                    }
-
-                    return new TokenC(TokenTypeC.FLOAT_CONST, new TokenAttribute(Float.parseFloat(numString)), lineNumber, columnNumber - numString.length());
-                }
-                while (!Character.isWhitespace(nextChar)) {
-                    columnNumber++;
-                    numString += nextChar;
-                    nextChar = getChar();
-                }
+    // lex tokens of a LexerC again after replacing removed characters at offset
+    // of their source by text, from the last token the edit cannot change to
+    // the first token lining up with the old stream
+    public static TokenEdit relex(TokenBuffer tokens, int offset, int removed, String text) {
+        return new IncrementalTokenizer(tokens, table.getLookahead(),
+                (source, start, symbols, lines) -> new LexerC(source, start, symbols, lines)::scan)
+                .relex(offset, removed, text);
+    }
 
-                return new TokenC(TokenTypeC.UNKNOWN, new TokenAttribute(), lineNumber, columnNumber - numString.length() + 1);
-            }
+    // lex the next token into tokens and return its type ordinal
+    private int scan(TokenBuffer tokens) {
+        TokenTypeC type = next();
+        tokens.add(type.ordinal(), tokenStart, tokenLength, tokenValue);
+        return type.ordinal();
+    }
 
-            // return integer literal token
-            return new TokenC(TokenTypeC.INT_CONST, new TokenAttribute(Integer.parseInt(numString)), lineNumber, columnNumber - numString.length());
-        }
+    // record the fields of the token produced by scan(), ending at the current offset
+    private TokenTypeC emit(TokenTypeC type, long value) {
+        tokenLength = offset() - tokenStart;
+        tokenValue = value;
+        return type;
+    }
 
-        if (nextChar == '\'') {
-            nextChar = getChar();
-            columnNumber++;
-            if (Character.isAlphabetic(nextChar)) {
-                char current = (char) nextChar;
-                stream.mark(0);
-                nextChar = getChar();
-                columnNumber++;
-
-                if (nextChar == '\'') {
-                    nextChar = getChar();
-                    columnNumber++;
-                    return new TokenC(TokenTypeC.CHAR_CONST, new TokenAttribute(current), lineNumber, columnNumber - 1);
-                }
-                stream.reset();
-            }
+    // report a problem of the lexeme and record it as an unknown token
+    private TokenTypeC problem(int problem) {
+        error(problem, tokenStart);
+        return emit(TokenTypeC.UNKNOWN, problem);
+    }
 
-            return new TokenC(TokenTypeC.UNKNOWN, new TokenAttribute(), lineNumber, columnNumber - 1);
+    // lex the next token into the token fields and return its type
+    private TokenTypeC scan() {
+        // skip whitespace characters and comments
+        boolean closed = skipWhitespace();
+        tokenStart = offset();
+
+        // an unterminated comment runs to the end of input
+        if (!closed) {
+            skipRest();
+            return problem(UNTERMINATED_COMMENT);
         }
 
         // EOF reached
         if (nextChar == -1) {
-            return new TokenC(TokenTypeC.EOF, new TokenAttribute(), lineNumber, columnNumber);
+            return emit(TokenTypeC.EOF, 0);
         }
 
-        // check for binops
-        switch (nextChar) {
-
-            case '&':
-                columnNumber++;
-                nextChar = getChar();
-
-                // check if next char is '&' to match '&&' binop
-                if (nextChar == '&') {
-                    nextChar = getChar();
-                    return new TokenC(TokenTypeC.AND, new TokenAttribute(), lineNumber, columnNumber - 2);
-                } else {
-                    return new TokenC(TokenTypeC.UNKNOWN, new TokenAttribute(), lineNumber, columnNumber - 1);
-                }
-            case '#':
-                // check if next char is '&' to match '&&' binop
-                if (nextChar == '#') {
-                    nextChar = getChar();
-                    return new TokenC(TokenTypeC.ASTERISC, new TokenAttribute(), lineNumber, columnNumber - 2);
-                } else {
-                    return new TokenC(TokenTypeC.UNKNOWN, new TokenAttribute(), lineNumber, columnNumber - 1);
-                }
-
-            case '|':
-                columnNumber++;
-                nextChar = getChar();
-
-                // check if next char is '|' to match '||' binop
-                if (nextChar == '|') {
-                    nextChar = getChar();
-                    return new TokenC(TokenTypeC.OR, new TokenAttribute(), lineNumber, columnNumber - 2);
-                } else {
-                    return new TokenC(TokenTypeC.UNKNOWN, new TokenAttribute(), lineNumber, columnNumber - 1);
-                }
+        // consume the longest lexeme the table accepts
+        int rule = match(table);
+        int length = offset() - tokenStart;
+        if (table.isMultiline(rule)) {
+            lines.addBreaks(tokenStart, offset());
+        }
+        TokenTypeC type = TYPES[table.getType(rule)];
 
-            case '=':
-                columnNumber++;
-                nextChar = getChar();
+        switch (table.getAction(rule)) {
+            case LexerSpec.WORD:
+                // check if identifier is a reserved word or boolean constant
+                int keyword = keywords.lookup(buffer, tokenStart, length);
 
-                // check if next char is '=' to match '==' binop
-                if (nextChar == '=') {
-                    nextChar = getChar();
-                    return new TokenC(TokenTypeC.EQ, new TokenAttribute(), lineNumber, columnNumber - 2);
-                } else {
-                    return new TokenC(TokenTypeC.ASSIGN, new TokenAttribute(), lineNumber, columnNumber - 1);
+                // "true" and "false" differ in length
+                if (keyword == TokenTypeC.BOOLEAN_CONST.ordinal()) {
+                    return emit(TokenTypeC.BOOLEAN_CONST, TokenBuffer.pack(length == 4));
                 }
-
-            case '!':
-                columnNumber++;
-                nextChar = getChar();
-
-                // check if next char is '!' to match '!=' binop
-                if (nextChar == '=') {
-                    nextChar = getChar();
-                    return new TokenC(TokenTypeC.NEQ, new TokenAttribute(), lineNumber, columnNumber - 2);
-                } else {
-                    return new TokenC(TokenTypeC.NOT, new TokenAttribute(), lineNumber, columnNumber - 1);
+                if (keyword >= 0) {
+                    return emit(TYPES[keyword], 0);
                 }
 
-            case '<':
-                columnNumber++;
-                nextChar = getChar();
+                // token is an identifier
+                return emit(type, symbols.intern(buffer, tokenStart, length));
 
-                // check if next char is '<' to match '<=' binop
-                if (nextChar == '=') {
-                    nextChar = getChar();
-                    return new TokenC(TokenTypeC.LT_EQ, new TokenAttribute(), lineNumber, columnNumber - 2);
-                } else {
-                    return new TokenC(TokenTypeC.LT, new TokenAttribute(), lineNumber, columnNumber - 1);
+            case LexerSpec.INT:
+                long intVal = NumberParser.parseInt(buffer, tokenStart, offset());
+                if (intVal == NumberParser.OUT_OF_RANGE) {
+                    return problem(INT_OUT_OF_RANGE);
                 }
+                return emit(type, TokenBuffer.pack((int) intVal));
 
-            case '>':
-                columnNumber++;
-                nextChar = getChar();
-
-                // check if next char is '<' to match '<=' binop
-                if (nextChar == '=') {
-                    nextChar = getChar();
-                    return new TokenC(TokenTypeC.RT_EQ, new TokenAttribute(), lineNumber, columnNumber - 2);
-                } else {
-                    return new TokenC(TokenTypeC.RT, new TokenAttribute(), lineNumber, columnNumber - 1);
+            case LexerSpec.FLOAT:
+                float floatVal = NumberParser.parseFloat(buffer, tokenStart, offset());
+                if (Float.isInfinite(floatVal)) {
+                    return problem(FLOAT_OUT_OF_RANGE);
                 }
+                return emit(type, TokenBuffer.pack(floatVal));
 
-            case '+':
-                columnNumber++;
-                nextChar = getChar();
-                return new TokenC(TokenTypeC.PLUS, new TokenAttribute(), lineNumber, columnNumber - 1);
-
-            case '-':
-                columnNumber++;
-                nextChar = getChar();
-                return new TokenC(TokenTypeC.MINUS, new TokenAttribute(), lineNumber, columnNumber - 1);
-            case '.':
-                columnNumber++;
-                nextChar = getChar();
-                return new TokenC(TokenTypeC.PUNTO, new TokenAttribute(), lineNumber, columnNumber - 1);
-
-            case '*':
-                columnNumber++;
-                nextChar = getChar();
-                return new TokenC(TokenTypeC.TIMES, new TokenAttribute(), lineNumber, columnNumber - 1);
-
-            case '/':
-                columnNumber++;
-                nextChar = getChar();
-                return new TokenC(TokenTypeC.DIV, new TokenAttribute(), lineNumber, columnNumber - 1);
-
-            case '%':
-                columnNumber++;
-                nextChar = getChar();
-                return new TokenC(TokenTypeC.MOD, new TokenAttribute(), lineNumber, columnNumber - 1);
-        }
+            case LexerSpec.MALFORMED:
+                return problem(MALFORMED_NUMBER);
 
-        // check for punctuation
-        TokenTypeC type = simbolos.get((char) nextChar);
-        columnNumber++;
-        nextChar = getChar();
+            case LexerSpec.CHAR:
+                return emit(type, TokenBuffer.pack(buffer[tokenStart + 1]));
 
-        // found punctuation token
-        if (type != null) {
-            return new TokenC(type, new TokenAttribute(), lineNumber, columnNumber - 1);
+            default:
+                return emit(type, 0);
         }
-
-        // token type is unknown
-        return new TokenC(TokenTypeC.UNKNOWN, new TokenAttribute(), lineNumber, columnNumber - 1);
     }
 }
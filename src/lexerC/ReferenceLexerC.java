@@ -0,0 +1,344 @@
+package lexerC;
+
+import java.util.HashMap;
+import java.util.Map;
+import lexer.KeywordTable;
+import lexer.ReferenceScanner;
+import lexer.SymbolInterner;
+import lexer.TokenBuffer;
+
+// the hand-written scanner the table driven lexer replaced, kept unchanged
+// as the reference TestLexerTables compares the generated tables against;
+// the lexer changes made since are expected differences of the test
+public class ReferenceLexerC extends ReferenceScanner {
+
+    private final SymbolInterner symbols = new SymbolInterner(); //identifier ids
+
+    private final static Map<String, TokenTypeC> reservedWords; //reserved words dictionary
+    private final static TokenTypeC[] TYPES = TokenTypeC.values(); //token types by ordinal
+    private final static KeywordTable keywords; //reserved words and boolean constants by perfect hash
+    private final static Map<Character, TokenTypeC> simbolos; //punctuation characters dictionary
+    private final static Map<String, TokenTypeC> operators; //operator characters dictionary
+
+    static {
+
+        reservedWords = new HashMap<String, TokenTypeC>();
+        reservedWords.put("int", TokenTypeC.INT);
+        reservedWords.put("float", TokenTypeC.FLOAT);
+        reservedWords.put("char", TokenTypeC.CHAR);
+        reservedWords.put("boolean", TokenTypeC.BOOLEAN);
+        reservedWords.put("#", TokenTypeC.ASTERISC);
+        reservedWords.put("if", TokenTypeC.IF);
+        reservedWords.put(".", TokenTypeC.PUNTO);
+        reservedWords.put("else", TokenTypeC.ELSE);
+        reservedWords.put("while", TokenTypeC.WHILE);
+        reservedWords.put("main", TokenTypeC.MAIN);
+        reservedWords.put("String", TokenTypeC.STRING);
+        reservedWords.put("cout", TokenTypeC.COUT);
+        reservedWords.put("cin", TokenTypeC.CIN);
+        reservedWords.put("include", TokenTypeC.INCLUDE);
+        reservedWords.put("return", TokenTypeC.RETURN);
+        reservedWords.put("<", TokenTypeC.LMAYINC);
+        reservedWords.put(">", TokenTypeC.RMAYINC);
+        reservedWords.put("printf", TokenTypeC.PRINTF);
+
+        Map<String, TokenTypeC> words = new HashMap<>(reservedWords);
+        words.put("true", TokenTypeC.BOOLEAN_CONST);
+        words.put("false", TokenTypeC.BOOLEAN_CONST);
+        keywords = new KeywordTable(words);
+
+        simbolos = new HashMap<>();
+        simbolos.put('(', TokenTypeC.LPAREN);
+        simbolos.put(')', TokenTypeC.RPAREN);
+        simbolos.put('[', TokenTypeC.LBRACKET);
+        simbolos.put(']', TokenTypeC.RBRACKET);
+        simbolos.put('{', TokenTypeC.LBRACE);
+        simbolos.put('}', TokenTypeC.RBRACE);
+        simbolos.put(';', TokenTypeC.SEMI);
+        simbolos.put(',', TokenTypeC.COMMA);
+        simbolos.put('=', TokenTypeC.ASSIGN);
+        simbolos.put('-', TokenTypeC.NEGATIVE);
+        simbolos.put('!', TokenTypeC.NOT);
+
+        operators = new HashMap<>();
+        operators.put("&&", TokenTypeC.AND);
+        operators.put("||", TokenTypeC.OR);
+        operators.put("==", TokenTypeC.EQ);
+        operators.put("!=", TokenTypeC.NEQ);
+        operators.put("<", TokenTypeC.LT);
+        operators.put(">", TokenTypeC.RT);
+        operators.put("<=", TokenTypeC.LT_EQ);
+        operators.put(">=", TokenTypeC.RT_EQ);
+        operators.put("+", TokenTypeC.PLUS);
+        operators.put("-", TokenTypeC.MINUS);
+        operators.put("*", TokenTypeC.TIMES);
+        operators.put("/", TokenTypeC.DIV);
+        operators.put("%", TokenTypeC.MOD);
+    }
+
+    // lex the first length characters of buffer
+    public ReferenceLexerC(char[] buffer, int length) {
+        super(buffer, length);
+    }
+
+    // lex the next token into the token fields and return its type
+    public TokenTypeC next() {
+        return scan();
+    }
+
+    // record the token ending at the current offset
+    private TokenTypeC emit(TokenTypeC type, long value, int column) {
+        return emit(type, tokenStart, offset() - tokenStart, value, column);
+    }
+
+    // record the fields of the token produced by scan()
+    private TokenTypeC emit(TokenTypeC type, int start, int length, long value, int column) {
+        tokenStart = start;
+        tokenLength = length;
+        tokenLine = lineNumber;
+        tokenColumn = column;
+        tokenValue = value;
+        return type;
+    }
+
+    // lex the next token into the token fields and return its type
+    private TokenTypeC scan() {
+        // skip whitespace character
+        skipWhitespace();
+        tokenStart = offset();
+
+        // identifier or reserved word ([a-zA-Z][a-zA-Z0-9_]*)
+        if (Character.isLetter(nextChar)) {
+            // cut the identifier out of the buffer
+            int start = tokenStart;
+            columnNumber++;
+            nextChar = getChar();
+
+            // include remaining sequence of chars that are letters, digits, or _
+            skipLettersOrDigits();
+            int length = offset() - start;
+
+            // check if identifier is a reserved word or boolean constant
+            int keyword = keywords.lookup(buffer, start, length);
+
+            // "true" and "false" differ in length
+            if (keyword == TokenTypeC.BOOLEAN_CONST.ordinal()) {
+                return emit(TokenTypeC.BOOLEAN_CONST, TokenBuffer.pack(length == 4), columnNumber - length);
+            }
+            if (keyword >= 0) {
+                return emit(TYPES[keyword], 0, columnNumber - length);
+            }
+
+            // token is an identifier
+            return emit(TokenTypeC.ID, symbols.intern(buffer, start, length), columnNumber - length);
+        }
+
+        if (nextChar == '\"') {
+            nextChar = getChar();
+            columnNumber++;
+            int start = offset();
+            while (Character.isLetterOrDigit(nextChar) || Character.isWhitespace(nextChar)) {
+                columnNumber++;
+                nextChar = getChar();
+
+            }
+            if (nextChar == '\"') {
+                int length = offset() - start;
+                nextChar = getChar();
+                columnNumber++;
+                return emit(TokenTypeC.STRING_CONTS, start, length, 0, columnNumber - 1);
+            }
+
+            return emit(TokenTypeC.UNKNOWN, 0, columnNumber - 1);
+        }
+
+        // integer literal ([0-9]+) OR float literal ([0-9]+.[0-9]+)
+        if (Character.isDigit(nextChar)) {
+            int start = tokenStart;
+            columnNumber++;
+            nextChar = getChar();
+
+            // consume remaining sequence of digits
+            skipDigits();
+
+            if (nextChar == '.') {
+                int digits = offset() - start;
+                nextChar = getChar();
+                columnNumber++;
+
+                if (Character.isDigit(nextChar)) {
+                    // consume remaining sequence of digits
+                    skipDigits();
+
+                    int length = offset() - start;
+                    return emit(TokenTypeC.FLOAT_CONST, TokenBuffer.pack(Float.parseFloat(lexeme(start, length))), columnNumber - length);
+                }
+                while (nextChar != -1 && !Character.isWhitespace(nextChar)) {
+                    columnNumber++;
+                    digits++;
+                    nextChar = getChar();
+                }
+
+                return emit(TokenTypeC.UNKNOWN, 0, columnNumber - digits + 1);
+            }
+
+            // return integer literal token
+            int length = offset() - start;
+            return emit(TokenTypeC.INT_CONST, TokenBuffer.pack(Integer.parseInt(lexeme(start, length))), columnNumber - length);
+        }
+
+        if (nextChar == '\'') {
+            nextChar = getChar();
+            columnNumber++;
+            if (Character.isAlphabetic(nextChar)) {
+                char current = (char) nextChar;
+                int mark = offset();
+                nextChar = getChar();
+                columnNumber++;
+
+                if (nextChar == '\'') {
+                    nextChar = getChar();
+                    columnNumber++;
+                    return emit(TokenTypeC.CHAR_CONST, TokenBuffer.pack(current), columnNumber - 1);
+                }
+
+                // not a char literal, lex the letter again as part of the next token
+                reset(mark);
+                columnNumber--;
+            }
+
+            return emit(TokenTypeC.UNKNOWN, 0, columnNumber - 1);
+        }
+
+        // EOF reached
+        if (nextChar == -1) {
+            return emit(TokenTypeC.EOF, 0, columnNumber);
+        }
+
+        // check for binops
+        switch (nextChar) {
+
+            case '&':
+                columnNumber++;
+                nextChar = getChar();
+
+                // check if next char is '&' to match '&&' binop
+                if (nextChar == '&') {
+                    nextChar = getChar();
+                    return emit(TokenTypeC.AND, 0, columnNumber - 2);
+                } else {
+                    return emit(TokenTypeC.UNKNOWN, 0, columnNumber - 1);
+                }
+            case '#':
+                // check if next char is '&' to match '&&' binop
+                if (nextChar == '#') {
+                    nextChar = getChar();
+                    return emit(TokenTypeC.ASTERISC, 0, columnNumber - 2);
+                } else {
+                    return emit(TokenTypeC.UNKNOWN, 0, columnNumber - 1);
+                }
+
+            case '|':
+                columnNumber++;
+                nextChar = getChar();
+
+                // check if next char is '|' to match '||' binop
+                if (nextChar == '|') {
+                    nextChar = getChar();
+                    return emit(TokenTypeC.OR, 0, columnNumber - 2);
+                } else {
+                    return emit(TokenTypeC.UNKNOWN, 0, columnNumber - 1);
+                }
+
+            case '=':
+                columnNumber++;
+                nextChar = getChar();
+
+                // check if next char is '=' to match '==' binop
+                if (nextChar == '=') {
+                    nextChar = getChar();
+                    return emit(TokenTypeC.EQ, 0, columnNumber - 2);
+                } else {
+                    return emit(TokenTypeC.ASSIGN, 0, columnNumber - 1);
+                }
+
+            case '!':
+                columnNumber++;
+                nextChar = getChar();
+
+                // check if next char is '!' to match '!=' binop
+                if (nextChar == '=') {
+                    nextChar = getChar();
+                    return emit(TokenTypeC.NEQ, 0, columnNumber - 2);
+                } else {
+                    return emit(TokenTypeC.NOT, 0, columnNumber - 1);
+                }
+
+            case '<':
+                columnNumber++;
+                nextChar = getChar();
+
+                // check if next char is '<' to match '<=' binop
+                if (nextChar == '=') {
+                    nextChar = getChar();
+                    return emit(TokenTypeC.LT_EQ, 0, columnNumber - 2);
+                } else {
+                    return emit(TokenTypeC.LT, 0, columnNumber - 1);
+                }
+
+            case '>':
+                columnNumber++;
+                nextChar = getChar();
+
+                // check if next char is '<' to match '<=' binop
+                if (nextChar == '=') {
+                    nextChar = getChar();
+                    return emit(TokenTypeC.RT_EQ, 0, columnNumber - 2);
+                } else {
+                    return emit(TokenTypeC.RT, 0, columnNumber - 1);
+                }
+
+            case '+':
+                columnNumber++;
+                nextChar = getChar();
+                return emit(TokenTypeC.PLUS, 0, columnNumber - 1);
+
+            case '-':
+                columnNumber++;
+                nextChar = getChar();
+                return emit(TokenTypeC.MINUS, 0, columnNumber - 1);
+            case '.':
+                columnNumber++;
+                nextChar = getChar();
+                return emit(TokenTypeC.PUNTO, 0, columnNumber - 1);
+
+            case '*':
+                columnNumber++;
+                nextChar = getChar();
+                return emit(TokenTypeC.TIMES, 0, columnNumber - 1);
+
+            case '/':
+                columnNumber++;
+                nextChar = getChar();
+                return emit(TokenTypeC.DIV, 0, columnNumber - 1);
+
+            case '%':
+                columnNumber++;
+                nextChar = getChar();
+                return emit(TokenTypeC.MOD, 0, columnNumber - 1);
+        }
+
+        // check for punctuation
+        TokenTypeC type = simbolos.get((char) nextChar);
+        columnNumber++;
+        nextChar = getChar();
+
+        // found punctuation token
+        if (type != null) {
+            return emit(type, 0, columnNumber - 1);
+        }
+
+        // token type is unknown
+        return emit(TokenTypeC.UNKNOWN, 0, columnNumber - 1);
+    }
+}
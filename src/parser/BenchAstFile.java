@@ -0,0 +1,102 @@
+package parser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import ast.*;
+import lexer.Diagnostics;
+import lexer.Bench;
+
+// compares loading a saved AST with parsing its source again, on a generated
+// program: after checking that a program written to an AstFile reads back
+// node for node with the spans the parser recorded, it times lexing and
+// parsing the source, writing the file, reading the whole tree back and
+// walking the statements of the mapped file without decoding their children
+public class BenchAstFile {
+
+    private static final Bench BENCH = new Bench(10);
+    private static final int STATEMENTS = 200000; //statements of the generated program
+
+    private static final String[] TARGETS = {"b", "a[1]", "a[4]", "a[9]"};
+    private static final String[] VALUES = {"1", "2.5", "'c'", "true", "\"text\"", "a", "b + 1", "a[2] * (b - 3)",
+            "-b", "!(a < b)"};
+    private static final String[] CONDITIONS = {"a[1] < b", "b > 0"};
+
+    public static void main(String[] args) throws IOException {
+        String source = generate(STATEMENTS);
+        Path path = Files.createTempFile("bench", ".ast");
+        path.toFile().deleteOnExit();
+
+        // the file holds the same tree and spans
+        SourceSpans spans = new SourceSpans();
+        Parser parser = new Parser(Bench.lex(source), new Diagnostics());
+        parser.setSpans(spans);
+        FlatAst ast = FlatAst.of(parser.parseProgram(), spans);
+        AstFile.write(ast, path);
+        FlatAst loaded = AstFile.open(path).toFlatAst();
+        System.out.println("Same trees: " + ast.sameAs(loaded));
+        System.out.println("Spans match the source: " + spansMatch(loaded, source));
+        System.out.printf("Source: %.2f MB, AST file: %.2f MB, %d nodes%n", source.length() / 1e6,
+                Files.size(path) / 1e6, ast.size());
+
+        long parseTime = BENCH.time(() -> new Parser(Bench.lex(source), new Diagnostics()).parseProgram().getStm().size());
+
+        // the file of one program, written and read back again and again
+        SourceSpans programSpans = new SourceSpans();
+        parser = new Parser(Bench.lex(source), new Diagnostics());
+        parser.setSpans(programSpans);
+        Program program = parser.parseProgram();
+        int statements = program.getStm().size();
+        long writeTime = BENCH.time(() -> {
+            AstFile.write(FlatAst.of(program, programSpans), path);
+            return 0;
+        });
+        long readTime = BENCH.time(() -> -AstFile.open(path).toProgram().getStm().size());
+        long walkTime = BENCH.time(() -> statements(AstFile.open(path)) - statements);
+
+        // print out statistics
+        System.out.println("---");
+        System.out.printf("Lexing and parsing the source: %.2f ms%n", parseTime / 1e6);
+        System.out.printf("Flattening and writing the AST file: %.2f ms%n", writeTime / 1e6);
+        System.out.printf("Reading the whole tree back: %.2f ms%n", readTime / 1e6);
+        System.out.printf("Walking the top-level statements of the mapped file: %.2f ms%n", walkTime / 1e6);
+        System.out.println("Checksum: " + BENCH.getChecksum());
+    }
+
+    // top-level statements of a file, decoding only the nodes on the way
+    private static int statements(AstFile file) {
+        AstFileCursor cursor = file.cursor();
+        cursor.firstChild(); //the statement list
+        int count = 0;
+        if (cursor.firstChild()) {
+            do {
+                count++;
+            } while (cursor.nextSibling());
+        }
+        return count;
+    }
+
+    // every assignment span starts with the assigned name and ends with ';'
+    private static boolean spansMatch(FlatAst ast, String source) {
+        for (int node = 0; node < ast.size(); node++) {
+            int kind = ast.getKind(node);
+            if (kind == FlatAst.ASSIGN || kind == FlatAst.ARRAY_ASSIGN) {
+                String text = source.substring(ast.getSpanStart(node), ast.getSpanEnd(node));
+                String name = ast.getName(ast.getPayload(ast.getFirstChild(node)));
+                if (!text.startsWith(name) || !text.endsWith(";")) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // a class declaring a, b and s followed by assigns, ifs and whiles
+    private static String generate(int statements) {
+        StringBuilder source = new StringBuilder(statements * 24);
+        source.append("package p;\npublic class A {\nint[10] a;\nint b;\nString s;\n");
+        BENCH.statements(source, statements, TARGETS, VALUES, CONDITIONS);
+        return source.append("}\n").toString();
+    }
+}
@@ -0,0 +1,240 @@
+package parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import ast.*;
+import lexer.Bench;
+import lexer.TokenBuffer;
+import lexer.TokenType;
+import visitor.PrintVisitor;
+
+// compares the Pratt expression parser, driven by binding powers indexed by
+// token type ordinal, with the precedence climbing it replaced (a HashMap
+// lookup of a boxed level per token, copied below), on a generated
+// expression-heavy input without prefix operators, which both parse alike
+public class BenchExpressions {
+
+    private static final Bench BENCH = new Bench(20);
+    private static final int MAX_DEPTH = 4; //parentheses nesting of the generated expressions
+
+    private static final String[] BINOPS = {" && ", " || ", " < ", " > ", " <= ", " >= ", " == ", " != ",
+            " + ", " - ", " + ", " - ", " * ", " / ", " % ", " * "};
+    private static final String[] NAMES = {"a", "b", "count", "x1", "total", "i"};
+
+    public static void main(String[] args) throws IOException {
+        // both parsers build the same trees
+        TokenBuffer sample = Bench.lex(generate(2000));
+        String expected = print(new LegacyParser(sample).parseExp());
+        String actual = print(new Parser(sample).parseExpression());
+        System.out.println("Same trees: " + expected.equals(actual));
+
+        TokenBuffer tokens = Bench.lex(generate(400000));
+        System.out.println("Benchmarking an expression of " + tokens.size() + " tokens...");
+
+        long legacyTime = BENCH.time(() -> new LegacyParser(tokens).parseExp().hashCode() & 1);
+        long prattTime = BENCH.time(() -> new Parser(tokens).parseExpression().hashCode() & 1);
+
+        // print out statistics
+        System.out.println("---");
+        System.out.printf("HashMap precedence climbing: %.2f ms (%.1f ns/token)%n", legacyTime / 1e6,
+                (double) legacyTime / tokens.size());
+        System.out.printf("Pratt binding power tables: %.2f ms (%.1f ns/token)%n", prattTime / 1e6,
+                (double) prattTime / tokens.size());
+        System.out.println("Checksum: " + BENCH.getChecksum());
+    }
+
+    // tree of an expression as printed by PrintVisitor
+    private static String print(Exp exp) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(text));
+        try {
+            exp.accept(new PrintVisitor());
+        } finally {
+            System.setOut(out);
+        }
+        return text.toString();
+    }
+
+    // an expression of about the given number of operands
+    private static String generate(int operands) {
+        StringBuilder source = new StringBuilder(operands * 8);
+        operand(source, 0);
+        for (int i = 1; i < operands; i++) {
+            source.append(BENCH.pick(BINOPS));
+            i += operand(source, 0);
+            if (i % 16 == 0) {
+                source.append('\n');
+            }
+        }
+        return source.toString();
+    }
+
+    // append an operand, return the extra operands of a parenthesized one
+    private static int operand(StringBuilder source, int depth) {
+        int choice = BENCH.next() % 8;
+        if (choice == 0 && depth < MAX_DEPTH) {
+            int count = 1 + BENCH.next() % 4;
+            source.append('(');
+            int extra = operand(source, depth + 1);
+            for (int i = 1; i < count; i++) {
+                source.append(BENCH.pick(BINOPS));
+                extra += 1 + operand(source, depth + 1);
+            }
+            source.append(')');
+            return extra;
+        }
+        if (choice == 1) {
+            source.append(BENCH.pick(NAMES)).append('[').append(BENCH.next() % 10).append(']');
+        } else if (choice < 5) {
+            source.append(BENCH.pick(NAMES));
+        } else {
+            source.append(BENCH.next() % 1000);
+        }
+        return 0;
+    }
+
+    // the expression parsing of Parser before the Pratt parser, on literals,
+    // identifiers, array lookups and parentheses
+    private static class LegacyParser {
+
+        private final static Map<TokenType, Integer> binopLevels;
+        private static final TokenType[] TYPES = TokenType.values();
+
+        static {
+            binopLevels = new HashMap<TokenType, Integer>();
+            binopLevels.put(TokenType.AND, 10);
+            binopLevels.put(TokenType.OR, 10);
+            binopLevels.put(TokenType.LT, 20);
+            binopLevels.put(TokenType.RT, 20);
+            binopLevels.put(TokenType.LT_EQ, 20);
+            binopLevels.put(TokenType.RT_EQ, 20);
+            binopLevels.put(TokenType.EQ, 20);
+            binopLevels.put(TokenType.NEQ, 20);
+            binopLevels.put(TokenType.PLUS, 30);
+            binopLevels.put(TokenType.MINUS, 30);
+            binopLevels.put(TokenType.TIMES, 40);
+            binopLevels.put(TokenType.DIV, 40);
+            binopLevels.put(TokenType.MOD, 40);
+            binopLevels.put(TokenType.LBRACKET, 50);
+        }
+
+        private final TokenBuffer tokens;
+        private int cursor;
+        private TokenType tokenType;
+
+        LegacyParser(TokenBuffer tokens) {
+            this.tokens = tokens;
+            this.tokenType = TYPES[tokens.getType(0)];
+        }
+
+        private void advance() {
+            if (tokenType != TokenType.EOF) {
+                cursor++;
+                tokenType = TYPES[tokens.getType(cursor)];
+            }
+        }
+
+        Exp parseExp() {
+            Exp lhs = parsePrimaryExp();
+            return parseBinopRHS(0, lhs);
+        }
+
+        private Exp parsePrimaryExp() {
+            switch (tokenType) {
+                case INT_CONST:
+                    int intValue = tokens.getIntVal(cursor);
+                    advance();
+                    return new IntegerLiteral(intValue);
+
+                case ID:
+                    Identifier id = new Identifier(tokens.getName(cursor), tokens.getSymbol(cursor));
+                    advance();
+                    return new IdentifierExp(id.getName(), id.getSymbol());
+
+                case LPAREN:
+                    advance();
+                    Exp exp = parseExp();
+                    advance();
+                    return exp;
+
+                default:
+                    advance();
+                    return null;
+            }
+        }
+
+        private Exp parseBinopRHS(int level, Exp lhs) {
+            while (true) {
+                Integer val = binopLevels.get(tokenType);
+                int tokenLevel = (val != null) ? val.intValue() : -1;
+                if (tokenLevel < level) {
+                    return lhs;
+                }
+
+                TokenType binop = tokenType;
+                advance();
+
+                Exp rhs = parsePrimaryExp();
+
+                val = binopLevels.get(tokenType);
+                int nextLevel = (val != null) ? val.intValue() : -1;
+                if (tokenLevel < nextLevel) {
+                    rhs = parseBinopRHS(tokenLevel + 1, rhs);
+                }
+
+                switch (binop) {
+                    case AND:
+                        lhs = new And(lhs, rhs);
+                        break;
+                    case OR:
+                        lhs = new Or(lhs, rhs);
+                        break;
+                    case EQ:
+                        lhs = new Equal(lhs, rhs);
+                        break;
+                    case NEQ:
+                        lhs = new NotEqual(lhs, rhs);
+                        break;
+                    case LT:
+                        lhs = new LessThan(lhs, rhs);
+                        break;
+                    case RT:
+                        lhs = new MoreThan(lhs, rhs);
+                        break;
+                    case LT_EQ:
+                        lhs = new LessThanEqual(lhs, rhs);
+                        break;
+                    case RT_EQ:
+                        lhs = new MoreThanEqual(lhs, rhs);
+                        break;
+                    case PLUS:
+                        lhs = new Plus(lhs, rhs);
+                        break;
+                    case MINUS:
+                        lhs = new Minus(lhs, rhs);
+                        break;
+                    case TIMES:
+                        lhs = new Times(lhs, rhs);
+                        break;
+                    case DIV:
+                        lhs = new Divide(lhs, rhs);
+                        break;
+                    case MOD:
+                        lhs = new Modules(lhs, rhs);
+                        break;
+                    case LBRACKET:
+                        lhs = new ArrayLookup(lhs, rhs);
+                        advance();
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+}
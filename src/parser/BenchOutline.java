@@ -0,0 +1,71 @@
+package parser;
+
+import java.io.IOException;
+
+import ast.*;
+import lexer.Bench;
+import lexer.Diagnostics;
+import lexer.TokenBuffer;
+
+// compares parsing a whole program with parsing its outline, on a generated
+// class of many methods: after checking that an outline gives the program
+// parseProgram gives once all its bodies are parsed, it times lexing, full
+// parsing, reading the outline with every declaration, and reading the
+// outline then the statements of one method
+public class BenchOutline {
+
+    private static final Bench BENCH = new Bench(10);
+    private static final int METHODS = 2000; //methods of the generated class
+    private static final int STATEMENTS = 100; //statements of each method
+
+    private static final String[] TARGETS = {"b", "a[1]", "a[4]", "a[9]"};
+    private static final String[] VALUES = {"1", "b + 1", "a[2] * (b - 3)", "-b", "!(a < b)", "\"text\""};
+    private static final String[] CONDITIONS = {"a[1] < b", "b > 0"};
+
+    public static void main(String[] args) throws IOException {
+        String source = generate(METHODS, STATEMENTS);
+
+        // the outline holds the same program
+        TokenBuffer sample = Bench.lex(source);
+        FlatAst expected = FlatAst.of(new Parser(sample, new Diagnostics()).parseProgram());
+        ProgramOutline outline = new Parser(sample, new Diagnostics()).parseOutline();
+        System.out.println("Bodies: " + outline.size() + ", parsed before asked for: " + outline.isParsed(1));
+        System.out.println("Same trees: " + expected.sameAs(FlatAst.of(outline.getProgram())));
+        System.out.printf("Source: %.2f MB%n", source.length() / 1e6);
+
+        long lexTime = BENCH.time(() -> Bench.lex(source).size());
+        long parseTime = BENCH.time(() -> new Parser(sample, new Diagnostics()).parseProgram().getList().size());
+        long outlineTime = BENCH.time(() -> {
+            ProgramOutline lazy = new Parser(sample, new Diagnostics()).parseOutline();
+            long declarations = 0;
+            for (int body = 0; body < lazy.size(); body++) {
+                declarations -= lazy.getDeclarations(body).size();
+            }
+            return declarations;
+        });
+        long methodTime = BENCH.time(() -> {
+            ProgramOutline lazy = new Parser(sample, new Diagnostics()).parseOutline();
+            return lazy.getStatements(lazy.size() / 2).size();
+        });
+
+        // print out statistics
+        System.out.println("---");
+        System.out.printf("Lexing: %.2f ms%n", lexTime / 1e6);
+        System.out.printf("Parsing the whole program: %.2f ms%n", parseTime / 1e6);
+        System.out.printf("Parsing the outline and every declaration: %.2f ms%n", outlineTime / 1e6);
+        System.out.printf("Parsing the outline and one method: %.2f ms%n", methodTime / 1e6);
+        System.out.println("Checksum: " + BENCH.getChecksum());
+    }
+
+    // a class of methods declaring a and b, followed by assigns, ifs and whiles
+    private static String generate(int methods, int statements) {
+        StringBuilder source = new StringBuilder(methods * statements * 24);
+        source.append("package p;\npublic class A {\nint c;\nc = 0;\n");
+        for (int method = 0; method < methods; method++) {
+            source.append("public static void m").append(method).append("() {\nint[10] a;\nint b;\n");
+            BENCH.statements(source, statements, TARGETS, VALUES, CONDITIONS);
+            source.append("}\n");
+        }
+        return source.append("}\n").toString();
+    }
+}
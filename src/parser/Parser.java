@@ -3,22 +3,78 @@ package parser;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import ast.*;
+import lexer.Diagnostics;
 import lexer.Lexer;
-import lexer.Token;
+import lexer.SymbolInterner;
+import lexer.TokenBuffer;
+import lexer.TokenSource;
 import lexer.TokenType;
 
 public class Parser {
 
-    private Lexer lexer;
-    private Token token;
-    private Token errorToken;
-
-    // hash table for operator precedence levels
-    private final static Map<TokenType, Integer> binopLevels;
+    private static final TokenType[] TYPES = TokenType.values(); //token types by ordinal
+
+    private TokenSource tokens; //token stream, ends with EOF
+    private byte[] types; //token type ordinals of a pre-lexed buffer, null for a streamed source
+    private SymbolInterner symbols; //identifier names by symbol id
+    private int cursor; //index of the current token
+    private TokenType tokenType; //type of the current token
+    private int errorIndex = -1; //index of the last reported token
+    private boolean recovering; //an error was reported and no token matched since
+    private boolean stopped; //too many errors or skipped tokens, the rest of the file is skipped
+    private int skipped; //tokens skipped while recovering
+    private final Diagnostics diagnostics; //collector of the syntax errors
+    private SourceSpans spans; //spans of the nodes built, null when not recorded
+    private int lastEnd; //end offset of the last token passed, kept while recording spans
+
+    // binding power of each token type as a binary or postfix operator, by
+    // ordinal (0 for tokens that end an expression)
+    private final static int[] binopPowers = new int[TYPES.length];
+
+    // binding power of prefix operators: above every binop but array lookup,
+    // so -a + b is (-a) + b and -a[i] is -(a[i])
+    private final static int PREFIX_POWER = 45;
+
+    // tokens opening an operator before a primary expression, by ordinal
+    private final static boolean[] prefixes = new boolean[TYPES.length];
+
+    // recovery sets of panic mode, bit masks over token type ordinals made of
+    // the FIRST and FOLLOW sets of the grammar
+    private final static long FIRST_STATEMENT; //FIRST(Statement)
+    private final static long FIRST_PRIMARY; //FIRST(PrimaryExp)
+    private final static long FIRST_EXP; //FIRST(Exp): a primary or a prefix
+    private final static long FOLLOW_STATEMENT; //FOLLOW(Statement)
+    private final static long FOLLOW_STATEMENT_LIST; //FOLLOW(StatementList)
+    private final static long FOLLOW_EXP; //FOLLOW(Exp) and the binops going on with an Exp
+    private final static long SYNC_STATEMENT; //FOLLOW(Statement) and the ';' ending a broken statement
+    private final static long SYNC_UNKNOWN; //SYNC_STATEMENT but the identifiers a statement of no known type holds
+    private final static long SYNC_EXP; //where a broken expression may go on or end
+
+    // per file limits of panic mode, the rest of the file is skipped past either
+    private final static int MAX_ERRORS = 100;
+    private final static int MAX_SKIPPED = 10000; //tokens skipped while recovering
+
+    // kinds of the compound statements open on the statement stack
+    private final static int STM_IF = 0;
+    private final static int STM_ELSE = 1;
+    private final static int STM_WHILE = 2;
+    private final static int STM_BLOCK = 3;
+
+    // statement stack: compound statements waiting for a nested statement, by depth
+    private int[] stmKinds = new int[16];
+    private Exp[] stmConds = new Exp[16]; //condition of an if or while
+    private Statement[] stmTrue = new Statement[16]; //true statement of an if with else
+    private StatementList[] stmLists = new StatementList[16]; //statements of a block so far
+    private int[] stmStarts = new int[16]; //start offset of the statement
+    private int stmDepth;
+
+    // expression stack: operators waiting for their operand, by depth
+    private TokenType[] expOps = new TokenType[16]; //NOT, NEGATIVE, LPAREN, LBRACKET or a binop
+    private Exp[] expLhs = new Exp[16]; //lhs of a binop or array lookup
+    private int[] expPowers = new int[16]; //power of the expression the operator is in
 
     private ArrayList<VarDecl> decelarations; //declarations symbol table
     private ArrayList<Identifier> identifiers; //identifiers symbol table
@@ -28,36 +84,133 @@ public class Parser {
     private int errors;
 
     static {
-        binopLevels = new HashMap<TokenType, Integer>();
-        binopLevels.put(TokenType.AND, 10);
-        binopLevels.put(TokenType.OR, 10);
-        binopLevels.put(TokenType.LT, 20);
-        binopLevels.put(TokenType.RT, 20);
-        binopLevels.put(TokenType.LT_EQ, 20);
-        binopLevels.put(TokenType.RT_EQ, 20);
-        binopLevels.put(TokenType.EQ, 20);
-        binopLevels.put(TokenType.NEQ, 20);
-        binopLevels.put(TokenType.PLUS, 30);
-        binopLevels.put(TokenType.MINUS, 30);
-        binopLevels.put(TokenType.TIMES, 40);
-        binopLevels.put(TokenType.DIV, 40);
-        binopLevels.put(TokenType.MOD, 40);
-        binopLevels.put(TokenType.LBRACKET, 50);
+        binopPowers[TokenType.AND.ordinal()] = 10;
+        binopPowers[TokenType.OR.ordinal()] = 10;
+        binopPowers[TokenType.LT.ordinal()] = 20;
+        binopPowers[TokenType.RT.ordinal()] = 20;
+        binopPowers[TokenType.LT_EQ.ordinal()] = 20;
+        binopPowers[TokenType.RT_EQ.ordinal()] = 20;
+        binopPowers[TokenType.EQ.ordinal()] = 20;
+        binopPowers[TokenType.NEQ.ordinal()] = 20;
+        binopPowers[TokenType.PLUS.ordinal()] = 30;
+        binopPowers[TokenType.MINUS.ordinal()] = 30;
+        binopPowers[TokenType.TIMES.ordinal()] = 40;
+        binopPowers[TokenType.DIV.ordinal()] = 40;
+        binopPowers[TokenType.MOD.ordinal()] = 40;
+        binopPowers[TokenType.LBRACKET.ordinal()] = 50;
+
+        prefixes[TokenType.LPAREN.ordinal()] = true;
+        prefixes[TokenType.NOT.ordinal()] = true;
+        prefixes[TokenType.MINUS.ordinal()] = true;
+        prefixes[TokenType.NEGATIVE.ordinal()] = true;
+
+        // Statement ::= Block | IfStatement | WhileStatement | identifier = Exp | identifier '['Exp']' = Exp
+        FIRST_STATEMENT = mask(TokenType.LBRACE, TokenType.IF, TokenType.WHILE, TokenType.ID);
+        // PrimaryExp ::= INT_CONST | FLOAT_CONST | CHAR_CONST | BOOLEAN_CONST | STRING_CONTS | Identifier
+        FIRST_PRIMARY = mask(TokenType.INT_CONST, TokenType.FLOAT_CONST, TokenType.CHAR_CONST,
+                TokenType.BOOLEAN_CONST, TokenType.STRING_CONTS, TokenType.ID);
+        long first = FIRST_PRIMARY;
+        for (TokenType type : TYPES) {
+            if (prefixes[type.ordinal()]) {
+                first |= mask(type);
+            }
+        }
+        FIRST_EXP = first;
+        // a statement is followed by the next statement of its list, the else
+        // of an if, the '}' of a block, a method or the class, the next method or the end of the file
+        FOLLOW_STATEMENT = FIRST_STATEMENT | mask(TokenType.ELSE, TokenType.RBRACE, TokenType.PUBLIC, TokenType.EOF);
+        FOLLOW_STATEMENT_LIST = mask(TokenType.RBRACE, TokenType.PUBLIC, TokenType.EOF);
+        // an expression ends an assignment, a condition, parentheses or an
+        // index, or goes on with a binop
+        long follow = mask(TokenType.SEMI, TokenType.RPAREN, TokenType.RBRACKET);
+        for (TokenType type : TYPES) {
+            if (binopPowers[type.ordinal()] > 0) {
+                follow |= mask(type);
+            }
+        }
+        FOLLOW_EXP = follow;
+        SYNC_STATEMENT = FOLLOW_STATEMENT | mask(TokenType.SEMI);
+        SYNC_UNKNOWN = SYNC_STATEMENT & ~mask(TokenType.ID);
+        SYNC_EXP = FOLLOW_EXP | FOLLOW_STATEMENT | FIRST_PRIMARY;
+    }
+
+    // set of token types, as a bit mask over their ordinals
+    private static long mask(TokenType... types) {
+        long mask = 0;
+        for (TokenType type : types) {
+            mask |= 1L << type.ordinal();
+        }
+        return mask;
     }
 
     public Parser(FileReader file) throws IOException {
-        this.lexer = new Lexer(file);
-        this.token = lexer.getToken();
+        this(new Lexer(file).tokenize());
+    }
+
+    // parse a lexed or streamed token source (must end with an EOF token)
+    public Parser(TokenSource tokens) {
+        this(tokens, new Diagnostics(System.err));
+    }
+
+    // parse a token source, reporting syntax errors to diagnostics
+    public Parser(TokenSource tokens, Diagnostics diagnostics) {
+        this.tokens = tokens;
+        this.diagnostics = diagnostics;
+        this.symbols = tokens.getSymbols();
+        this.tokenType = TYPES[tokens.getType(0)];
         this.decelarations = new ArrayList<VarDecl>();
         this.identifiers = new ArrayList<Identifier>();
         this.assigns = new ArrayList<Assign>();
         this.conditions = new ArrayList<Exp>();
     }
 
+    // parse a pre-lexed token buffer, reading token types straight from its array;
+    // the buffer is not changed, so one lex can feed several parses
+    public Parser(TokenBuffer tokens) {
+        this(tokens, new Diagnostics(System.err));
+    }
+
+    // parse a pre-lexed token buffer, reporting syntax errors to diagnostics
+    public Parser(TokenBuffer tokens, Diagnostics diagnostics) {
+        this((TokenSource) tokens, diagnostics);
+        this.types = tokens.getTypes();
+    }
+
+    // record the spans of the declarations, statements and whole expressions
+    // parsed from now on in spans
+    public void setSpans(SourceSpans spans) {
+        this.spans = spans;
+    }
+
+    // move to the next token, staying on the trailing EOF token
+    private void advance() {
+        if (tokenType != TokenType.EOF) {
+            if (spans != null) {
+                lastEnd = tokens.getStart(cursor) + tokens.getLength(cursor);
+            }
+            cursor++;
+            tokenType = TYPES[types != null ? types[cursor] : tokens.getType(cursor)];
+        }
+    }
+
+    // start offset of the current token while recording spans
+    private int spanStart() {
+        return spans != null ? tokens.getStart(cursor) : 0;
+    }
+
+    // record the span of node, from start to the end of the last token passed,
+    // unless it passed none
+    private void span(Object node, int start) {
+        if (spans != null && lastEnd > start) {
+            spans.record(node, start, lastEnd);
+        }
+    }
+
     // verifies current token type and grabs next token or reports error
     private boolean eat(TokenType type) throws IOException {
-        if (token.getType() == type) {
-            token = lexer.getToken();
+        if (tokenType == type) {
+            advance();
+            recovering = false;
             return true;
         } else {
             error(type);
@@ -65,39 +218,107 @@ public class Parser {
         }
     }
 
-    // reports an error to the console
+    // reports an error to the diagnostics
     private void error(TokenType type) {
-        // only report error once per erroneous token
-        if (token == errorToken) {
+        // only report error once per erroneous token, and not again before a
+        // token matched, so one mistake makes one message
+        if (cursor == errorIndex || recovering || stopped) {
             return;
         }
 
-        // print error report
-        System.err.print("ERROR: " + token.getType());
-        System.err.print(" at line " + token.getLineNumber() + ", column " + token.getColumnNumber());
-        System.err.println("; Expected " + type);
+        // report error
+        diagnostics.report("ERROR: " + tokenType + " at line " + tokens.getLineNumber(cursor)
+                + ", column " + tokens.getColumnNumber(cursor) + "; Expected " + type);
 
-        errorToken = token; // set error token to prevent cascading
+        errorIndex = cursor; // set error token to prevent cascading
+        recovering = true;
         errors++; // increment error counter
+        if (errors >= MAX_ERRORS) {
+            stop();
+        }
     }
 
-    // skip tokens until match in follow set for error recovery
-    private void skipTo(TokenType... follow) throws IOException {
-        while (token.getType() != TokenType.EOF) {
-            for (TokenType skip : follow) {
-                if (token.getType() == skip) {
-                    return;
-                }
+    // skip tokens until one in the recovery set or the end of the file
+    private void skipTo(long set) {
+        while (tokenType != TokenType.EOF && (set & 1L << tokenType.ordinal()) == 0) {
+            skip();
+        }
+    }
+
+    // pass a token while recovering, giving up after too many
+    private void skip() {
+        advance();
+        if (++skipped > MAX_SKIPPED && !stopped) {
+            stop();
+        }
+    }
+
+    // give up on a file too broken to be worth recovering from: every loop
+    // of the parser ends at EOF, so the trees still open close at once
+    private void stop() {
+        diagnostics.report("ERROR: too many errors at line " + tokens.getLineNumber(cursor) + ", column "
+                + tokens.getColumnNumber(cursor) + "; parsing stopped");
+        errors++;
+        stopped = true;
+        while (tokenType != TokenType.EOF) {
+            advance();
+        }
+    }
+
+    // ';' ending a statement, or else skip to the next statement
+    private void endStatement() throws IOException {
+        if (!eat(TokenType.SEMI)) {
+            skipTo(SYNC_STATEMENT);
+            if (tokenType == TokenType.SEMI) {
+                eat(TokenType.SEMI);
             }
-            token = lexer.getToken();
         }
     }
 
+    // statement type unknown: report it, then skip it up to the ';' ending it
+    // or to what follows a statement. At least one token but a '}', EOF or
+    // the else of the if waiting for this statement is passed, so no
+    // statement loop stalls on it. The identifiers recorded since index
+    // recorded of the identifiers table belong to the dropped statement and
+    // are removed, so the side tables hold what the tree holds
+    private Statement recoverStatement(TokenType expected, int start, int recorded) throws IOException {
+        error(expected);
+        identifiers.subList(recorded, identifiers.size()).clear();
+        boolean awaited = tokenType == TokenType.ELSE && stmDepth > 0 && stmKinds[stmDepth - 1] == STM_IF;
+        if (tokenType != TokenType.RBRACE && tokenType != TokenType.EOF && !awaited) {
+            boolean semi = tokenType == TokenType.SEMI;
+            skip();
+            if (semi) {
+                return errorStatement(start);
+            }
+        }
+        skipTo(SYNC_UNKNOWN);
+        if (tokenType == TokenType.SEMI) {
+            eat(TokenType.SEMI);
+        }
+        return errorStatement(start);
+    }
+
+    private ErrorStatement errorStatement(int start) {
+        ErrorStatement stm = new ErrorStatement();
+        span(stm, start);
+        return stm;
+    }
+
     // number of reported syntax errors
     public int getErrors() {
         return errors;
     }
 
+    // collector of the syntax errors, shared with a semantic analyzer of this parser
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    public SymbolInterner getSymbols() {
+        return symbols;
+    }
+
     public ArrayList<VarDecl> getDecelarations() {
         return decelarations;
     }
@@ -116,13 +337,61 @@ public class Parser {
 
     // Program ::= int main '('')' { Declarations StatementList }
     public Program parseProgram() throws IOException {
-        if (token.getType() == TokenType.PACKAGE) {
+        parseClassHeader();
+
+        // the class body and every method body make up the program
+        Declarations declarations = parseDeclarations();
+        StatementList statementList = parseStatementList();
+        while (tokenType == TokenType.PUBLIC) {
+            parseMethodHeader();
+            append(declarations, parseDeclarations());
+            append(statementList, parseStatementList());
+            eat(TokenType.RBRACE);
+
+        }
+
+        eat(TokenType.RBRACE);
+        eat(TokenType.EOF);
+        return new Program(statementList, declarations);
+    }
+
+    // the program of parseProgram, but the statements of the class body and
+    // of every method body are skipped by matching braces and only parsed
+    // the first time the outline is asked for them, so reading the outline
+    // and the declarations costs little more than lexing. Needs a pre-lexed
+    // token buffer, to come back to the skipped statements
+    public ProgramOutline parseOutline() throws IOException {
+        if (types == null) {
+            throw new IllegalStateException("parseOutline() needs a pre-lexed token buffer");
+        }
+        parseClassHeader();
+
+        ProgramOutline outline = new ProgramOutline(this);
+        Declarations declarations = parseDeclarations();
+        int start = cursor;
+        outline.addBody(null, declarations, start, skipStatements());
+        while (tokenType == TokenType.PUBLIC) {
+            Identifier name = parseMethodHeader();
+            declarations = parseDeclarations();
+            start = cursor;
+            outline.addBody(name, declarations, start, skipStatements());
+            eat(TokenType.RBRACE);
+        }
+
+        eat(TokenType.RBRACE);
+        eat(TokenType.EOF);
+        return outline;
+    }
+
+    // package, imports and class declaration up to the '{' of the class body
+    private void parseClassHeader() throws IOException {
+        if (tokenType == TokenType.PACKAGE) {
             eat(TokenType.PACKAGE);
         }
 
         eat(TokenType.ID);
         eat(TokenType.SEMI);
-        while (token.getType() == TokenType.IMPORT) {
+        while (tokenType == TokenType.IMPORT) {
             eat(TokenType.IMPORT);
             eat(TokenType.ID);
             eat(TokenType.PUNTO);
@@ -131,69 +400,118 @@ public class Parser {
             eat(TokenType.ID);
             eat(TokenType.SEMI);
         }
-        if (token.getType() == TokenType.PUBLIC) {
+        if (tokenType == TokenType.PUBLIC) {
             eat(TokenType.PUBLIC);
         }
 
-        if (token.getType() == TokenType.PRIVATE) {
+        if (tokenType == TokenType.PRIVATE) {
             eat(TokenType.PRIVATE);
         }
 
-        if (token.getType() == TokenType.STATIC) {
+        if (tokenType == TokenType.STATIC) {
             eat(TokenType.STATIC);
         }
 
-        if (token.getType() == TokenType.VOID) {
+        if (tokenType == TokenType.VOID) {
             eat(TokenType.VOID);
         }
 
         eat(TokenType.CLASS);
         eat(TokenType.ID);
         eat(TokenType.LBRACE);
+    }
 
-        parseDeclarations();
-        parseStatementList();
-        while (token.getType() == TokenType.PUBLIC) {
-            eat(TokenType.PUBLIC);
-            if (token.getType() == TokenType.STATIC) {
-                eat(TokenType.STATIC);
-            }
-            if (token.getType() == TokenType.STRING) {
-                eat(TokenType.STRING);
-            }
-            if (token.getType() == TokenType.BOOLEAN) {
-                eat(TokenType.BOOLEAN);
-            }
-            if (token.getType() == TokenType.INT) {
-                eat(TokenType.INT);
-            }
-            if (token.getType() == TokenType.CHAR) {
-                eat(TokenType.CHAR);
-            }
-            if (token.getType() == TokenType.VOID) {
-                eat(TokenType.VOID);
+    // method declaration up to the '{' of its body, returns the method name
+    private Identifier parseMethodHeader() throws IOException {
+        eat(TokenType.PUBLIC);
+        if (tokenType == TokenType.STATIC) {
+            eat(TokenType.STATIC);
+        }
+        if (tokenType == TokenType.STRING) {
+            eat(TokenType.STRING);
+        }
+        if (tokenType == TokenType.BOOLEAN) {
+            eat(TokenType.BOOLEAN);
+        }
+        if (tokenType == TokenType.INT) {
+            eat(TokenType.INT);
+        }
+        if (tokenType == TokenType.CHAR) {
+            eat(TokenType.CHAR);
+        }
+        if (tokenType == TokenType.VOID) {
+            eat(TokenType.VOID);
+        }
+        Identifier name = parseIdentifier();
+        eat(TokenType.LPAREN);
+        eat(TokenType.RPAREN);
+        eat(TokenType.LBRACE);
+        return name;
+    }
+
+    // skip a statement list by matching braces, up to the '}' or public
+    // outside any brace, or EOF, that follows it; returns the index of the
+    // token it stopped on
+    private int skipStatements() {
+        int lbrace = TokenType.LBRACE.ordinal();
+        int rbrace = TokenType.RBRACE.ordinal();
+        int pub = TokenType.PUBLIC.ordinal();
+        int eof = TokenType.EOF.ordinal();
+        int index = cursor;
+        int depth = 0;
+        for (int type = types[index]; type != eof; type = types[++index]) {
+            if (type == lbrace) {
+                depth++;
+            } else if (type == rbrace) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            } else if (type == pub && depth == 0) {
+                break;
             }
-            eat(TokenType.ID);
-            eat(TokenType.LPAREN);
-            eat(TokenType.RPAREN);
-            eat(TokenType.LBRACE);
-            parseDeclarations();
-            parseStatementList();
-            eat(TokenType.RBRACE);
+        }
+        seek(index);
+        return index;
+    }
+
+    // parse the statement list skipped from token start for an outline,
+    // leaving the parser where it was
+    StatementList parseStatements(int start) throws IOException {
+        int index = cursor;
+        seek(start);
+        StatementList statementList = parseStatementList();
+        seek(index);
+        return statementList;
+    }
 
+    // move to the token at index of a pre-lexed buffer
+    private void seek(int index) {
+        if (spans != null && index > 0) {
+            lastEnd = tokens.getStart(index - 1) + tokens.getLength(index - 1);
         }
+        cursor = index;
+        tokenType = TYPES[types[index]];
+        recovering = false;
+    }
 
-        eat(TokenType.RBRACE);
-        eat(TokenType.EOF);
-        return new Program(statementList, declarations);
+    static void append(Declarations declarations, Declarations more) {
+        for (int i = 0; i < more.size(); i++) {
+            declarations.addElement(more.elementAt(i));
+        }
+    }
+
+    static void append(StatementList statementList, StatementList more) {
+        for (int i = 0; i < more.size(); i++) {
+            statementList.addElement(more.elementAt(i));
+        }
     }
-    Declarations declarations = new Declarations();
 
     // Declarations ::= { VarDeclList }
     private Declarations parseDeclarations() throws IOException {
-
-        while (token.getType() == TokenType.INT || token.getType() == TokenType.FLOAT
-                || token.getType() == TokenType.BOOLEAN || token.getType() == TokenType.CHAR || token.getType() == TokenType.STRING) {
+        Declarations declarations = new Declarations();
+        while (tokenType == TokenType.INT || tokenType == TokenType.FLOAT
+                || tokenType == TokenType.BOOLEAN || tokenType == TokenType.CHAR || tokenType == TokenType.STRING) {
             declarations.addElement(parseVarDecList());
         }
 
@@ -208,9 +526,11 @@ public class Parser {
         getDecelarations().add(varDecl);
 
         // check for additional varDecl
-        while (token.getType() == TokenType.COMMA) {
+        while (tokenType == TokenType.COMMA) {
             eat(TokenType.COMMA);
+            int start = spanStart();
             VarDecl newVarDecl = new VarDecl(varDecl.getType(), parseIdentifier());
+            span(newVarDecl, start);
             varDeclList.addElement(newVarDecl);
             getDecelarations().add(newVarDecl);
         }
@@ -221,9 +541,12 @@ public class Parser {
 
     // VarDecl ::= Type Identifier
     private VarDecl parseVarDecl() throws IOException {
+        int start = spanStart();
         Type type = parseType();
         Identifier id = parseIdentifier();
-        return new VarDecl(type, id);
+        VarDecl varDecl = new VarDecl(type, id);
+        span(varDecl, start);
+        return varDecl;
     }
 
     /*
@@ -236,18 +559,18 @@ public class Parser {
 	 * boolean[integer] (BooleanArrayType)
      */
     private Type parseType() throws IOException {
-        switch (token.getType()) {
+        switch (tokenType) {
 
             case INT:
                 eat(TokenType.INT);
 
                 // check for integer array type
-                if (token.getType() == TokenType.LBRACKET) {
+                if (tokenType == TokenType.LBRACKET) {
                     eat(TokenType.LBRACKET);
 
                     // check array size integer
                     if (eat(TokenType.INT_CONST)) {
-                        if (token.getType() == TokenType.RBRACKET) {
+                        if (tokenType == TokenType.RBRACKET) {
                             eat(TokenType.RBRACKET);
                             return new IntegerArrayType();
                         }
@@ -262,12 +585,12 @@ public class Parser {
                 eat(TokenType.STRING);
 
                 // check for integer array type
-                if (token.getType() == TokenType.LBRACKET) {
+                if (tokenType == TokenType.LBRACKET) {
                     eat(TokenType.LBRACKET);
 
                     // check array size integer
                     if (eat(TokenType.STRING_CONTS)) {
-                        if (token.getType() == TokenType.RBRACKET) {
+                        if (tokenType == TokenType.RBRACKET) {
                             eat(TokenType.RBRACKET);
                             return new StringArrayType();
                         }
@@ -283,12 +606,12 @@ public class Parser {
                 eat(TokenType.FLOAT);
 
                 // check for integer array type
-                if (token.getType() == TokenType.LBRACKET) {
+                if (tokenType == TokenType.LBRACKET) {
                     eat(TokenType.LBRACKET);
 
                     // check array size integer
                     if (eat(TokenType.INT_CONST)) {
-                        if (token.getType() == TokenType.RBRACKET) {
+                        if (tokenType == TokenType.RBRACKET) {
                             eat(TokenType.RBRACKET);
                             return new FloatArrayType();
                         }
@@ -304,12 +627,12 @@ public class Parser {
                 eat(TokenType.BOOLEAN);
 
                 // check for integer array type
-                if (token.getType() == TokenType.LBRACKET) {
+                if (tokenType == TokenType.LBRACKET) {
                     eat(TokenType.LBRACKET);
 
                     // check array size integer
                     if (eat(TokenType.INT_CONST)) {
-                        if (token.getType() == TokenType.RBRACKET) {
+                        if (tokenType == TokenType.RBRACKET) {
                             eat(TokenType.RBRACKET);
                             return new BooleanArrayType();
                         }
@@ -325,12 +648,12 @@ public class Parser {
                 eat(TokenType.CHAR);
 
                 // check for integer array type
-                if (token.getType() == TokenType.LBRACKET) {
+                if (tokenType == TokenType.LBRACKET) {
                     eat(TokenType.LBRACKET);
 
                     // check array size integer
                     if (eat(TokenType.INT_CONST)) {
-                        if (token.getType() == TokenType.RBRACKET) {
+                        if (tokenType == TokenType.RBRACKET) {
                             eat(TokenType.RBRACKET);
                             return new CharArrayType();
                         }
@@ -350,142 +673,179 @@ public class Parser {
         }
     }
 
+    // Identifier node for the current ID token, named by its symbol id
+    private Identifier newIdentifier() {
+        return new Identifier(tokens.getName(cursor), tokens.getSymbol(cursor));
+    }
+
     // Identifier ::= Letter { Letter | Digit }
     private Identifier parseIdentifier() throws IOException {
         Identifier identifier = null;
 
         // grab ID value if token type is ID
-        if (token.getType() == TokenType.ID) {
-            identifier = new Identifier(token.getAttribute().getIdVal());
+        if (tokenType == TokenType.ID) {
+            identifier = newIdentifier();
         }
 
         eat(TokenType.ID);
 
         return identifier;
     }
-    StatementList statementList = new StatementList();
 
     // StatementList ::= { Statement }
     private StatementList parseStatementList() throws IOException {
-        while (isStatement()) {
+        StatementList statementList = new StatementList();
+        // up to what follows the list, any token starts a statement, the
+        // broken ones being recovered as error statements
+        while ((FOLLOW_STATEMENT_LIST & 1L << tokenType.ordinal()) == 0) {
             statementList.addElement(parseStatement());
         }
         return statementList;
     }
 
-    // checks the beginning of a new statement 
-    private boolean isStatement() {
-        switch (token.getType()) {
-            case SEMI:
-            case IF:
-            case WHILE:
-            case LPAREN:
-            case LBRACE:
-            case ID:
-                return true;
-            default:
-                return false;
-        }
-    }
-
     // Statement ::= Block | IfStatement | WhileStatement | identifier = Exp | identifier '['Exp']' = Exp
+    // if, else and while statements waiting for their body and blocks waiting
+    // for their next statement go on the statement stack, so any nesting
+    // depth parses in this one loop
     private Statement parseStatement() throws IOException {
-
-        // IfStatement ::=  if '('Exp')' Statement [else Statement]
-        if (token.getType() == TokenType.IF) {
-            eat(TokenType.IF);
-
-            // parse conditional expression
-            if (!eat(TokenType.LPAREN)) {
-                skipTo(TokenType.RPAREN, TokenType.LBRACE, TokenType.RBRACE);
-            }
-
-            Exp condExp = parseExp();
-            conditions.add(condExp);
-
-            /*if(condExp instanceof IdentifierExp){
-				IdentifierExp idExp = (IdentifierExp) condExp;
-				Identifier identifier = new Identifier(idExp.getName());
-				identifiers.add(identifier);
-			}*/
-            if (!eat(TokenType.RPAREN)) {
-                skipTo(TokenType.LBRACE, TokenType.SEMI, TokenType.RBRACE);
-            }
-
-            // parse true and false statements
-            Statement trueStm;
-
-            // BLock ::= '{' StatementList '}' 
-            if (token.getType() == TokenType.LBRACE) {
-                trueStm = parseBlock();
-            } else // parse true statement
-            {
-                trueStm = parseStatement();
-            }
-
-            if (token.getType() == TokenType.ELSE) {
-                if (!eat(TokenType.ELSE)) {
-                    skipTo(TokenType.LBRACE, TokenType.SEMI, TokenType.RBRACE);
+        int base = stmDepth;
+        boolean body = false; //next statement is the body of an if, else or while, which may be a block
+        Statement stm;
+        descend:
+        while (true) {
+            // open compound statements until one is complete
+            if (body && tokenType == TokenType.LBRACE) {
+                // Block ::= '{' StatementList '}'
+                int start = spanStart();
+                eat(TokenType.LBRACE);
+                if (tokenType != TokenType.RBRACE && tokenType != TokenType.EOF) {
+                    pushStatement(STM_BLOCK, start, null, null, new StatementList());
+                    body = false;
+                    continue;
                 }
+                stm = closeBlock(new StatementList());
+                span(stm, start);
+            } else if (tokenType == TokenType.IF) {
+                // IfStatement ::=  if '('Exp')' Statement [else Statement]
+                int start = spanStart();
+                eat(TokenType.IF);
+                pushStatement(STM_IF, start, parseCondition(), null, null);
+                body = true;
+                continue;
+            } else if (tokenType == TokenType.WHILE) {
+                // WhileStatement ::= while '('Exp')' Statement
+                int start = spanStart();
+                eat(TokenType.WHILE);
+                pushStatement(STM_WHILE, start, parseCondition(), null, null);
+                body = true;
+                continue;
+            } else {
+                stm = parseSimpleStatement();
+            }
 
-                Statement falseStm;
-
-                // BLock ::= '{' StatementList '}' 
-                if (token.getType() == TokenType.LBRACE) {
-                    falseStm = parseBlock();
-                } else // parse false statement
-                {
-                    falseStm = parseStatement();
+            // complete the open statements waiting for stm
+            while (stmDepth > base) {
+                int top = stmDepth - 1;
+                switch (stmKinds[top]) {
+                    case STM_IF:
+                        if (tokenType == TokenType.ELSE) {
+                            if (!eat(TokenType.ELSE)) {
+                                skipTo(SYNC_STATEMENT);
+                            }
+                            stmKinds[top] = STM_ELSE;
+                            stmTrue[top] = stm;
+                            body = true;
+                            continue descend;
+                        }
+                        stm = new If(stmConds[top], stm, null);
+                        break;
+                    case STM_ELSE:
+                        stm = new If(stmConds[top], stmTrue[top], stm);
+                        break;
+                    case STM_WHILE:
+                        stm = new While(stmConds[top], stm);
+                        break;
+                    default:
+                        stmLists[top].addElement(stm);
+                        if (tokenType != TokenType.RBRACE && tokenType != TokenType.EOF) {
+                            body = false;
+                            continue descend;
+                        }
+                        stm = closeBlock(stmLists[top]);
+                        break;
                 }
-
-                return new If(condExp, trueStm, falseStm);
+                span(stm, stmStarts[top]);
+                popStatement();
             }
-            return new If(condExp, trueStm, null);
+            return stm;
         }
+    }
 
-        // WhileStatement ::= while '('Exp')' Statement
-        if (token.getType() == TokenType.WHILE) {
-            eat(TokenType.WHILE);
-
-            // parse looping condition
-            if (!eat(TokenType.LPAREN)) {
-                skipTo(TokenType.RPAREN, TokenType.LBRACE, TokenType.RBRACE);
-            }
+    // open a compound statement on the statement stack
+    private void pushStatement(int kind, int start, Exp condExp, Statement trueStm, StatementList stms) {
+        if (stmDepth == stmKinds.length) {
+            int capacity = stmDepth * 2;
+            stmKinds = Arrays.copyOf(stmKinds, capacity);
+            stmConds = Arrays.copyOf(stmConds, capacity);
+            stmTrue = Arrays.copyOf(stmTrue, capacity);
+            stmLists = Arrays.copyOf(stmLists, capacity);
+            stmStarts = Arrays.copyOf(stmStarts, capacity);
+        }
+        stmKinds[stmDepth] = kind;
+        stmConds[stmDepth] = condExp;
+        stmTrue[stmDepth] = trueStm;
+        stmLists[stmDepth] = stms;
+        stmStarts[stmDepth] = start;
+        stmDepth++;
+    }
 
-            Exp condExp = parseExp();
-            conditions.add(condExp);
+    // close the innermost compound statement, dropping its references
+    private void popStatement() {
+        stmDepth--;
+        stmConds[stmDepth] = null;
+        stmTrue[stmDepth] = null;
+        stmLists[stmDepth] = null;
+    }
 
-            /*if(condExp instanceof IdentifierExp){
-				IdentifierExp idExp = (IdentifierExp) condExp;
-				Identifier identifier = new Identifier(idExp.getName());
-				identifiers.add(identifier);
-			}*/
-            if (!eat(TokenType.RPAREN)) {
-                skipTo(TokenType.LBRACE, TokenType.SEMI, TokenType.RBRACE);
-            }
+    // '('Exp')' of an if or while statement
+    private Exp parseCondition() throws IOException {
+        if (!eat(TokenType.LPAREN)) {
+            skipTo(FIRST_EXP | mask(TokenType.RPAREN) | SYNC_STATEMENT);
+        }
 
-            Statement loopStm;
+        Exp condExp = parseExp();
+        conditions.add(condExp);
 
-            // BLock ::= '{' StatementList '}' 
-            if (token.getType() == TokenType.LBRACE) {
-                loopStm = parseBlock();
-            } else // parse looping statement
-            {
-                loopStm = parseStatement();
-            }
+        if (!eat(TokenType.RPAREN)) {
+            skipTo(SYNC_STATEMENT);
+        }
+        return condExp;
+    }
 
-            return new While(condExp, loopStm);
+    // '}' ending the block of stms
+    private Block closeBlock(StatementList stms) throws IOException {
+        if (!eat(TokenType.RBRACE)) {
+            skipTo(mask(TokenType.RBRACE, TokenType.SEMI));
         }
 
+        return new Block(stms);
+    }
+
+    // identifier = Exp ; | identifier '['Exp']' = Exp ;
+    // statements without nested statements
+    private Statement parseSimpleStatement() throws IOException {
+        int start = spanStart();
+        int recorded = identifiers.size();
+
         // Identifier statement
-        if (token.getType() == TokenType.ID) {
+        if (tokenType == TokenType.ID) {
 
-            Identifier id = new Identifier(token.getAttribute().getIdVal());
+            Identifier id = newIdentifier();
             identifiers.add(id);
             eat(TokenType.ID);
 
             // Assignment statement: id = Exp ;
-            if (token.getType() == TokenType.ASSIGN) {
+            if (tokenType == TokenType.ASSIGN) {
                 eat(TokenType.ASSIGN);
                 Exp value = parseExp();
 
@@ -494,31 +854,30 @@ public class Parser {
 					Identifier identifier = new Identifier(idExp.getName());
 					identifiers.add(identifier);
 				}*/
-                eat(TokenType.SEMI);
+                endStatement();
 
                 Assign assign = new Assign(id, value);
                 assigns.add(assign);
+                span(assign, start);
                 return assign;
             }
 
             // Array value assignment statement: id [ Exp ] = Exp ;
-            if (token.getType() == TokenType.LBRACKET) {
+            if (tokenType == TokenType.LBRACKET) {
                 eat(TokenType.LBRACKET);
                 Exp index = parseExp();
 
                 if (!(index instanceof IntegerLiteral)) {
                     // statement type unknown
-                    eat(TokenType.TYPE);
-                    token = lexer.getToken();
-                    return null;
+                    return recoverStatement(TokenType.TYPE, start, recorded);
                 }
 
                 if (!eat(TokenType.RBRACKET)) {
-                    skipTo(TokenType.ASSIGN, TokenType.SEMI);
+                    skipTo(mask(TokenType.ASSIGN) | SYNC_STATEMENT);
                 }
 
                 if (!eat(TokenType.ASSIGN)) {
-                    skipTo(TokenType.SEMI);
+                    skipTo(FIRST_EXP | SYNC_STATEMENT);
                 }
 
                 Exp value = parseExp();
@@ -528,179 +887,219 @@ public class Parser {
 					Identifier identifier = new Identifier(idExp.getName());
 					identifiers.add(identifier);
 				}*/
-                eat(TokenType.SEMI);
+                endStatement();
 
                 Assign assign = new Assign(id, value);
                 assigns.add(assign);
-                return new ArrayAssign(id, index, value);
+                ArrayAssign arrayAssign = new ArrayAssign(id, index, value);
+                span(arrayAssign, start);
+                return arrayAssign;
             }
         }
 
         // statement type unknown
-        eat(TokenType.STATEMENT);
-        token = lexer.getToken();
-        return null;
+        return recoverStatement(TokenType.STATEMENT, start, recorded);
     }
 
-    // BLock ::= '{' StatementList '}'
-    // Block ::= '{' StatementList '}'
-    private Block parseBlock() throws IOException {
-        eat(TokenType.LBRACE);
+    // Exp ::= PrimaryExp { Binop PrimaryExp }
+    // top-level parsing function for an expression
+    private Exp parseExp() throws IOException {
+        int start = spanStart();
+        Exp exp = parseExp(0);
+        span(exp, start);
+        return exp;
+    }
 
-        // recursively call parseStatement() until closing brace
-        StatementList stms = new StatementList();
-        while (token.getType() != TokenType.RBRACE && token.getType() != TokenType.EOF) {
-            stms.addElement(parseStatement());
-        }
+    // parse one expression from the current token (for BenchExpressions)
+    Exp parseExpression() throws IOException {
+        return parseExp();
+    }
 
-        if (!eat(TokenType.RBRACE)) {
-            skipTo(TokenType.RBRACE, TokenType.SEMI);
-        }
+    // parse an expression whose binops all bind tighter than power. Prefix
+    // operators, parentheses and binops waiting for their operand go on the
+    // expression stack, so any nesting depth parses in this one loop; each
+    // binop binds by its table entry, so no lookup allocates or unboxes.
+    // Nothing here parses an expression again, so the stack starts empty and
+    // its arrays live in locals while parsing
+    private Exp parseExp(int power) throws IOException {
+        TokenType[] ops = expOps; //open operators, innermost last
+        Exp[] lefts = expLhs; //lhs of open binops and array lookups
+        int[] powers = expPowers; //power of the expression each operator is in
+        int depth = 0;
+        while (true) {
+            TokenType op;
+            Exp left = null;
+            int operandPower;
+            if (prefixes[tokenType.ordinal()]) {
+                // the lexer reads every '-' as MINUS, a leading one negates
+                op = tokenType == TokenType.MINUS ? TokenType.NEGATIVE : tokenType;
+                advance();
+                operandPower = op == TokenType.LPAREN ? 0 : PREFIX_POWER;
+            } else {
+                Exp lhs = parsePrimaryExp();
+                while (true) {
+                    int binopPower = binopPowers[tokenType.ordinal()];
+                    if (binopPower > power) {
+                        // save binop before parsing rhs of exp: the index of an array
+                        // lookup is a whole expression up to ']', and binops are left
+                        // associative, the rhs only takes tighter ones
+                        op = tokenType;
+                        advance();
+                        operandPower = op == TokenType.LBRACKET ? 0 : binopPower;
+                        if (prefixes[tokenType.ordinal()]) {
+                            left = lhs;
+                            break;
+                        }
 
-        return new Block(stms);
+                        // a primary rhs that no tighter binop follows is complete,
+                        // the common case skips the stack
+                        Exp rhs = parsePrimaryExp();
+                        if (binopPowers[tokenType.ordinal()] > operandPower) {
+                            if (depth == ops.length) {
+                                growExpStack();
+                                ops = expOps;
+                                lefts = expLhs;
+                                powers = expPowers;
+                            }
+                            ops[depth] = op;
+                            lefts[depth] = lhs;
+                            powers[depth] = power;
+                            depth++;
+                            power = operandPower;
+                            lhs = rhs;
+                        } else if (op == TokenType.LBRACKET) {
+                            eat(TokenType.RBRACKET);
+                            lhs = new ArrayLookup(lhs, rhs);
+                        } else {
+                            lhs = newBinop(op, lhs, rhs);
+                        }
+                        continue;
+                    }
+                    if (depth == 0) {
+                        return lhs;
+                    }
+
+                    // lhs is complete, apply the innermost open operator to it
+                    depth--;
+                    TokenType open = ops[depth];
+                    power = powers[depth];
+                    if (open == TokenType.LPAREN) {
+                        eat(TokenType.RPAREN);
+                    } else if (open == TokenType.NOT) {
+                        lhs = new Not(lhs);
+                    } else if (open == TokenType.NEGATIVE) {
+                        lhs = new Negative(lhs);
+                    } else if (open == TokenType.LBRACKET) {
+                        eat(TokenType.RBRACKET);
+                        lhs = new ArrayLookup(lefts[depth], lhs);
+                    } else {
+                        lhs = newBinop(open, lefts[depth], lhs);
+                    }
+                    lefts[depth] = null;
+                }
+            }
+
+            // open op, its operand parses next
+            if (depth == ops.length) {
+                growExpStack();
+                ops = expOps;
+                lefts = expLhs;
+                powers = expPowers;
+            }
+            ops[depth] = op;
+            lefts[depth] = left;
+            powers[depth] = power;
+            depth++;
+            power = operandPower;
+        }
     }
 
-    // Exp ::= PrimaryExp | BinopRHS
-    // top-level parsing function for an expression
-    private Exp parseExp() throws IOException {
-        Exp lhs = parsePrimaryExp();
-        return parseBinopRHS(0, lhs); // check for binops following exp
+    // double the capacity of the expression stack
+    private void growExpStack() {
+        int capacity = expOps.length * 2;
+        expOps = Arrays.copyOf(expOps, capacity);
+        expLhs = Arrays.copyOf(expLhs, capacity);
+        expPowers = Arrays.copyOf(expPowers, capacity);
     }
 
-    // parsePrimaryExp ::= INT_CONST | FLOAT_CONST | CHAR_CONST | BOOLEAN_CONST | NEGATIVE | NOT | Identifier
-    // parse exp before any binop
+    // parsePrimaryExp ::= INT_CONST | FLOAT_CONST | CHAR_CONST | BOOLEAN_CONST | STRING_CONTS | Identifier
+    // parse exp before any binop, after its prefixes
     private Exp parsePrimaryExp() throws IOException {
-        switch (token.getType()) {
+        switch (tokenType) {
 
             case INT_CONST:
-                int intValue = token.getAttribute().getIntVal();
+                int intValue = tokens.getIntVal(cursor);
                 eat(TokenType.INT_CONST);
                 return new IntegerLiteral(intValue);
 
             case STRING_CONTS:
-                String strValue = token.getAttribute().getStringVal();
+                String strValue = tokens.getString(cursor);
                 eat(TokenType.STRING_CONTS);
                 return new StringLiteral(strValue);
 
             case FLOAT_CONST:
-                float floatValue = token.getAttribute().getFloatVal();
+                float floatValue = tokens.getFloatVal(cursor);
                 eat(TokenType.FLOAT_CONST);
                 return new FloatLiteral(floatValue);
 
             case BOOLEAN_CONST:
-                boolean booleanVal = token.getAttribute().getBooleanVal();
+                boolean booleanVal = tokens.getBooleanVal(cursor);
                 eat(TokenType.BOOLEAN_CONST);
                 return new BooleanLiteral(booleanVal);
 
             case CHAR_CONST:
-                char charVal = token.getAttribute().getCharVal();
+                char charVal = tokens.getCharVal(cursor);
                 eat(TokenType.CHAR_CONST);
                 return new CharLiteral(charVal);
 
             case ID:
                 Identifier id = parseIdentifier();
                 identifiers.add(id);
-                return new IdentifierExp(id.getName());
-
-            case NOT:
-                eat(TokenType.NOT);
-                return new Not(parseExp());
-
-            case NEGATIVE:
-                eat(TokenType.NEGATIVE);
-                return new Negative(parseExp());
-
-            case LPAREN:
-                eat(TokenType.LPAREN);
-                Exp exp = parseExp();
-                eat(TokenType.RPAREN);
-                return exp;
+                return new IdentifierExp(id.getName(), id.getSymbol());
 
             default:
-                // unrecognizable expression
-                eat(TokenType.EXPRESSION);
-                token = lexer.getToken();
-                return null;
+                // unrecognizable expression: skip to where an expression goes
+                // on or ends, parsing a primary expression met on the way
+                error(TokenType.EXPRESSION);
+                skipTo(SYNC_EXP);
+                if ((FIRST_PRIMARY & 1L << tokenType.ordinal()) != 0) {
+                    return parsePrimaryExp();
+                }
+                return new ErrorExp();
         }
     }
 
-    // parse expressions according to operator precedence levels
-    private Exp parseBinopRHS(int level, Exp lhs) throws IOException {
-        // continuously parse exp until a lower order operator comes up
-        while (true) {
-            // grab operator precedence (-1 for non-operator token)
-            Integer val = binopLevels.get(token.getType());
-            int tokenLevel = (val != null) ? val.intValue() : -1;
-
-            // either op precedence is lower than prev op or token is not an op
-            if (tokenLevel < level) {
-                return lhs;
-            }
-
-            // save binop before parsing rhs of exp
-            TokenType binop = token.getType();
-            eat(binop);
-
-            Exp rhs = parsePrimaryExp(); // parse rhs of exp
-
-            // grab operator precedence (-1 for non-operator token)
-            val = binopLevels.get(token.getType());
-            int nextLevel = (val != null) ? val.intValue() : -1;
-
-            // if next op has higher precedence than prev op, make recursive call
-            if (tokenLevel < nextLevel) {
-                rhs = parseBinopRHS(tokenLevel + 1, rhs);
-            }
-
-            // build AST for exp
-            switch (binop) {
-                case AND:
-                    lhs = new And(lhs, rhs);
-                    break;
-                case OR:
-                    lhs = new Or(lhs, rhs);
-                    break;
-                case EQ:
-                    lhs = new Equal(lhs, rhs);
-                    break;
-                case NEQ:
-                    lhs = new NotEqual(lhs, rhs);
-                    break;
-                case LT:
-                    lhs = new LessThan(lhs, rhs);
-                    break;
-                case RT:
-                    lhs = new MoreThan(lhs, rhs);
-                    break;
-                case LT_EQ:
-                    lhs = new LessThanEqual(lhs, rhs);
-                    break;
-                case RT_EQ:
-                    lhs = new MoreThanEqual(lhs, rhs);
-                    break;
-                case PLUS:
-                    lhs = new Plus(lhs, rhs);
-                    break;
-                case MINUS:
-                    lhs = new Minus(lhs, rhs);
-                    break;
-                case TIMES:
-                    lhs = new Times(lhs, rhs);
-                    break;
-                case DIV:
-                    lhs = new Divide(lhs, rhs);
-                    break;
-                case MOD:
-                    lhs = new Modules(lhs, rhs);
-                    break;
-                case LBRACKET:
-                    lhs = new ArrayLookup(lhs, rhs);
-                    eat(TokenType.RBRACKET);
-                    break;
-                default:
-                    eat(TokenType.OPERATOR);
-                    break;
-            }
+    // AST node of a binop
+    private static Exp newBinop(TokenType binop, Exp lhs, Exp rhs) {
+        switch (binop) {
+            case AND:
+                return new And(lhs, rhs);
+            case OR:
+                return new Or(lhs, rhs);
+            case EQ:
+                return new Equal(lhs, rhs);
+            case NEQ:
+                return new NotEqual(lhs, rhs);
+            case LT:
+                return new LessThan(lhs, rhs);
+            case RT:
+                return new MoreThan(lhs, rhs);
+            case LT_EQ:
+                return new LessThanEqual(lhs, rhs);
+            case RT_EQ:
+                return new MoreThanEqual(lhs, rhs);
+            case PLUS:
+                return new Plus(lhs, rhs);
+            case MINUS:
+                return new Minus(lhs, rhs);
+            case TIMES:
+                return new Times(lhs, rhs);
+            case DIV:
+                return new Divide(lhs, rhs);
+            case MOD:
+                return new Modules(lhs, rhs);
+            default:
+                throw new IllegalArgumentException("not a binop: " + binop);
         }
     }
 
@@ -0,0 +1,97 @@
+package parser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import ast.Declarations;
+import ast.Identifier;
+import ast.Program;
+import ast.StatementList;
+
+// program made by Parser.parseOutline: the class body and each method body
+// have their declarations parsed and their statements only recorded as a
+// token range. The statements of a body are parsed the first time they are
+// asked for, by the parser of the outline, so their syntax errors and
+// symbol table entries come then. On a broken program, bodies are ended by
+// matching braces, where parseProgram ends them where recovery gets to, so
+// the two may report different errors. Like the parser, not thread safe.
+public class ProgramOutline {
+
+    private final Parser parser; //parser of the skipped statements
+    private final ArrayList<Identifier> names = new ArrayList<>(); //method names, null for the class body
+    private final ArrayList<Declarations> declarations = new ArrayList<>();
+    private final ArrayList<StatementList> statements = new ArrayList<>(); //null until parsed
+    private int[] starts = new int[16]; //index of the first token of the statements
+    private int[] ends = new int[16]; //index of the token after the statements
+    private Program program; //whole program, once asked for
+
+    ProgramOutline(Parser parser) {
+        this.parser = parser;
+    }
+
+    void addBody(Identifier name, Declarations declarations, int start, int end) {
+        int body = names.size();
+        if (body == starts.length) {
+            starts = Arrays.copyOf(starts, body * 2);
+            ends = Arrays.copyOf(ends, body * 2);
+        }
+        starts[body] = start;
+        ends[body] = end;
+        names.add(name);
+        this.declarations.add(declarations);
+        statements.add(null);
+    }
+
+    // number of bodies: the class body, then the methods in source order
+    public int size() {
+        return names.size();
+    }
+
+    // name of a method, null for the class body (body 0) or a broken name
+    public Identifier getName(int body) {
+        return names.get(body);
+    }
+
+    public Declarations getDeclarations(int body) {
+        return declarations.get(body);
+    }
+
+    // token range of the statements of body, end excluded
+    public int getStart(int body) {
+        return starts[body];
+    }
+
+    public int getEnd(int body) {
+        return ends[body];
+    }
+
+    public boolean isParsed(int body) {
+        return statements.get(body) != null;
+    }
+
+    // statements of body, parsed on the first call
+    public StatementList getStatements(int body) throws IOException {
+        StatementList stms = statements.get(body);
+        if (stms == null) {
+            stms = parser.parseStatements(starts[body]);
+            statements.set(body, stms);
+        }
+        return stms;
+    }
+
+    // the program parseProgram gives: the declarations and then the
+    // statements of every body, in source order, parsing those not parsed yet
+    public Program getProgram() throws IOException {
+        if (program == null) {
+            Declarations allDeclarations = new Declarations();
+            StatementList allStatements = new StatementList();
+            for (int body = 0; body < size(); body++) {
+                Parser.append(allDeclarations, declarations.get(body));
+                Parser.append(allStatements, getStatements(body));
+            }
+            program = new Program(allStatements, allDeclarations);
+        }
+        return program;
+    }
+}
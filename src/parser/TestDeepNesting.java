@@ -0,0 +1,174 @@
+package parser;
+
+import java.io.IOException;
+
+import ast.*;
+import lexer.Diagnostics;
+import lexer.Lexer;
+import lexer.TokenBuffer;
+import lexerC.LexerC;
+import parserC.ParserC;
+
+// stress test of the statement and expression parsers: programs nesting
+// if/while statements, blocks, parentheses, prefix operators, binops and
+// array lookups DEPTH levels deep are parsed by Parser and ParserC on a
+// thread with a small stack and the depth of each tree is measured. The
+// times of a tenth of the depth and of the whole depth show that parsing
+// time stays linear
+public class TestDeepNesting {
+
+    private static final int DEPTH = 100000; //nesting levels of each program
+    private static final long STACK_SIZE = 256 * 1024; //stack of the parsing thread, in bytes
+
+    private static int failures;
+
+    public static void main(String[] args) throws InterruptedException {
+        Thread parsing = new Thread(null, () -> {
+            try {
+                run();
+            } catch (IOException | StackOverflowError e) {
+                failures++;
+                System.out.println("FAILED: " + e);
+            }
+        }, "parser", STACK_SIZE);
+        parsing.start();
+        parsing.join();
+
+        System.out.println("---");
+        System.out.println(failures == 0 ? "All nestings parsed" : failures + " nestings failed");
+    }
+
+    private static void run() throws IOException {
+        // warm up, then compare a tenth of the depth with the whole depth
+        for (int round = 0; round < 3; round++) {
+            check("statements", statements(DEPTH / 10), DEPTH / 10, false);
+        }
+        String[] names = {"if/else/while statements", "blocks", "parentheses", "prefix operators",
+                "binops", "array lookups"};
+        for (String name : names) {
+            System.out.println("Parsing " + DEPTH + " nested " + name + "...");
+            long smallTime = check(name, program(name, DEPTH / 10), nodes(name, DEPTH / 10), false);
+            long largeTime = check(name, program(name, DEPTH), nodes(name, DEPTH), true);
+            System.out.printf("%d levels: %.2f ms, %d levels: %.2f ms%n", DEPTH / 10, smallTime / 1e6, DEPTH,
+                    largeTime / 1e6);
+        }
+    }
+
+    // statements of the named nesting, depth levels deep
+    private static String program(String name, int depth) {
+        switch (name) {
+            case "if/else/while statements":
+                return statements(depth);
+            case "blocks":
+                return repeat("if (x) {", depth) + "x = 1;" + repeat("}", depth);
+            case "parentheses":
+                return "x = " + repeat("(-", depth / 2) + "1" + repeat(")", depth / 2) + ";";
+            case "prefix operators":
+                return "x = " + repeat("!-", depth / 2) + "1;";
+            case "binops":
+                return "x = " + repeat("1 + (", depth) + "1" + repeat(")", depth) + ";";
+            default:
+                return "x = " + repeat("a[", depth) + "0" + repeat("]", depth) + ";";
+        }
+    }
+
+    // nested nodes in the tree of the named nesting, parentheses leave none
+    private static int nodes(String name, int depth) {
+        switch (name) {
+            case "blocks":
+                return 2 * depth;
+            case "parentheses":
+                return depth / 2;
+            default:
+                return depth;
+        }
+    }
+
+    // if, if-else and while statements nested in one another
+    private static String statements(int depth) {
+        StringBuilder source = new StringBuilder(depth * 12);
+        for (int i = 0; i < depth; i++) {
+            source.append(i % 3 == 0 ? "while (x) " : i % 3 == 1 ? "if (x) x = 2; else " : "if (x) ");
+        }
+        return source.append("x = 1;").toString();
+    }
+
+    private static String repeat(String text, int count) {
+        StringBuilder repeated = new StringBuilder(text.length() * count);
+        for (int i = 0; i < count; i++) {
+            repeated.append(text);
+        }
+        return repeated.toString();
+    }
+
+    // parse statements in a Java and a C program, check that both trees nest
+    // depth nodes, return the parsing time of the Java program in ns
+    private static long check(String name, String statements, int depth, boolean report) throws IOException {
+        char[] java = ("package p;\npublic class A {\nint x;\n" + statements + "\n}\n").toCharArray();
+        TokenBuffer tokens = new Lexer(java, java.length).tokenize();
+        Diagnostics diagnostics = new Diagnostics();
+        Parser parser = new Parser(tokens, diagnostics);
+        long startTime = System.nanoTime();
+        Program program = parser.parseProgram();
+        long time = System.nanoTime() - startTime;
+        verify(name + " (Parser)", program, diagnostics, depth, report);
+
+        char[] c = ("int main() {\nint x;\n" + statements + "\nreturn 0;\n}\n").toCharArray();
+        tokens = new LexerC(c, c.length).tokenize();
+        diagnostics = new Diagnostics();
+        program = new ParserC(tokens, diagnostics).parseProgram();
+        verify(name + " (ParserC)", program, diagnostics, depth, report);
+        return time;
+    }
+
+    private static void verify(String name, Program program, Diagnostics diagnostics, int depth, boolean report) {
+        int measured = depth(program.getStm().elementAt(0));
+        boolean passed = diagnostics.size() == 0 && measured == depth;
+        if (!passed) {
+            failures++;
+            System.out.println("FAILED " + name + ": depth " + measured + " of " + depth + ", "
+                    + diagnostics.size() + " errors");
+            diagnostics.print(System.out);
+        } else if (report) {
+            System.out.println("OK " + name);
+        }
+    }
+
+    // nested statements, or else nested expression nodes of an assignment,
+    // walked without recursion
+    private static int depth(Statement stm) {
+        int depth = 0;
+        while (true) {
+            if (stm instanceof If) {
+                If ifStm = (If) stm;
+                stm = ifStm.getFalseStm() != null ? ifStm.getFalseStm() : ifStm.getTrueStm();
+            } else if (stm instanceof While) {
+                stm = ((While) stm).getStm();
+            } else if (stm instanceof Block) {
+                stm = ((Block) stm).getStms().elementAt(0);
+            } else {
+                break;
+            }
+            depth++;
+        }
+        if (depth > 0) {
+            return depth;
+        }
+
+        Exp exp = ((Assign) stm).getValue();
+        while (true) {
+            if (exp instanceof Not) {
+                exp = ((Not) exp).getExp();
+            } else if (exp instanceof Negative) {
+                exp = ((Negative) exp).getExp();
+            } else if (exp instanceof Plus) {
+                exp = ((Plus) exp).getRHS();
+            } else if (exp instanceof ArrayLookup) {
+                exp = ((ArrayLookup) exp).getIndex();
+            } else {
+                return exp instanceof IntegerLiteral ? depth : -1;
+            }
+            depth++;
+        }
+    }
+}
@@ -3,18 +3,34 @@ package parser;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 import ast.Program;
+import lexer.Lexer;
+import lexer.TokenRing;
 import parser.Parser;
 import visitor.PrintVisitor;
 
 public class TestParser {
 
+    private static final int RING_CAPACITY = 4096; //tokens between lexer and parser threads
+
     public static void main(String[] args) throws IOException {
-        if (args.length == 0) {
+        // -pipelined: lex on a second thread while parsing
+        boolean pipelined = args.length > 0 && args[0].equals("-pipelined");
+        int first = pipelined ? 1 : 0;
+
+        if (args.length == first) {
             System.err.println("No file arguments givens");
         } else {
             // parse each file argument given
-            for (int i = 0; i < args.length; i++) {
+            for (int i = first; i < args.length; i++) {
+                if (pipelined) {
+                    parsePipelined(args[i]);
+                    continue;
+                }
+
                 FileReader file;
 
                 // attempt to open file
@@ -47,4 +63,42 @@ public class TestParser {
             }
         }
     }
+
+    // parse the tokens of a lexer opening the file on its own thread
+    private static void parsePipelined(String fileName) throws IOException {
+        // create lexer thread, reading the file while the parser waits for its first token
+        long startTime = System.currentTimeMillis();
+        TokenRing ring = Lexer.pipeline(Paths.get(fileName), RING_CAPACITY);
+
+        // initiate parse, lexing overlaps with it; closing the ring stops the
+        // lexer thread even if the parse fails
+        Parser parser;
+        Program program;
+        try {
+            parser = new Parser(ring);
+            System.out.println("Parsing " + fileName + "...");
+            program = parser.parseProgram();
+        } catch (UncheckedIOException e) {
+            // the lexer thread could not open the file
+            if (!(e.getCause() instanceof NoSuchFileException)) {
+                throw e.getCause();
+            }
+            System.err.println(fileName + " was not found!");
+            return; // try next file
+        } finally {
+            ring.close();
+        }
+        long endTime = System.currentTimeMillis();
+
+        // print out statistics
+        System.out.println("File has finished parsing!");
+        System.out.println("Execution time: " + (endTime - startTime) + "ms");
+        System.out.println(parser.getErrors() + " errors reported");
+        System.out.println("---");
+
+        // print out ASTs
+        PrintVisitor printer = new PrintVisitor();
+        printer.visit(program);
+        System.out.println();
+    }
 }
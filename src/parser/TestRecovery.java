@@ -0,0 +1,158 @@
+package parser;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+import ast.*;
+import lexer.Bench;
+import lexer.Diagnostics;
+import lexer.Lexer;
+import lexer.TokenBuffer;
+import lexerC.LexerC;
+import parserC.ParserC;
+
+// test of the panic mode recovery of Parser and ParserC: programs with one
+// mistake each must report one error and still give a tree where the broken
+// statement or expression is an error node, never null, with the statements
+// around it intact. Then files of random tokens of growing sizes show that
+// the caps on errors and skipped tokens keep the cost of garbage linear
+public class TestRecovery {
+
+    private static final int GARBAGE = 1000000; //tokens of the largest garbage file
+    private static final int MAX_ERRORS = 101; //errors of Parser at its cap, with the one stopping it
+
+    // statements with one mistake, and the statements the tree must hold for them
+    private static final String[][] CASES = {
+            {"x = ;", "Assign"},
+            {"print \"ds\"; x = 1;", "ErrorStatement Assign"},
+            {"x = 1 y = 2;", "Assign Assign"},
+            {"x = 1 + * 2; x = 3;", "Assign Assign"},
+            {"if x > 1) x = 2; x = 3;", "If Assign"},
+            {"while (x > 1 { x = 2; } x = 3;", "While Assign"},
+            {"x[y] = 1; x = 2;", "ErrorStatement Assign"},
+            {"x[1 = 2; x = 3;", "ArrayAssign Assign"},
+            {"; x = 1;", "ErrorStatement Assign"},
+            {"if (x) else x = 1; x = 2;", "If Assign"},
+            {"while (x) { x = 1; ) x = 2; } x = 3;", "While Assign"},
+    };
+
+    // tokens of the garbage files, but '}' which would end the class early
+    private static final String[] VOCABULARY = {"x", "=", "1", "2.5", ";", "(", ")", "{", "[", "]", "+",
+            "*", "<", "!", "if", "else", "while", "int", "\"s\"", "'c'", "true", ","};
+
+    private static final Bench BENCH = new Bench(1);
+
+    private static int failures;
+
+    public static void main(String[] args) throws IOException {
+        for (String[] mistake : CASES) {
+            check(mistake[0], mistake[1]);
+        }
+
+        // warm up, then compare garbage files a hundred times apart
+        for (int round = 0; round < 5; round++) {
+            garbage(GARBAGE / 100, false);
+        }
+        System.out.println("Parsing " + GARBAGE + " tokens of garbage...");
+        long smallTime = garbage(GARBAGE / 100, true);
+        long largeTime = garbage(GARBAGE, true);
+        System.out.printf("%d tokens: %.2f ms, %d tokens: %.2f ms%n", GARBAGE / 100, smallTime / 1e6, GARBAGE,
+                largeTime / 1e6);
+
+        System.out.println("---");
+        System.out.println(failures == 0 ? "All recoveries passed" : failures + " recoveries failed");
+    }
+
+    // parse statements with one mistake in a Java and a C program
+    private static void check(String statements, String expected) throws IOException {
+        char[] java = ("package p;\npublic class A {\nint x;\n" + statements + "\n}\n").toCharArray();
+        Diagnostics diagnostics = new Diagnostics();
+        Program program = new Parser(new Lexer(java, java.length).tokenize(), diagnostics).parseProgram();
+        verify(statements + " (Parser)", program, diagnostics, expected);
+
+        char[] c = ("int main() {\nint x;\n" + statements + "\nreturn 0;\n}\n").toCharArray();
+        diagnostics = new Diagnostics();
+        program = new ParserC(new LexerC(c, c.length).tokenize(), diagnostics).parseProgram();
+        verify(statements + " (ParserC)", program, diagnostics, expected);
+    }
+
+    private static void verify(String name, Program program, Diagnostics diagnostics, String expected) {
+        StringBuilder statements = new StringBuilder();
+        for (Statement stm : program.getStm().getList()) {
+            statements.append(statements.length() > 0 ? " " : "").append(stm == null ? "null" : stm.getClass()
+                    .getSimpleName());
+        }
+        boolean passed = diagnostics.size() == 1 && statements.toString().equals(expected) && complete(program);
+        if (!passed) {
+            failures++;
+            System.out.println("FAILED " + name + ": " + statements + " of " + expected + ", "
+                    + diagnostics.size() + " errors");
+            diagnostics.print(System.out);
+        } else {
+            System.out.println("OK " + name);
+        }
+    }
+
+    // parse random tokens in a Java program, check that errors stay under the
+    // cap and the tree has no nulls, return the parsing time in ns
+    private static long garbage(int count, boolean report) throws IOException {
+        StringBuilder source = new StringBuilder("package p;\npublic class A {\nint x;\n");
+        for (int i = 0; i < count; i++) {
+            source.append(BENCH.pick(VOCABULARY)).append(i % 16 == 15 ? '\n' : ' ');
+        }
+        char[] java = source.append("\n}\n").toString().toCharArray();
+        TokenBuffer tokens = new Lexer(java, java.length).tokenize();
+        Diagnostics diagnostics = new Diagnostics();
+        Parser parser = new Parser(tokens, diagnostics);
+        long startTime = System.nanoTime();
+        Program program = parser.parseProgram();
+        long time = System.nanoTime() - startTime;
+
+        boolean passed = parser.getErrors() > 0 && parser.getErrors() <= MAX_ERRORS && complete(program);
+        if (!passed) {
+            failures++;
+            System.out.println("FAILED " + count + " tokens of garbage: " + parser.getErrors() + " errors");
+        } else if (report) {
+            System.out.println("OK " + count + " tokens of garbage, " + parser.getErrors() + " errors");
+        }
+        return time;
+    }
+
+    // no null statement or expression is left in the tree, walked without recursion
+    private static boolean complete(Program program) {
+        ArrayDeque<Object> nodes = new ArrayDeque<>();
+        for (Statement stm : program.getStm().getList()) {
+            if (stm == null) {
+                return false;
+            }
+            nodes.push(stm);
+        }
+        while (!nodes.isEmpty()) {
+            Object node = nodes.pop();
+            Object[] children;
+            if (node instanceof Block) {
+                children = ((Block) node).getStms().getList().toArray();
+            } else if (node instanceof If) {
+                If ifStm = (If) node;
+                children = ifStm.getFalseStm() != null
+                        ? new Object[]{ifStm.getCondExp(), ifStm.getTrueStm(), ifStm.getFalseStm()}
+                        : new Object[]{ifStm.getCondExp(), ifStm.getTrueStm()};
+            } else if (node instanceof While) {
+                children = new Object[]{((While) node).getCondExp(), ((While) node).getStm()};
+            } else if (node instanceof Assign) {
+                children = new Object[]{((Assign) node).getValue()};
+            } else if (node instanceof ArrayAssign) {
+                children = new Object[]{((ArrayAssign) node).getIndex(), ((ArrayAssign) node).getValue()};
+            } else {
+                continue;
+            }
+            for (Object child : children) {
+                if (child == null) {
+                    return false;
+                }
+                nodes.push(child);
+            }
+        }
+        return true;
+    }
+}
@@ -3,22 +3,75 @@ package parserC;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import ast.*;
 import lexerC.LexerC;
-import lexerC.TokenC;
+import lexer.Diagnostics;
+import lexer.SymbolInterner;
+import lexer.TokenBuffer;
+import lexer.TokenSource;
 import lexerC.TokenTypeC;
 
 public class ParserC {
 
-    private LexerC lexer;
-    private TokenC token;
-    private TokenC errorToken;
-
-    // hash table for operator precedence levels
-    private final static Map<TokenTypeC, Integer> binopLevels;
+    private static final TokenTypeC[] TYPES = TokenTypeC.values(); //token types by ordinal
+
+    private TokenSource tokens; //token stream, ends with EOF
+    private byte[] types; //token type ordinals of a pre-lexed buffer, null for a streamed source
+    private SymbolInterner symbols; //identifier names by symbol id
+    private int cursor; //index of the current token
+    private TokenTypeC tokenType; //type of the current token
+    private int errorIndex = -1; //index of the last reported token
+    private boolean recovering; //an error was reported and no token matched since
+    private boolean stopped; //too many errors or skipped tokens, the rest of the file is skipped
+    private int skipped; //tokens skipped while recovering
+    private final Diagnostics diagnostics; //collector of the syntax errors
+
+    // binding power of each token type as a binary or postfix operator, by
+    // ordinal (0 for tokens that end an expression)
+    private final static int[] binopPowers = new int[TYPES.length];
+
+    // binding power of prefix operators: above every binop but array lookup,
+    // so -a + b is (-a) + b and -a[i] is -(a[i])
+    private final static int PREFIX_POWER = 45;
+
+    // tokens opening an operator before a primary expression, by ordinal
+    private final static boolean[] prefixes = new boolean[TYPES.length];
+
+    // recovery sets of panic mode, bit masks over token type ordinals made of
+    // the FIRST and FOLLOW sets of the grammar
+    private final static long FIRST_STATEMENT; //FIRST(Statement)
+    private final static long FIRST_PRIMARY; //FIRST(PrimaryExp)
+    private final static long FIRST_EXP; //FIRST(Exp): a primary or a prefix
+    private final static long FOLLOW_STATEMENT; //FOLLOW(Statement)
+    private final static long FOLLOW_STATEMENT_LIST; //FOLLOW(StatementList)
+    private final static long FOLLOW_EXP; //FOLLOW(Exp) and the binops going on with an Exp
+    private final static long SYNC_STATEMENT; //FOLLOW(Statement) and the ';' ending a broken statement
+    private final static long SYNC_UNKNOWN; //SYNC_STATEMENT but the identifiers a statement of no known type holds
+    private final static long SYNC_EXP; //where a broken expression may go on or end
+
+    // per file limits of panic mode, the rest of the file is skipped past either
+    private final static int MAX_ERRORS = 100;
+    private final static int MAX_SKIPPED = 10000; //tokens skipped while recovering
+
+    // kinds of the compound statements open on the statement stack
+    private final static int STM_IF = 0;
+    private final static int STM_ELSE = 1;
+    private final static int STM_WHILE = 2;
+    private final static int STM_BLOCK = 3;
+
+    // statement stack: compound statements waiting for a nested statement, by depth
+    private int[] stmKinds = new int[16];
+    private Exp[] stmConds = new Exp[16]; //condition of an if or while
+    private Statement[] stmTrue = new Statement[16]; //true statement of an if with else
+    private StatementList[] stmLists = new StatementList[16]; //statements of a block so far
+    private int stmDepth;
+
+    // expression stack: operators waiting for their operand, by depth
+    private TokenTypeC[] expOps = new TokenTypeC[16]; //NOT, NEGATIVE, LPAREN, LBRACKET or a binop
+    private Exp[] expLhs = new Exp[16]; //lhs of a binop or array lookup
+    private int[] expPowers = new int[16]; //power of the expression the operator is in
 
     private ArrayList<VarDecl> decelarations; //declarations symbol table
     private ArrayList<Identifier> identifiers; //identifiers symbol table
@@ -28,36 +81,113 @@ public class ParserC {
     private int errors;
 
     static {
-        binopLevels = new HashMap<TokenTypeC, Integer>();
-        binopLevels.put(TokenTypeC.AND, 10);
-        binopLevels.put(TokenTypeC.OR, 10);
-        binopLevels.put(TokenTypeC.LT, 20);
-        binopLevels.put(TokenTypeC.RT, 20);
-        binopLevels.put(TokenTypeC.LT_EQ, 20);
-        binopLevels.put(TokenTypeC.RT_EQ, 20);
-        binopLevels.put(TokenTypeC.EQ, 20);
-        binopLevels.put(TokenTypeC.NEQ, 20);
-        binopLevels.put(TokenTypeC.PLUS, 30);
-        binopLevels.put(TokenTypeC.MINUS, 30);
-        binopLevels.put(TokenTypeC.TIMES, 40);
-        binopLevels.put(TokenTypeC.DIV, 40);
-        binopLevels.put(TokenTypeC.MOD, 40);
-        binopLevels.put(TokenTypeC.LBRACKET, 50);
+        binopPowers[TokenTypeC.AND.ordinal()] = 10;
+        binopPowers[TokenTypeC.OR.ordinal()] = 10;
+        binopPowers[TokenTypeC.LT.ordinal()] = 20;
+        binopPowers[TokenTypeC.RT.ordinal()] = 20;
+        binopPowers[TokenTypeC.LT_EQ.ordinal()] = 20;
+        binopPowers[TokenTypeC.RT_EQ.ordinal()] = 20;
+        binopPowers[TokenTypeC.EQ.ordinal()] = 20;
+        binopPowers[TokenTypeC.NEQ.ordinal()] = 20;
+        binopPowers[TokenTypeC.PLUS.ordinal()] = 30;
+        binopPowers[TokenTypeC.MINUS.ordinal()] = 30;
+        binopPowers[TokenTypeC.TIMES.ordinal()] = 40;
+        binopPowers[TokenTypeC.DIV.ordinal()] = 40;
+        binopPowers[TokenTypeC.MOD.ordinal()] = 40;
+        binopPowers[TokenTypeC.LBRACKET.ordinal()] = 50;
+
+        prefixes[TokenTypeC.LPAREN.ordinal()] = true;
+        prefixes[TokenTypeC.NOT.ordinal()] = true;
+        prefixes[TokenTypeC.MINUS.ordinal()] = true;
+        prefixes[TokenTypeC.NEGATIVE.ordinal()] = true;
+
+        // Statement ::= Block | IfStatement | WhileStatement | identifier = Exp | identifier '['Exp']' = Exp
+        FIRST_STATEMENT = mask(TokenTypeC.LBRACE, TokenTypeC.IF, TokenTypeC.WHILE, TokenTypeC.ID);
+        // PrimaryExp ::= INT_CONST | FLOAT_CONST | CHAR_CONST | BOOLEAN_CONST | STRING_CONTS | Identifier
+        FIRST_PRIMARY = mask(TokenTypeC.INT_CONST, TokenTypeC.FLOAT_CONST, TokenTypeC.CHAR_CONST,
+                TokenTypeC.BOOLEAN_CONST, TokenTypeC.STRING_CONTS, TokenTypeC.ID);
+        long first = FIRST_PRIMARY;
+        for (TokenTypeC type : TYPES) {
+            if (prefixes[type.ordinal()]) {
+                first |= mask(type);
+            }
+        }
+        FIRST_EXP = first;
+        // a statement is followed by the next statement of its list, the else
+        // of an if, the '}' of a block, the printf or return ending main or
+        // the end of the file
+        FOLLOW_STATEMENT = FIRST_STATEMENT | mask(TokenTypeC.ELSE, TokenTypeC.RBRACE, TokenTypeC.PRINTF,
+                TokenTypeC.RETURN, TokenTypeC.EOF);
+        FOLLOW_STATEMENT_LIST = mask(TokenTypeC.RBRACE, TokenTypeC.PRINTF, TokenTypeC.RETURN, TokenTypeC.EOF);
+        // an expression ends an assignment, a condition, parentheses or an
+        // index, or goes on with a binop
+        long follow = mask(TokenTypeC.SEMI, TokenTypeC.RPAREN, TokenTypeC.RBRACKET);
+        for (TokenTypeC type : TYPES) {
+            if (binopPowers[type.ordinal()] > 0) {
+                follow |= mask(type);
+            }
+        }
+        FOLLOW_EXP = follow;
+        SYNC_STATEMENT = FOLLOW_STATEMENT | mask(TokenTypeC.SEMI);
+        SYNC_UNKNOWN = SYNC_STATEMENT & ~mask(TokenTypeC.ID);
+        SYNC_EXP = FOLLOW_EXP | FOLLOW_STATEMENT | FIRST_PRIMARY;
+    }
+
+    // set of token types, as a bit mask over their ordinals
+    private static long mask(TokenTypeC... types) {
+        long mask = 0;
+        for (TokenTypeC type : types) {
+            mask |= 1L << type.ordinal();
+        }
+        return mask;
     }
 
     public ParserC(FileReader file) throws IOException {
-        this.lexer = new LexerC(file);
-        this.token = lexer.getToken();
+        this(new LexerC(file).tokenize());
+    }
+
+    // parse a lexed or streamed token source (must end with an EOF token)
+    public ParserC(TokenSource tokens) {
+        this(tokens, new Diagnostics(System.err));
+    }
+
+    // parse a token source, reporting syntax errors to diagnostics
+    public ParserC(TokenSource tokens, Diagnostics diagnostics) {
+        this.tokens = tokens;
+        this.diagnostics = diagnostics;
+        this.symbols = tokens.getSymbols();
+        this.tokenType = TYPES[tokens.getType(0)];
         this.decelarations = new ArrayList<VarDecl>();
         this.identifiers = new ArrayList<Identifier>();
         this.assigns = new ArrayList<Assign>();
         this.conditions = new ArrayList<Exp>();
     }
 
+    // parse a pre-lexed token buffer, reading token types straight from its array;
+    // the buffer is not changed, so one lex can feed several parses
+    public ParserC(TokenBuffer tokens) {
+        this(tokens, new Diagnostics(System.err));
+    }
+
+    // parse a pre-lexed token buffer, reporting syntax errors to diagnostics
+    public ParserC(TokenBuffer tokens, Diagnostics diagnostics) {
+        this((TokenSource) tokens, diagnostics);
+        this.types = tokens.getTypes();
+    }
+
+    // move to the next token, staying on the trailing EOF token
+    private void advance() {
+        if (tokenType != TokenTypeC.EOF) {
+            cursor++;
+            tokenType = TYPES[types != null ? types[cursor] : tokens.getType(cursor)];
+        }
+    }
+
     // verifies current token type and grabs next token or reports error
     private boolean eat(TokenTypeC type) throws IOException {
-        if (token.getType() == type) {
-            token = lexer.getToken();
+        if (tokenType == type) {
+            advance();
+            recovering = false;
             return true;
         } else {
             error(type);
@@ -65,39 +195,101 @@ public class ParserC {
         }
     }
 
-    // reports an error to the console
+    // reports an error to the diagnostics
     private void error(TokenTypeC type) {
-        // only report error once per erroneous token
-        if (token == errorToken) {
+        // only report error once per erroneous token, and not again before a
+        // token matched, so one mistake makes one message
+        if (cursor == errorIndex || recovering || stopped) {
             return;
         }
 
-        // print error report
-        System.err.print("ERROR: " + token.getType());
-        System.err.print(" at line " + token.getLineNumber() + ", column " + token.getColumnNumber());
-        System.err.println("; Expected " + type);
+        // report error
+        diagnostics.report("ERROR: " + tokenType + " at line " + tokens.getLineNumber(cursor)
+                + ", column " + tokens.getColumnNumber(cursor) + "; Expected " + type);
 
-        errorToken = token; // set error token to prevent cascading
+        errorIndex = cursor; // set error token to prevent cascading
+        recovering = true;
         errors++; // increment error counter
+        if (errors >= MAX_ERRORS) {
+            stop();
+        }
     }
 
-    // skip tokens until match in follow set for error recovery
-    private void skipTo(TokenTypeC... follow) throws IOException {
-        while (token.getType() != TokenTypeC.EOF) {
-            for (TokenTypeC skip : follow) {
-                if (token.getType() == skip) {
-                    return;
-                }
+    // skip tokens until one in the recovery set or the end of the file
+    private void skipTo(long set) {
+        while (tokenType != TokenTypeC.EOF && (set & 1L << tokenType.ordinal()) == 0) {
+            skip();
+        }
+    }
+
+    // pass a token while recovering, giving up after too many
+    private void skip() {
+        advance();
+        if (++skipped > MAX_SKIPPED && !stopped) {
+            stop();
+        }
+    }
+
+    // give up on a file too broken to be worth recovering from: every loop
+    // of the parser ends at EOF, so the trees still open close at once
+    private void stop() {
+        diagnostics.report("ERROR: too many errors at line " + tokens.getLineNumber(cursor) + ", column "
+                + tokens.getColumnNumber(cursor) + "; parsing stopped");
+        errors++;
+        stopped = true;
+        while (tokenType != TokenTypeC.EOF) {
+            advance();
+        }
+    }
+
+    // ';' ending a statement, or else skip to the next statement
+    private void endStatement() throws IOException {
+        if (!eat(TokenTypeC.SEMI)) {
+            skipTo(SYNC_STATEMENT);
+            if (tokenType == TokenTypeC.SEMI) {
+                eat(TokenTypeC.SEMI);
             }
-            token = lexer.getToken();
         }
     }
 
+    // statement type unknown: report it, then skip it up to the ';' ending it
+    // or to what follows a statement. At least one token but a '}', EOF or
+    // the else of the if waiting for this statement is passed, so no
+    // statement loop stalls on it. The identifiers recorded since index
+    // recorded of the identifiers table belong to the dropped statement and
+    // are removed, so the side tables hold what the tree holds
+    private Statement recoverStatement(TokenTypeC expected, int recorded) throws IOException {
+        error(expected);
+        identifiers.subList(recorded, identifiers.size()).clear();
+        boolean awaited = tokenType == TokenTypeC.ELSE && stmDepth > 0 && stmKinds[stmDepth - 1] == STM_IF;
+        if (tokenType != TokenTypeC.RBRACE && tokenType != TokenTypeC.EOF && !awaited) {
+            boolean semi = tokenType == TokenTypeC.SEMI;
+            skip();
+            if (semi) {
+                return new ErrorStatement();
+            }
+        }
+        skipTo(SYNC_UNKNOWN);
+        if (tokenType == TokenTypeC.SEMI) {
+            eat(TokenTypeC.SEMI);
+        }
+        return new ErrorStatement();
+    }
+
     // number of reported syntax errors
     public int getErrors() {
         return errors;
     }
 
+    // collector of the syntax errors, shared with a semantic analyzer of this parser
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    public SymbolInterner getSymbols() {
+        return symbols;
+    }
+
     public ArrayList<VarDecl> getDecelarations() {
         return decelarations;
     }
@@ -116,7 +308,7 @@ public class ParserC {
 
     // Program ::= int main '('')' { Declarations StatementList }
     public Program parseProgram() throws IOException {
-        while (token.getType() == TokenTypeC.ASTERISC) {
+        while (tokenType == TokenTypeC.ASTERISC) {
             eat(TokenTypeC.ASTERISC);
             eat(TokenTypeC.INCLUDE);
             eat(TokenTypeC.LT);
@@ -133,7 +325,7 @@ public class ParserC {
 
         Declarations declarations = parseDeclarations();
         StatementList statementList = parseStatementList();
-        while (token.getType() == TokenTypeC.PRINTF) {
+        while (tokenType == TokenTypeC.PRINTF) {
             eat(TokenTypeC.PRINTF);
             eat(TokenTypeC.LPAREN);
             eat(TokenTypeC.STRING_CONTS);
@@ -153,8 +345,8 @@ public class ParserC {
     private Declarations parseDeclarations() throws IOException {
         Declarations declarations = new Declarations();
 
-        while (token.getType() == TokenTypeC.INT || token.getType() == TokenTypeC.FLOAT
-                || token.getType() == TokenTypeC.BOOLEAN || token.getType() == TokenTypeC.CHAR) {
+        while (tokenType == TokenTypeC.INT || tokenType == TokenTypeC.FLOAT
+                || tokenType == TokenTypeC.BOOLEAN || tokenType == TokenTypeC.CHAR) {
             declarations.addElement(parseVarDecList());
         }
 
@@ -168,11 +360,11 @@ public class ParserC {
         varDeclList.addElement(varDecl);
         getDecelarations().add(varDecl);
         
-        if(token.getType()==TokenTypeC.ASSIGN){
+        if(tokenType==TokenTypeC.ASSIGN){
             parseStatement();
         }
         // check for additional varDecl
-        while (token.getType() == TokenTypeC.COMMA) {
+        while (tokenType == TokenTypeC.COMMA) {
             eat(TokenTypeC.COMMA);
             VarDecl newVarDecl = new VarDecl(varDecl.getType(), parseIdentifier());
             varDeclList.addElement(newVarDecl);
@@ -200,18 +392,18 @@ public class ParserC {
 	 * boolean[integer] (BooleanArrayType)
      */
     private Type parseType() throws IOException {
-        switch (token.getType()) {
+        switch (tokenType) {
 
             case INT:
                 eat(TokenTypeC.INT);
 
                 // check for integer array type
-                if (token.getType() == TokenTypeC.LBRACKET) {
+                if (tokenType == TokenTypeC.LBRACKET) {
                     eat(TokenTypeC.LBRACKET);
 
                     // check array size integer
                     if (eat(TokenTypeC.INT_CONST)) {
-                        if (token.getType() == TokenTypeC.RBRACKET) {
+                        if (tokenType == TokenTypeC.RBRACKET) {
                             eat(TokenTypeC.RBRACKET);
                             return new IntegerArrayType();
                         }
@@ -227,12 +419,12 @@ public class ParserC {
                 eat(TokenTypeC.FLOAT);
 
                 // check for integer array type
-                if (token.getType() == TokenTypeC.LBRACKET) {
+                if (tokenType == TokenTypeC.LBRACKET) {
                     eat(TokenTypeC.LBRACKET);
 
                     // check array size integer
                     if (eat(TokenTypeC.INT_CONST)) {
-                        if (token.getType() == TokenTypeC.RBRACKET) {
+                        if (tokenType == TokenTypeC.RBRACKET) {
                             eat(TokenTypeC.RBRACKET);
                             return new FloatArrayType();
                         }
@@ -248,12 +440,12 @@ public class ParserC {
                 eat(TokenTypeC.BOOLEAN);
 
                 // check for integer array type
-                if (token.getType() == TokenTypeC.LBRACKET) {
+                if (tokenType == TokenTypeC.LBRACKET) {
                     eat(TokenTypeC.LBRACKET);
 
                     // check array size integer
                     if (eat(TokenTypeC.INT_CONST)) {
-                        if (token.getType() == TokenTypeC.RBRACKET) {
+                        if (tokenType == TokenTypeC.RBRACKET) {
                             eat(TokenTypeC.RBRACKET);
                             return new BooleanArrayType();
                         }
@@ -269,12 +461,12 @@ public class ParserC {
                 eat(TokenTypeC.CHAR);
 
                 // check for integer array type
-                if (token.getType() == TokenTypeC.LBRACKET) {
+                if (tokenType == TokenTypeC.LBRACKET) {
                     eat(TokenTypeC.LBRACKET);
 
                     // check array size integer
                     if (eat(TokenTypeC.INT_CONST)) {
-                        if (token.getType() == TokenTypeC.RBRACKET) {
+                        if (tokenType == TokenTypeC.RBRACKET) {
                             eat(TokenTypeC.RBRACKET);
                             return new CharArrayType();
                         }
@@ -294,13 +486,18 @@ public class ParserC {
         }
     }
 
+    // Identifier node for the current ID token, named by its symbol id
+    private Identifier newIdentifier() {
+        return new Identifier(tokens.getName(cursor), tokens.getSymbol(cursor));
+    }
+
     // Identifier ::= Letter { Letter | Digit }
     private Identifier parseIdentifier() throws IOException {
         Identifier identifier = null;
 
         // grab ID value if token type is ID
-        if (token.getType() == TokenTypeC.ID) {
-            identifier = new Identifier(token.getAttribute().getIdVal());
+        if (tokenType == TokenTypeC.ID) {
+            identifier = newIdentifier();
         }
 
         eat(TokenTypeC.ID);
@@ -311,126 +508,149 @@ public class ParserC {
     // StatementList ::= { Statement }
     private StatementList parseStatementList() throws IOException {
         StatementList statementList = new StatementList();
-        while (isStatement()) {
+        // up to what follows the list, any token starts a statement, the
+        // broken ones being recovered as error statements
+        while ((FOLLOW_STATEMENT_LIST & 1L << tokenType.ordinal()) == 0) {
             statementList.addElement(parseStatement());
         }
         return statementList;
     }
 
-    // checks the beginning of a new statement 
-    private boolean isStatement() {
-        switch (token.getType()) {
-            case SEMI:
-            case IF:
-            case WHILE:
-            case LPAREN:
-            case LBRACE:
-            case ID:
-                return true;
-            default:
-                return false;
-        }
-    }
-
     // Statement ::= Block | IfStatement | WhileStatement | identifier = Exp | identifier '['Exp']' = Exp
+    // if, else and while statements waiting for their body and blocks waiting
+    // for their next statement go on the statement stack, so any nesting
+    // depth parses in this one loop
     private Statement parseStatement() throws IOException {
-
-        // IfStatement ::=  if '('Exp')' Statement [else Statement]
-        if (token.getType() == TokenTypeC.IF) {
-            eat(TokenTypeC.IF);
-
-            // parse conditional expression
-            if (!eat(TokenTypeC.LPAREN)) {
-                skipTo(TokenTypeC.RPAREN, TokenTypeC.LBRACE, TokenTypeC.RBRACE);
-            }
-
-            Exp condExp = parseExp();
-            conditions.add(condExp);
-
-            /*if(condExp instanceof IdentifierExp){
-				IdentifierExp idExp = (IdentifierExp) condExp;
-				Identifier identifier = new Identifier(idExp.getName());
-				identifiers.add(identifier);
-			}*/
-            if (!eat(TokenTypeC.RPAREN)) {
-                skipTo(TokenTypeC.LBRACE, TokenTypeC.SEMI, TokenTypeC.RBRACE);
-            }
-
-            // parse true and false statements
-            Statement trueStm;
-
-            // BLock ::= '{' StatementList '}' 
-            if (token.getType() == TokenTypeC.LBRACE) {
-                trueStm = parseBlock();
-            } else // parse true statement
-            {
-                trueStm = parseStatement();
-            }
-
-            if (token.getType() == TokenTypeC.ELSE) {
-                if (!eat(TokenTypeC.ELSE)) {
-                    skipTo(TokenTypeC.LBRACE, TokenTypeC.SEMI, TokenTypeC.RBRACE);
+        int base = stmDepth;
+        boolean body = false; //next statement is the body of an if, else or while, which may be a block
+        Statement stm;
+        descend:
+        while (true) {
+            // open compound statements until one is complete
+            if (body && tokenType == TokenTypeC.LBRACE) {
+                // Block ::= '{' StatementList '}'
+                eat(TokenTypeC.LBRACE);
+                if (tokenType != TokenTypeC.RBRACE && tokenType != TokenTypeC.EOF) {
+                    pushStatement(STM_BLOCK, null, null, new StatementList());
+                    body = false;
+                    continue;
                 }
+                stm = closeBlock(new StatementList());
+            } else if (tokenType == TokenTypeC.IF) {
+                // IfStatement ::=  if '('Exp')' Statement [else Statement]
+                eat(TokenTypeC.IF);
+                pushStatement(STM_IF, parseCondition(), null, null);
+                body = true;
+                continue;
+            } else if (tokenType == TokenTypeC.WHILE) {
+                // WhileStatement ::= while '('Exp')' Statement
+                eat(TokenTypeC.WHILE);
+                pushStatement(STM_WHILE, parseCondition(), null, null);
+                body = true;
+                continue;
+            } else {
+                stm = parseSimpleStatement();
+            }
 
-                Statement falseStm;
-
-                // BLock ::= '{' StatementList '}' 
-                if (token.getType() == TokenTypeC.LBRACE) {
-                    falseStm = parseBlock();
-                } else // parse false statement
-                {
-                    falseStm = parseStatement();
+            // complete the open statements waiting for stm
+            while (stmDepth > base) {
+                int top = stmDepth - 1;
+                switch (stmKinds[top]) {
+                    case STM_IF:
+                        if (tokenType == TokenTypeC.ELSE) {
+                            if (!eat(TokenTypeC.ELSE)) {
+                                skipTo(SYNC_STATEMENT);
+                            }
+                            stmKinds[top] = STM_ELSE;
+                            stmTrue[top] = stm;
+                            body = true;
+                            continue descend;
+                        }
+                        stm = new If(stmConds[top], stm, null);
+                        break;
+                    case STM_ELSE:
+                        stm = new If(stmConds[top], stmTrue[top], stm);
+                        break;
+                    case STM_WHILE:
+                        stm = new While(stmConds[top], stm);
+                        break;
+                    default:
+                        stmLists[top].addElement(stm);
+                        if (tokenType != TokenTypeC.RBRACE && tokenType != TokenTypeC.EOF) {
+                            body = false;
+                            continue descend;
+                        }
+                        stm = closeBlock(stmLists[top]);
+                        break;
                 }
-
-                return new If(condExp, trueStm, falseStm);
+                popStatement();
             }
-            return new If(condExp, trueStm, null);
+            return stm;
         }
+    }
 
+    // open a compound statement on the statement stack
+    private void pushStatement(int kind, Exp condExp, Statement trueStm, StatementList stms) {
+        if (stmDepth == stmKinds.length) {
+            int capacity = stmDepth * 2;
+            stmKinds = Arrays.copyOf(stmKinds, capacity);
+            stmConds = Arrays.copyOf(stmConds, capacity);
+            stmTrue = Arrays.copyOf(stmTrue, capacity);
+            stmLists = Arrays.copyOf(stmLists, capacity);
+        }
+        stmKinds[stmDepth] = kind;
+        stmConds[stmDepth] = condExp;
+        stmTrue[stmDepth] = trueStm;
+        stmLists[stmDepth] = stms;
+        stmDepth++;
+    }
 
-        // WhileStatement ::= while '('Exp')' Statement
-        if (token.getType() == TokenTypeC.WHILE) {
-            eat(TokenTypeC.WHILE);
+    // close the innermost compound statement, dropping its references
+    private void popStatement() {
+        stmDepth--;
+        stmConds[stmDepth] = null;
+        stmTrue[stmDepth] = null;
+        stmLists[stmDepth] = null;
+    }
 
-            // parse looping condition
-            if (!eat(TokenTypeC.LPAREN)) {
-                skipTo(TokenTypeC.RPAREN, TokenTypeC.LBRACE, TokenTypeC.RBRACE);
-            }
+    // '('Exp')' of an if or while statement
+    private Exp parseCondition() throws IOException {
+        if (!eat(TokenTypeC.LPAREN)) {
+            skipTo(FIRST_EXP | mask(TokenTypeC.RPAREN) | SYNC_STATEMENT);
+        }
 
-            Exp condExp = parseExp();
-            conditions.add(condExp);
+        Exp condExp = parseExp();
+        conditions.add(condExp);
 
-            /*if(condExp instanceof IdentifierExp){
-				IdentifierExp idExp = (IdentifierExp) condExp;
-				Identifier identifier = new Identifier(idExp.getName());
-				identifiers.add(identifier);
-			}*/
-            if (!eat(TokenTypeC.RPAREN)) {
-                skipTo(TokenTypeC.LBRACE, TokenTypeC.SEMI, TokenTypeC.RBRACE);
-            }
+        if (!eat(TokenTypeC.RPAREN)) {
+            skipTo(SYNC_STATEMENT);
+        }
+        return condExp;
+    }
 
-            Statement loopStm;
+    // '}' ending the block of stms
+    private Block closeBlock(StatementList stms) throws IOException {
+        if (!eat(TokenTypeC.RBRACE)) {
+            skipTo(mask(TokenTypeC.RBRACE, TokenTypeC.SEMI));
+        }
 
-            // BLock ::= '{' StatementList '}' 
-            if (token.getType() == TokenTypeC.LBRACE) {
-                loopStm = parseBlock();
-            } else // parse looping statement
-            {
-                loopStm = parseStatement();
-            }
+        return new Block(stms);
+    }
 
-            return new While(condExp, loopStm);
-        }
+    // identifier = Exp ; | identifier '['Exp']' = Exp ;
+    // statements without nested statements
+    private Statement parseSimpleStatement() throws IOException {
+        int recorded = identifiers.size();
 
         // Identifier statement
-        if (token.getType() == TokenTypeC.ID) {
+        if (tokenType == TokenTypeC.ID) {
 
-            Identifier id = new Identifier(token.getAttribute().getIdVal());
+            Identifier id = newIdentifier();
             identifiers.add(id);
             eat(TokenTypeC.ID);
 
             // Assignment statement: id = Exp ;
-            if (token.getType() == TokenTypeC.ASSIGN) {
+            if (tokenType == TokenTypeC.ASSIGN) {
                 eat(TokenTypeC.ASSIGN);
                 Exp value = parseExp();
 
@@ -439,7 +659,7 @@ public class ParserC {
 					Identifier identifier = new Identifier(idExp.getName());
 					identifiers.add(identifier);
 				}*/
-                eat(TokenTypeC.SEMI);
+                endStatement();
 
                 Assign assign = new Assign(id, value);
                 assigns.add(assign);
@@ -447,23 +667,21 @@ public class ParserC {
             }
 
             // Array value assignment statement: id [ Exp ] = Exp ;
-            if (token.getType() == TokenTypeC.LBRACKET) {
+            if (tokenType == TokenTypeC.LBRACKET) {
                 eat(TokenTypeC.LBRACKET);
                 Exp index = parseExp();
 
                 if (!(index instanceof IntegerLiteral)) {
                     // statement type unknown
-                    eat(TokenTypeC.TYPE);
-                    token = lexer.getToken();
-                    return null;
+                    return recoverStatement(TokenTypeC.TYPE, recorded);
                 }
 
                 if (!eat(TokenTypeC.RBRACKET)) {
-                    skipTo(TokenTypeC.ASSIGN, TokenTypeC.SEMI);
+                    skipTo(mask(TokenTypeC.ASSIGN) | SYNC_STATEMENT);
                 }
 
                 if (!eat(TokenTypeC.ASSIGN)) {
-                    skipTo(TokenTypeC.SEMI);
+                    skipTo(FIRST_EXP | SYNC_STATEMENT);
                 }
 
                 Exp value = parseExp();
@@ -473,7 +691,7 @@ public class ParserC {
 					Identifier identifier = new Identifier(idExp.getName());
 					identifiers.add(identifier);
 				}*/
-                eat(TokenTypeC.SEMI);
+                endStatement();
 
                 Assign assign = new Assign(id, value);
                 assigns.add(assign);
@@ -482,168 +700,198 @@ public class ParserC {
         }
 
         // statement type unknown
-        eat(TokenTypeC.STATEMENT);
-        token = lexer.getToken();
-        return null;
+        return recoverStatement(TokenTypeC.STATEMENT, recorded);
     }
 
-    // BLock ::= '{' StatementList '}'
-    // Block ::= '{' StatementList '}'
-    private Block parseBlock() throws IOException {
-        eat(TokenTypeC.LBRACE);
+    // Exp ::= PrimaryExp { Binop PrimaryExp }
+    // top-level parsing function for an expression
+    private Exp parseExp() throws IOException {
+        return parseExp(0);
+    }
 
-        // recursively call parseStatement() until closing brace
-        StatementList stms = new StatementList();
-        while (token.getType() != TokenTypeC.RBRACE && token.getType() != TokenTypeC.EOF) {
-            stms.addElement(parseStatement());
-        }
+    // parse an expression whose binops all bind tighter than power. Prefix
+    // operators, parentheses and binops waiting for their operand go on the
+    // expression stack, so any nesting depth parses in this one loop; each
+    // binop binds by its table entry, so no lookup allocates or unboxes.
+    // Nothing here parses an expression again, so the stack starts empty and
+    // its arrays live in locals while parsing
+    private Exp parseExp(int power) throws IOException {
+        TokenTypeC[] ops = expOps; //open operators, innermost last
+        Exp[] lefts = expLhs; //lhs of open binops and array lookups
+        int[] powers = expPowers; //power of the expression each operator is in
+        int depth = 0;
+        while (true) {
+            TokenTypeC op;
+            Exp left = null;
+            int operandPower;
+            if (prefixes[tokenType.ordinal()]) {
+                // the lexer reads every '-' as MINUS, a leading one negates
+                op = tokenType == TokenTypeC.MINUS ? TokenTypeC.NEGATIVE : tokenType;
+                advance();
+                operandPower = op == TokenTypeC.LPAREN ? 0 : PREFIX_POWER;
+            } else {
+                Exp lhs = parsePrimaryExp();
+                while (true) {
+                    int binopPower = binopPowers[tokenType.ordinal()];
+                    if (binopPower > power) {
+                        // save binop before parsing rhs of exp: the index of an array
+                        // lookup is a whole expression up to ']', and binops are left
+                        // associative, the rhs only takes tighter ones
+                        op = tokenType;
+                        advance();
+                        operandPower = op == TokenTypeC.LBRACKET ? 0 : binopPower;
+                        if (prefixes[tokenType.ordinal()]) {
+                            left = lhs;
+                            break;
+                        }
 
-        if (!eat(TokenTypeC.RBRACE)) {
-            skipTo(TokenTypeC.RBRACE, TokenTypeC.SEMI);
-        }
+                        // a primary rhs that no tighter binop follows is complete,
+                        // the common case skips the stack
+                        Exp rhs = parsePrimaryExp();
+                        if (binopPowers[tokenType.ordinal()] > operandPower) {
+                            if (depth == ops.length) {
+                                growExpStack();
+                                ops = expOps;
+                                lefts = expLhs;
+                                powers = expPowers;
+                            }
+                            ops[depth] = op;
+                            lefts[depth] = lhs;
+                            powers[depth] = power;
+                            depth++;
+                            power = operandPower;
+                            lhs = rhs;
+                        } else if (op == TokenTypeC.LBRACKET) {
+                            eat(TokenTypeC.RBRACKET);
+                            lhs = new ArrayLookup(lhs, rhs);
+                        } else {
+                            lhs = newBinop(op, lhs, rhs);
+                        }
+                        continue;
+                    }
+                    if (depth == 0) {
+                        return lhs;
+                    }
 
-        return new Block(stms);
+                    // lhs is complete, apply the innermost open operator to it
+                    depth--;
+                    TokenTypeC open = ops[depth];
+                    power = powers[depth];
+                    if (open == TokenTypeC.LPAREN) {
+                        eat(TokenTypeC.RPAREN);
+                    } else if (open == TokenTypeC.NOT) {
+                        lhs = new Not(lhs);
+                    } else if (open == TokenTypeC.NEGATIVE) {
+                        lhs = new Negative(lhs);
+                    } else if (open == TokenTypeC.LBRACKET) {
+                        eat(TokenTypeC.RBRACKET);
+                        lhs = new ArrayLookup(lefts[depth], lhs);
+                    } else {
+                        lhs = newBinop(open, lefts[depth], lhs);
+                    }
+                    lefts[depth] = null;
+                }
+            }
+
+            // open op, its operand parses next
+            if (depth == ops.length) {
+                growExpStack();
+                ops = expOps;
+                lefts = expLhs;
+                powers = expPowers;
+            }
+            ops[depth] = op;
+            lefts[depth] = left;
+            powers[depth] = power;
+            depth++;
+            power = operandPower;
+        }
     }
 
-    // Exp ::= PrimaryExp | BinopRHS
-    // top-level parsing function for an expression
-    private Exp parseExp() throws IOException {
-        Exp lhs = parsePrimaryExp();
-        return parseBinopRHS(0, lhs); // check for binops following exp
+    // double the capacity of the expression stack
+    private void growExpStack() {
+        int capacity = expOps.length * 2;
+        expOps = Arrays.copyOf(expOps, capacity);
+        expLhs = Arrays.copyOf(expLhs, capacity);
+        expPowers = Arrays.copyOf(expPowers, capacity);
     }
 
-    // parsePrimaryExp ::= INT_CONST | FLOAT_CONST | CHAR_CONST | BOOLEAN_CONST | NEGATIVE | NOT | Identifier
-    // parse exp before any binop
+    // parsePrimaryExp ::= INT_CONST | FLOAT_CONST | CHAR_CONST | BOOLEAN_CONST | STRING_CONTS | Identifier
+    // parse exp before any binop, after its prefixes
     private Exp parsePrimaryExp() throws IOException {
-        switch (token.getType()) {
+        switch (tokenType) {
 
             case INT_CONST:
-                int intValue = token.getAttribute().getIntVal();
+                int intValue = tokens.getIntVal(cursor);
                 eat(TokenTypeC.INT_CONST);
                 return new IntegerLiteral(intValue);
 
             case FLOAT_CONST:
-                float floatValue = token.getAttribute().getFloatVal();
+                float floatValue = tokens.getFloatVal(cursor);
                 eat(TokenTypeC.FLOAT_CONST);
                 return new FloatLiteral(floatValue);
 
             case BOOLEAN_CONST:
-                boolean booleanVal = token.getAttribute().getBooleanVal();
+                boolean booleanVal = tokens.getBooleanVal(cursor);
                 eat(TokenTypeC.BOOLEAN_CONST);
                 return new BooleanLiteral(booleanVal);
             case STRING_CONTS:
-                String strValue = token.getAttribute().getStringVal();
+                String strValue = tokens.getString(cursor);
                 eat(TokenTypeC.STRING_CONTS);
                 return new StringLiteral(strValue);
             case CHAR_CONST:
-                char charVal = token.getAttribute().getCharVal();
+                char charVal = tokens.getCharVal(cursor);
                 eat(TokenTypeC.CHAR_CONST);
                 return new CharLiteral(charVal);
 
             case ID:
                 Identifier id = parseIdentifier();
                 identifiers.add(id);
-                return new IdentifierExp(id.getName());
-
-            case NOT:
-                eat(TokenTypeC.NOT);
-                return new Not(parseExp());
-
-            case NEGATIVE:
-                eat(TokenTypeC.NEGATIVE);
-                return new Negative(parseExp());
-
-            case LPAREN:
-                eat(TokenTypeC.LPAREN);
-                Exp exp = parseExp();
-                eat(TokenTypeC.RPAREN);
-                return exp;
+                return new IdentifierExp(id.getName(), id.getSymbol());
 
             default:
-                // unrecognizable expression
-                eat(TokenTypeC.EXPRESSION);
-                token = lexer.getToken();
-                return null;
+                // unrecognizable expression: skip to where an expression goes
+                // on or ends, parsing a primary expression met on the way
+                error(TokenTypeC.EXPRESSION);
+                skipTo(SYNC_EXP);
+                if ((FIRST_PRIMARY & 1L << tokenType.ordinal()) != 0) {
+                    return parsePrimaryExp();
+                }
+                return new ErrorExp();
         }
     }
 
-    // parse expressions according to operator precedence levels
-    private Exp parseBinopRHS(int level, Exp lhs) throws IOException {
-        // continuously parse exp until a lower order operator comes up
-        while (true) {
-            // grab operator precedence (-1 for non-operator token)
-            Integer val = binopLevels.get(token.getType());
-            int tokenLevel = (val != null) ? val.intValue() : -1;
-
-            // either op precedence is lower than prev op or token is not an op
-            if (tokenLevel < level) {
-                return lhs;
-            }
-
-            // save binop before parsing rhs of exp
-            TokenTypeC binop = token.getType();
-            eat(binop);
-
-            Exp rhs = parsePrimaryExp(); // parse rhs of exp
-
-            // grab operator precedence (-1 for non-operator token)
-            val = binopLevels.get(token.getType());
-            int nextLevel = (val != null) ? val.intValue() : -1;
-
-            // if next op has higher precedence than prev op, make recursive call
-            if (tokenLevel < nextLevel) {
-                rhs = parseBinopRHS(tokenLevel + 1, rhs);
-            }
-
-            // build AST for exp
-            switch (binop) {
-                case AND:
-                    lhs = new And(lhs, rhs);
-                    break;
-                case OR:
-                    lhs = new Or(lhs, rhs);
-                    break;
-                case EQ:
-                    lhs = new Equal(lhs, rhs);
-                    break;
-                case NEQ:
-                    lhs = new NotEqual(lhs, rhs);
-                    break;
-                case LT:
-                    lhs = new LessThan(lhs, rhs);
-                    break;
-                case RT:
-                    lhs = new MoreThan(lhs, rhs);
-                    break;
-                case LT_EQ:
-                    lhs = new LessThanEqual(lhs, rhs);
-                    break;
-                case RT_EQ:
-                    lhs = new MoreThanEqual(lhs, rhs);
-                    break;
-                case PLUS:
-                    lhs = new Plus(lhs, rhs);
-                    break;
-                case MINUS:
-                    lhs = new Minus(lhs, rhs);
-                    break;
-                case TIMES:
-                    lhs = new Times(lhs, rhs);
-                    break;
-                case DIV:
-                    lhs = new Divide(lhs, rhs);
-                    break;
-                case MOD:
-                    lhs = new Modules(lhs, rhs);
-                    break;
-                case LBRACKET:
-                    lhs = new ArrayLookup(lhs, rhs);
-                    eat(TokenTypeC.RBRACKET);
-                    break;
-                default:
-                    eat(TokenTypeC.OPERATOR);
-                    break;
-            }
+    // AST node of a binop
+    private static Exp newBinop(TokenTypeC binop, Exp lhs, Exp rhs) {
+        switch (binop) {
+            case AND:
+                return new And(lhs, rhs);
+            case OR:
+                return new Or(lhs, rhs);
+            case EQ:
+                return new Equal(lhs, rhs);
+            case NEQ:
+                return new NotEqual(lhs, rhs);
+            case LT:
+                return new LessThan(lhs, rhs);
+            case RT:
+                return new MoreThan(lhs, rhs);
+            case LT_EQ:
+                return new LessThanEqual(lhs, rhs);
+            case RT_EQ:
+                return new MoreThanEqual(lhs, rhs);
+            case PLUS:
+                return new Plus(lhs, rhs);
+            case MINUS:
+                return new Minus(lhs, rhs);
+            case TIMES:
+                return new Times(lhs, rhs);
+            case DIV:
+                return new Divide(lhs, rhs);
+            case MOD:
+                return new Modules(lhs, rhs);
+            default:
+                throw new IllegalArgumentException("not a binop: " + binop);
         }
     }
 
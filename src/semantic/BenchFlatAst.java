@@ -0,0 +1,103 @@
+package semantic;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import ast.FlatAst;
+import ast.Program;
+import lexer.Bench;
+import lexer.Diagnostics;
+import parser.Parser;
+
+// checks that a FlatAst converts back to the same Program, and that the
+// semantic analysis of the flat form reports the same messages as the
+// analysis of the parser side tables, with syntax errors or without, on the
+// test programs given as arguments and on a generated program; then times
+// both analyses and the flattening on a large generated program
+public class BenchFlatAst {
+
+	private static final Bench BENCH = new Bench(20);
+	private static final int STATEMENTS = 200000; //statements of the timed program
+
+	private static final String[] TYPES = {"int", "float", "char", "boolean", "int[10]", "float[10]",
+			"char[10]", "boolean[10]"};
+	private static final String[] TARGETS = {"v0", "v1", "v2", "v3", "v4", "v5", "v6", "v7", "u"};
+	private static final String[] VALUES = {"1", "2.5", "'c'", "true", "v0", "v1", "v2", "v3", "v4", "v5",
+			"v6", "v7", "w", "v0 + 1", "v1[2]"};
+	private static final String[] CONDITIONS = {"v3", "v0 < 1", "v1 == v0", "v3 && v3", "!v3", "v0 != 2"};
+
+	private static int failures;
+
+	public static void main(String[] args) throws IOException {
+		for (String fileName : args) {
+			check(fileName, new String(Files.readAllBytes(Paths.get(fileName)), StandardCharsets.UTF_8));
+		}
+		check("generated program", generate(2000));
+
+		String source = generate(STATEMENTS);
+		System.out.println("Benchmarking a program of " + STATEMENTS + " statements...");
+		Parser parser = new Parser(Bench.lex(source), new Diagnostics());
+		Program program = parser.parseProgram();
+		FlatAst flat = FlatAst.of(program);
+		long objectTime = BENCH.time(() -> {
+			SemanticAnalyzer semantic = new SemanticAnalyzer(parser);
+			semantic.analyzeProgram();
+			return semantic.getErrors();
+		});
+		long flattenTime = BENCH.time(() -> FlatAst.of(program).size() - flat.size());
+		long flatTime = BENCH.time(() -> {
+			SemanticAnalyzer semantic = new SemanticAnalyzer(flat, new Diagnostics());
+			semantic.analyzeProgram();
+			return -semantic.getErrors();
+		});
+
+		// print out statistics
+		System.out.println("---");
+		System.out.printf("Side table analysis: %.2f ms%n", objectTime / 1e6);
+		System.out.printf("Flattening: %.2f ms, flat analysis: %.2f ms%n", flattenTime / 1e6, flatTime / 1e6);
+		System.out.println("Checksum: " + BENCH.getChecksum());
+		System.out.println(failures == 0 ? "All programs matched" : failures + " programs differ");
+	}
+
+	// round trip the tree of a program and compare the messages of both analyses
+	private static void check(String name, String source) throws IOException {
+		Diagnostics diagnostics = new Diagnostics();
+		Parser parser = new Parser(Bench.lex(source), diagnostics);
+		Program program = parser.parseProgram();
+		int syntaxMessages = diagnostics.size();
+		new SemanticAnalyzer(parser).analyzeProgram();
+		List<String> expected = diagnostics.getMessages().subList(syntaxMessages, diagnostics.size());
+
+		FlatAst ast = FlatAst.of(program);
+		boolean sameTree = ast.sameAs(FlatAst.of(ast.toProgram()));
+		Diagnostics flatDiagnostics = new Diagnostics();
+		new SemanticAnalyzer(ast, flatDiagnostics).analyzeProgram();
+		boolean sameMessages = expected.equals(flatDiagnostics.getMessages());
+
+		if (!sameTree || !sameMessages) {
+			failures++;
+			System.out.println("FAILED " + name + ": same tree " + sameTree + ", same messages " + sameMessages);
+			System.out.println("side tables: " + expected);
+			System.out.println("flat: " + flatDiagnostics.getMessages());
+		} else {
+			System.out.println("OK " + name + ": " + syntaxMessages + " syntax errors, " + ast.size() + " nodes, "
+					+ expected.size() + " messages");
+		}
+	}
+
+	// a class declaring v0..v7 of every type, some twice, followed by
+	// assigns, ifs and whiles mixing every kind of value
+	private static String generate(int statements) {
+		StringBuilder source = new StringBuilder(statements * 24);
+		source.append("package p;\npublic class A {\n");
+		for (int i = 0; i < TYPES.length; i++) {
+			source.append(TYPES[i]).append(" v").append(i).append(";\n");
+		}
+		source.append("int v0, v5;\n");
+		BENCH.statements(source, statements, TARGETS, VALUES, CONDITIONS);
+		return source.append("}\n").toString();
+	}
+}
@@ -3,46 +3,54 @@ package semantic;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import ast.Assign;
-import ast.BooleanArrayType;
-import ast.BooleanLiteral;
-import ast.BooleanType;
-import ast.CharArrayType;
-import ast.CharLiteral;
-import ast.CharType;
-import ast.Equal;
 import ast.Exp;
-import ast.FloatArrayType;
-import ast.FloatLiteral;
-import ast.FloatType;
+import ast.FlatAst;
 import ast.Identifier;
 import ast.IdentifierExp;
-import ast.IntegerArrayType;
-import ast.IntegerLiteral;
-import ast.IntegerType;
-import ast.LessThan;
-import ast.LessThanEqual;
-import ast.MoreThan;
-import ast.MoreThanEqual;
-import ast.NotEqual;
-import ast.Type;
 import ast.VarDecl;
+import lexer.Diagnostics;
 import lexer.TokenType;
 import parser.Parser;
 
 public class SemanticAnalyzer {
 
-	private Parser parser;
+	private Parser parser; //null when analyzing a FlatAst
+	private FlatAst ast; //flat program to analyze, null when analyzing the parser side tables
+	private Diagnostics diagnostics; //collector of the semantic errors, shared with the parser
 	private ArrayList<VarDecl> declerations;
 	private ArrayList<Identifier> identifiers;
 	private ArrayList<Assign> assigns;
 	private ArrayList<Exp> conditions;
+	private boolean[] declared; //declared identifiers by symbol id
+	private int[] declaredTypes; //FlatAst kind of the type of the first declaration by symbol id
+	private int[] remaining; //declarations per symbol id not checked yet
 
+	private boolean parsed; //parser already ran parseProgram()
 	private int errors;
 
 	public SemanticAnalyzer(FileReader file) throws IOException{
 		this.parser = new Parser(file);
+		this.diagnostics = parser.getDiagnostics();
+	}
+
+	// analyze the side tables of a parser that already ran parseProgram()
+	public SemanticAnalyzer(Parser parser){
+		this.parser = parser;
+		this.diagnostics = parser.getDiagnostics();
+		this.parsed = true;
+	}
+
+	// analyze a flat program directly, reporting to diagnostics the messages
+	// the side tables give; slower than the side tables on a program just
+	// parsed (see BenchFlatAst), it serves trees with no parser, like those
+	// read back from an AstFile
+	public SemanticAnalyzer(FlatAst ast, Diagnostics diagnostics){
+		this.ast = ast;
+		this.diagnostics = diagnostics;
+		this.parsed = true;
 	}
 
 	// get number of errors
@@ -52,7 +60,14 @@ public class SemanticAnalyzer {
 	
 	//start semantic analyzer
 	public void analyzeProgram() throws IOException{
-		this.parser.parseProgram();
+		if(ast != null){
+			analyzeFlatProgram();
+			return;
+		}
+		if(!parsed){
+			this.parser.parseProgram();
+			parsed = true;
+		}
 		this.declerations = this.parser.getDecelarations();
 		checkDeclerations();
 		this.identifiers = this.parser.getIdentifiers();
@@ -63,301 +78,372 @@ public class SemanticAnalyzer {
 		checkConditions();	
 	}
 
+	// the same checks in the same order over a FlatAst: its nodes are in
+	// source order, so one scan by index meets the declarations, identifiers,
+	// assigns and conditions in the order the parser recorded them
+	private void analyzeFlatProgram(){
+		int size = ast.size();
+		int[] nodes = new int[64]; //VAR_DECL, ASSIGN, ARRAY_ASSIGN, IF and WHILE nodes, in order
+		int count = 0;
+		startDeclarations(ast.getSymbolCount());
+		for(int node = 0; node < size; node++){
+			int kind = ast.getKind(node);
+			if(kind == FlatAst.VAR_DECL || kind == FlatAst.ASSIGN || kind == FlatAst.ARRAY_ASSIGN
+					|| kind == FlatAst.IF || kind == FlatAst.WHILE){
+				if(count == nodes.length)
+					nodes = Arrays.copyOf(nodes, count * 2);
+				nodes[count++] = node;
+
+				// count declarations per symbol
+				int id = declaredId(node);
+				if(id >= 0)
+					remaining[ast.getPayload(id)]++;
+			}
+		}
+
+		// declarations
+		for(int i = 0; i < count; i++){
+			int id = declaredId(nodes[i]);
+			if(id >= 0)
+				declare(ast.getPayload(id), ast.getName(ast.getPayload(id)), ast.getKind(ast.getFirstChild(nodes[i])));
+		}
+
+		// identifiers of expressions and assigned identifiers
+		for(int node = 0; node < size; node++){
+			int kind = ast.getKind(node);
+			if(kind == FlatAst.IDENTIFIER_EXP){
+				checkIdentifier(ast.getPayload(node), ast.getName(ast.getPayload(node)));
+			}else if(kind == FlatAst.ASSIGN || kind == FlatAst.ARRAY_ASSIGN){
+				int id = ast.getFirstChild(node);
+				checkIdentifier(ast.getPayload(id), ast.getName(ast.getPayload(id)));
+			}
+		}
+
+		// assigns, the value is the last child
+		for(int i = 0; i < count; i++){
+			int kind = ast.getKind(nodes[i]);
+			if(kind == FlatAst.ASSIGN || kind == FlatAst.ARRAY_ASSIGN){
+				int id = ast.getFirstChild(nodes[i]);
+				int value = ast.getNextSibling(id);
+				if(kind == FlatAst.ARRAY_ASSIGN)
+					value = ast.getNextSibling(value);
+				checkAssign(ast.getPayload(id), ast.getName(ast.getPayload(id)), ast.getKind(value),
+						ast.getPayload(value));
+			}
+		}
+
+		// conditions, the first child of if and while
+		for(int i = 0; i < count; i++){
+			int kind = ast.getKind(nodes[i]);
+			if(kind == FlatAst.IF || kind == FlatAst.WHILE)
+				checkCondition(ast.getKind(ast.getFirstChild(nodes[i])));
+		}
+	}
+
+	// declared identifier of a VAR_DECL node, -1 for other nodes or a missing identifier
+	private int declaredId(int node){
+		if(ast.getKind(node) != FlatAst.VAR_DECL)
+			return -1;
+		int id = ast.getNextSibling(ast.getFirstChild(node));
+		return ast.getKind(id) == FlatAst.IDENTIFIER ? id : -1;
+	}
+
 	// check program declarations
 	private void checkDeclerations(){
-		for(int i = 0; i < declerations.size(); i++){
-			VarDecl varDecl = declerations.get(i);
-			String idName = varDecl.getId().getName();
+		startDeclarations(parser.getSymbols().size());
 
-			for(int j = i + 1; j < declerations.size(); j ++){
-				VarDecl _varDecl = declerations.get(j);
-				String _idName = _varDecl.getId().getName();
+		// count declarations per symbol
+		for (VarDecl varDecl : declerations) {
+			if(varDecl.getId() != null)
+				remaining[varDecl.getId().getSymbol()]++;
+		}
 
-				if(idName.equals(_idName))
-					error(ErrorType.MULTIPLE_DECLARATION, _idName);
-			}
+		for (VarDecl varDecl : declerations) {
+			Identifier id = varDecl.getId();
+			if(id != null)
+				declare(id.getSymbol(), id.getName(), FlatAst.kind(varDecl.getType()));
 		}
 	}
 
+	private void startDeclarations(int symbolCount){
+		declared = new boolean[symbolCount];
+		declaredTypes = new int[symbolCount];
+		remaining = new int[symbolCount];
+	}
+
+	// one declaration of an identifier, after remaining counted them all
+	private void declare(int symbol, String name, int typeKind){
+		// first declaration gives the identifier its type
+		if(!declared[symbol]){
+			declared[symbol] = true;
+			declaredTypes[symbol] = typeKind;
+		}
+
+		// one error per later declaration of the same identifier
+		remaining[symbol]--;
+		for(int j = 0; j < remaining[symbol]; j++)
+			error(ErrorType.MULTIPLE_DECLARATION, name);
+	}
+
 	// check program identifiers
 	private void checkIdenifiers(){
 		for (Identifier identifier : identifiers) {
-			if(!isIdentifierExists(identifier.getName()))
-				error(ErrorType.NO_DECLARATION, identifier.getName());
+			checkIdentifier(identifier.getSymbol(), identifier.getName());
 		}
 	}
+
+	private void checkIdentifier(int symbol, String name){
+		if(!isIdentifierExists(symbol))
+			error(ErrorType.NO_DECLARATION, name);
+	}
 	
 	// check program conditions
 	private void checkConditions(){
 		for (Exp exp : conditions) {
-			if((exp instanceof MoreThan || exp instanceof MoreThanEqual ||exp instanceof LessThan ||
-					exp instanceof LessThanEqual || exp instanceof NotEqual || exp instanceof Equal))
-				error(ErrorType.INVALID_CONDITION, null);
+			checkCondition(FlatAst.kind(exp));
 		}
 		
 	}
-	
-	// check if a specific identifier name is exists
-	private boolean isIdentifierExists(String name){
-		for (VarDecl varDecl : declerations) {
-			String idName = varDecl.getId().getName();
 
-			if(idName.equals(name))
-				return true;
-		}
-		return false;
+	private void checkCondition(int kind){
+		if((kind == FlatAst.MORE_THAN || kind == FlatAst.MORE_THAN_EQUAL || kind == FlatAst.LESS_THAN ||
+				kind == FlatAst.LESS_THAN_EQUAL || kind == FlatAst.NOT_EQUAL || kind == FlatAst.EQUAL))
+			error(ErrorType.INVALID_CONDITION, null);
+	}
+	
+	// check if a specific identifier is declared
+	private boolean isIdentifierExists(int symbol){
+		return declared[symbol];
 	}
 
 	// type checking of all the assign expressions
 	private void checkAssigns(){
 		for (Assign assign : assigns) {
-			Exp type = assign.getValue();
-			String idName = assign.getId().getName();
-			Type idType = getIdentifierType(idName);
+			Exp value = assign.getValue();
+			checkAssign(assign.getId().getSymbol(), assign.getId().getName(), FlatAst.kind(value),
+					value instanceof IdentifierExp ? ((IdentifierExp) value).getSymbol() : -1);
+		}
+	}
+
+	// type checking of one assign, of a value of kind type whose symbol is
+	// valueSymbol when it is an IDENTIFIER_EXP
+	private void checkAssign(int symbol, String idName, int type, int valueSymbol){
+		int idType = getIdentifierType(symbol);
+
+		// assign to int
+		if(idType == FlatAst.INTEGER_TYPE || idType == FlatAst.INTEGER_ARRAY_TYPE){
+
+			// float to int
+			if(type == FlatAst.FLOAT_LITERAL)
+				error(ErrorType.FLOAT_INT_CASTING, idName);
 
-			// assign to int
-			if(idType != null && (idType instanceof IntegerType || idType instanceof IntegerArrayType)){
+			// boolean to int
+			if(type == FlatAst.BOOLEAN_LITERAL)
+				error(ErrorType.BOOLEAN_INT_CASTING, idName);
+
+			// type(id) to int
+			if(type == FlatAst.IDENTIFIER_EXP){
+				int _idType = getIdentifierType(valueSymbol);
 
 				// float to int
-				if(type instanceof FloatLiteral)
+				if (_idType == FlatAst.FLOAT_TYPE)
 					error(ErrorType.FLOAT_INT_CASTING, idName);
 
 				// boolean to int
-				if(type instanceof BooleanLiteral)
+				else if( _idType == FlatAst.BOOLEAN_TYPE)
 					error(ErrorType.BOOLEAN_INT_CASTING, idName);
 
-				// type(id) to int
-				if(type instanceof IdentifierExp){
-					String _idName = ((IdentifierExp) type).getName();
-					Type _idType = getIdentifierType(_idName);
-
-					if(_idType != null){
-						// float to int
-						if (_idType instanceof FloatType)
-							error(ErrorType.FLOAT_INT_CASTING, idName);
-
-						// boolean to int
-						else if( _idType instanceof BooleanType)
-							error(ErrorType.BOOLEAN_INT_CASTING, idName);
+				if(idType == FlatAst.INTEGER_TYPE && isArrayType(_idType))
+					// identifier with array type
+					error(ErrorType.ARRAY_TO_SINGLE, idName);
 
-						if(idType instanceof IntegerType)
-							// identifier with array type
-							if (_idType instanceof FloatArrayType || _idType instanceof BooleanArrayType
-									|| _idType instanceof IntegerArrayType || _idType instanceof CharArrayType)
-								error(ErrorType.ARRAY_TO_SINGLE, idName);
+				if(idType == FlatAst.INTEGER_ARRAY_TYPE && isSingleType(_idType))
+					// identifier with single type
+					error(ErrorType.SINGLE_TO_ARRAY, idName);
+			}
+		}
 
-						if(idType instanceof IntegerArrayType)
-							// identifier with single type
-							if (_idType instanceof FloatType || _idType instanceof BooleanType
-									|| _idType instanceof IntegerType || _idType instanceof CharType)
-								error(ErrorType.SINGLE_TO_ARRAY, idName);
+		// assign to float
+		if(idType == FlatAst.FLOAT_TYPE || idType == FlatAst.FLOAT_ARRAY_TYPE){
 
-					}
+			// boolean to float
+			if(type == FlatAst.BOOLEAN_LITERAL)
+				error(ErrorType.BOOLEAN_FLOAT_CASTING, idName);
 
-				}
-			}
+			// char to float
+			if(type == FlatAst.CHAR_LITERAL)
+				error(ErrorType.CHAR_FLOAT_CASTING, idName);
 
-			// assign to float
-			if(idType != null && (idType instanceof FloatType || idType instanceof FloatArrayType)){
+			if(type == FlatAst.IDENTIFIER_EXP){
+				int _idType = getIdentifierType(valueSymbol);
 
 				// boolean to float
-				if(type instanceof BooleanLiteral)
+				if (_idType == FlatAst.BOOLEAN_TYPE)
 					error(ErrorType.BOOLEAN_FLOAT_CASTING, idName);
 
 				// char to float
-				if(type instanceof CharLiteral)
+				else if( _idType == FlatAst.CHAR_TYPE)
 					error(ErrorType.CHAR_FLOAT_CASTING, idName);
 
-				if(type instanceof IdentifierExp){
-
-					String _idName = ((IdentifierExp) type).getName();
-					Type _idType = getIdentifierType(_idName);
-
-					if(_idType != null){
-						// boolean to float
-						if (_idType instanceof BooleanType)
-							error(ErrorType.BOOLEAN_FLOAT_CASTING, idName);
-
-						// char to float
-						else if( _idType instanceof CharType)
-							error(ErrorType.CHAR_FLOAT_CASTING, idName);
-
-						if(idType instanceof FloatType)
-							// identifier with array type
-							if (_idType instanceof FloatArrayType || _idType instanceof BooleanArrayType
-									|| _idType instanceof IntegerArrayType || _idType instanceof CharArrayType)
-								error(ErrorType.ARRAY_TO_SINGLE, idName);
-
-						if(idType instanceof FloatArrayType)
-							// identifier with single type
-							if (_idType instanceof FloatType || _idType instanceof BooleanType
-									|| _idType instanceof IntegerType || _idType instanceof CharType)
-								error(ErrorType.SINGLE_TO_ARRAY, idName);
-					}
-				}
+				if(idType == FlatAst.FLOAT_TYPE && isArrayType(_idType))
+					// identifier with array type
+					error(ErrorType.ARRAY_TO_SINGLE, idName);
+
+				if(idType == FlatAst.FLOAT_ARRAY_TYPE && isSingleType(_idType))
+					// identifier with single type
+					error(ErrorType.SINGLE_TO_ARRAY, idName);
 			}
+		}
 
-			// assign to char
-			if(idType != null && (idType instanceof CharType || idType instanceof CharArrayType)){
+		// assign to char
+		if(idType == FlatAst.CHAR_TYPE || idType == FlatAst.CHAR_ARRAY_TYPE){
 
-				//int to char
-				if(type instanceof IntegerLiteral)
-					error(ErrorType.INT_CHAR_CASTING, idName);
+			//int to char
+			if(type == FlatAst.INTEGER_LITERAL)
+				error(ErrorType.INT_CHAR_CASTING, idName);
+
+			// float to char
+			if(type == FlatAst.FLOAT_LITERAL)
+				error(ErrorType.FLOAT_CHAR_CASTING, idName);
+
+			// boolean to char
+			if(type == FlatAst.BOOLEAN_LITERAL)
+				error(ErrorType.BOOLEAN_CHAR_CASTING, idName);
+
+			// type(id) to char
+			if(type == FlatAst.IDENTIFIER_EXP){
+				int _idType = getIdentifierType(valueSymbol);
 
 				// float to char
-				if(type instanceof FloatLiteral)
+				if (_idType == FlatAst.FLOAT_TYPE)
 					error(ErrorType.FLOAT_CHAR_CASTING, idName);
 
+				// int to char
+				else if (_idType == FlatAst.INTEGER_TYPE)
+					error(ErrorType.INT_CHAR_CASTING, idName);
+
 				// boolean to char
-				if(type instanceof BooleanLiteral)
+				else if( _idType == FlatAst.BOOLEAN_TYPE)
 					error(ErrorType.BOOLEAN_CHAR_CASTING, idName);
 
-				// type(id) to int
-				if(type instanceof IdentifierExp){
-					String _idName = ((IdentifierExp) type).getName();
-					Type _idType = getIdentifierType(_idName);
-
-					if(_idType != null){
+				if(idType == FlatAst.CHAR_TYPE && isArrayType(_idType))
+					// identifier with array type
+					error(ErrorType.ARRAY_TO_SINGLE, idName);
 
-						// float to char
-						if (_idType instanceof FloatType)
-							error(ErrorType.FLOAT_CHAR_CASTING, idName);
-
-						// int to char
-						else if (_idType instanceof IntegerType)
-							error(ErrorType.INT_CHAR_CASTING, idName);
-
-						// boolean to char
-						else if( _idType instanceof BooleanType)
-							error(ErrorType.BOOLEAN_CHAR_CASTING, idName);
+				if(idType == FlatAst.CHAR_ARRAY_TYPE && isSingleType(_idType))
+					// identifier with single type
+					error(ErrorType.SINGLE_TO_ARRAY, idName);
+			}
+		}
 
-						if(idType instanceof CharType)
-							// identifier with array type
-							if (_idType instanceof FloatArrayType || _idType instanceof BooleanArrayType
-									|| _idType instanceof IntegerArrayType || _idType instanceof CharArrayType)
-								error(ErrorType.ARRAY_TO_SINGLE, idName);
+		// assign to boolean
+		if(idType == FlatAst.BOOLEAN_TYPE || idType == FlatAst.BOOLEAN_ARRAY_TYPE){
+			//int to boolean
+			if(type == FlatAst.INTEGER_LITERAL)
+				error(ErrorType.INT_BOOLEAN_CASTING, idName);
 
-						if(idType instanceof CharArrayType)
-							// identifier with single type
-							if (_idType instanceof FloatType || _idType instanceof BooleanType
-									|| _idType instanceof IntegerType || _idType instanceof CharType)
-								error(ErrorType.SINGLE_TO_ARRAY, idName);
-					}
+			// float to boolean
+			if(type == FlatAst.FLOAT_LITERAL)
+				error(ErrorType.FLOAT_BOOLEAN_CASTING, idName);
 
-				}
-			}
+			// char to boolean
+			if(type == FlatAst.CHAR_LITERAL)
+				error(ErrorType.CHAR_BOOLEAN_CASTING, idName);
 
-			// assign to boolean
-			if(idType != null && (idType instanceof BooleanType || idType instanceof BooleanArrayType)){
-				//int to boolean
-				if(type instanceof IntegerLiteral)
-					error(ErrorType.INT_BOOLEAN_CASTING, idName);
+			// type(id) to boolean
+			if(type == FlatAst.IDENTIFIER_EXP){
+				int _idType = getIdentifierType(valueSymbol);
 
 				// float to boolean
-				if(type instanceof FloatLiteral)
-					error(ErrorType.FLOAT_BOOLEAN_CASTING, idName);
+				if (_idType == FlatAst.FLOAT_TYPE)
+					error(ErrorType.FLOAT_CHAR_CASTING, idName);
+
+				// int to boolean
+				else if (_idType == FlatAst.INTEGER_TYPE)
+					error(ErrorType.INT_CHAR_CASTING, idName);
 
 				// char to boolean
-				if(type instanceof CharLiteral)
+				else if( _idType == FlatAst.CHAR_TYPE)
 					error(ErrorType.CHAR_BOOLEAN_CASTING, idName);
 
-				// type(id) to int
-				if(type instanceof IdentifierExp){
-					String _idName = ((IdentifierExp) type).getName();
-					Type _idType = getIdentifierType(_idName);
-
-					if(_idType != null){
-
-						// float to boolean
-						if (_idType instanceof FloatType)
-							error(ErrorType.FLOAT_CHAR_CASTING, idName);
+				if(idType == FlatAst.BOOLEAN_TYPE && isArrayType(_idType))
+					// identifier with array type
+					error(ErrorType.ARRAY_TO_SINGLE, idName);
 
-						// int to boolean
-						else if (_idType instanceof IntegerType)
-							error(ErrorType.INT_CHAR_CASTING, idName);
-
-						// char to boolean
-						else if( _idType instanceof CharType)
-							error(ErrorType.CHAR_BOOLEAN_CASTING, idName);
-
-						if(idType instanceof BooleanType)
-							// identifier with array type
-							if (_idType instanceof FloatArrayType || _idType instanceof BooleanArrayType
-									|| _idType instanceof IntegerArrayType || _idType instanceof CharArrayType)
-								error(ErrorType.ARRAY_TO_SINGLE, idName);
-
-						if(_idType instanceof BooleanArrayType)
-							// identifier with single type
-							if (_idType instanceof FloatType || _idType instanceof BooleanType
-									|| _idType instanceof IntegerType || _idType instanceof CharType)
-								error(ErrorType.SINGLE_TO_ARRAY, idName);
-					}
-
-				}
+				// a boolean array holds no single values, so this never reports
+				if(_idType == FlatAst.BOOLEAN_ARRAY_TYPE && isSingleType(_idType))
+					// identifier with single type
+					error(ErrorType.SINGLE_TO_ARRAY, idName);
 			}
-
 		}
 	}
 
-	// get identifier type (IntegerType | IntegerArrayType | FloatType | FloatArrayType | CharType | CharArrayType)
-	private Type getIdentifierType(String name){
-		for (VarDecl dec : declerations) {
-			Identifier id = dec.getId();
-			if(id.getName().equals(name))
-				return dec.getType();
-		}
+	// IntegerArrayType | FloatArrayType | BooleanArrayType | CharArrayType
+	private static boolean isArrayType(int kind){
+		return kind == FlatAst.FLOAT_ARRAY_TYPE || kind == FlatAst.BOOLEAN_ARRAY_TYPE
+				|| kind == FlatAst.INTEGER_ARRAY_TYPE || kind == FlatAst.CHAR_ARRAY_TYPE;
+	}
+
+	// IntegerType | FloatType | BooleanType | CharType
+	private static boolean isSingleType(int kind){
+		return kind == FlatAst.FLOAT_TYPE || kind == FlatAst.BOOLEAN_TYPE
+				|| kind == FlatAst.INTEGER_TYPE || kind == FlatAst.CHAR_TYPE;
+	}
 
-		return null;
+	// get identifier type (IntegerType | IntegerArrayType | FloatType | FloatArrayType | CharType | CharArrayType),
+	// FlatAst.NULL when the identifier has none
+	private int getIdentifierType(int symbol){
+		return declaredTypes[symbol];
 	}
 
-	// print errors report
+	// report errors to the diagnostics
 	private void error(ErrorType errorType, Object parm){
 		errors++;
 		switch (errorType) {
 		case MULTIPLE_DECLARATION:
-			System.err.println("Declaration Error: MULTIPLE_DECLARATION, variable (" + (String) parm + ")");
+			diagnostics.report("Declaration Error: MULTIPLE_DECLARATION, variable (" + (String) parm + ")");
 			break;
 		case NO_DECLARATION:
-			System.err.println("Declaration Error: NO_DECLARATION, variable (" + (String) parm + ")");
+			diagnostics.report("Declaration Error: NO_DECLARATION, variable (" + (String) parm + ")");
 			break;
 		case FLOAT_INT_CASTING:
-			System.err.println("Casting Error: FLOAT_INT_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: FLOAT_INT_CASTING, variable (" + parm + ")");
 			break;
 		case BOOLEAN_INT_CASTING:
-			System.err.println("Casting Error: BOOLEAN_INT_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: BOOLEAN_INT_CASTING, variable (" + parm + ")");
 			break;
 		case INT_BOOLEAN_CASTING:
-			System.err.println("Casting Error: INT_BOOLEAN_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: INT_BOOLEAN_CASTING, variable (" + parm + ")");
 			break;
 		case BOOLEAN_FLOAT_CASTING:
-			System.err.println("Casting Error: BOOLEAN_FLOAT_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: BOOLEAN_FLOAT_CASTING, variable (" + parm + ")");
 			break;
 		case FLOAT_BOOLEAN_CASTING:
-			System.err.println("Casting Error: FLOAT_BOOLEAN_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: FLOAT_BOOLEAN_CASTING, variable (" + parm + ")");
 			break;
 		case CHAR_FLOAT_CASTING:
-			System.err.println("Casting Error: CHAR_FLOAT_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: CHAR_FLOAT_CASTING, variable (" + parm + ")");
 			break;
 		case CHAR_BOOLEAN_CASTING:
-			System.err.println("Casting Error: CHAR_BOOLEAN_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: CHAR_BOOLEAN_CASTING, variable (" + parm + ")");
 			break;
 		case FLOAT_CHAR_CASTING:
-			System.err.println("Casting Error: FLOAT_CHAR_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: FLOAT_CHAR_CASTING, variable (" + parm + ")");
 			break;
 		case BOOLEAN_CHAR_CASTING:
-			System.err.println("Casting Error: BOOLEAN_CHAR_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: BOOLEAN_CHAR_CASTING, variable (" + parm + ")");
 			break;
 		case INT_CHAR_CASTING:
-			System.err.println("Casting Error: INT_CHAR_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: INT_CHAR_CASTING, variable (" + parm + ")");
 			break;
 		case ARRAY_TO_SINGLE:
-			System.err.println("Invalid Assignment: ARRAY_TO_SINGLE, variable (" + parm + ")");
+			diagnostics.report("Invalid Assignment: ARRAY_TO_SINGLE, variable (" + parm + ")");
 			break;
 		case SINGLE_TO_ARRAY:
-			System.err.println("Invalid Assignment: SINGLE_TO_ARRAY, variable (" + parm + ")");
+			diagnostics.report("Invalid Assignment: SINGLE_TO_ARRAY, variable (" + parm + ")");
 			break;
 		case INVALID_CONDITION:
-			System.err.println("Invalid Condition: INVALID_CONDITION");
+			diagnostics.report("Invalid Condition: INVALID_CONDITION");
 			break;
 		default:
 			break;
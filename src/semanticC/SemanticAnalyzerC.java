@@ -28,21 +28,34 @@ import ast.MoreThanEqual;
 import ast.NotEqual;
 import ast.Type;
 import ast.VarDecl;
+import lexer.Diagnostics;
 import lexerC.TokenTypeC;
 import parserC.ParserC;
 
 public class SemanticAnalyzerC {
 
 	private ParserC parser;
+	private Diagnostics diagnostics; //collector of the semantic errors, shared with the parser
 	private ArrayList<VarDecl> declerations;
 	private ArrayList<Identifier> identifiers;
 	private ArrayList<Assign> assigns;
 	private ArrayList<Exp> conditions;
+	private boolean[] declared; //declared identifiers by symbol id
+	private Type[] declaredTypes; //type of the first declaration by symbol id
 
+	private boolean parsed; //parser already ran parseProgram()
 	private int errors;
 
 	public SemanticAnalyzerC(FileReader file) throws IOException{
 		this.parser = new ParserC(file);
+		this.diagnostics = parser.getDiagnostics();
+	}
+
+	// analyze the side tables of a parser that already ran parseProgram()
+	public SemanticAnalyzerC(ParserC parser){
+		this.parser = parser;
+		this.diagnostics = parser.getDiagnostics();
+		this.parsed = true;
 	}
 
 	// get number of errors
@@ -52,7 +65,10 @@ public class SemanticAnalyzerC {
 	
 	//start semantic analyzer
 	public void analyzeProgram() throws IOException{
-		this.parser.parseProgram();
+		if(!parsed){
+			this.parser.parseProgram();
+			parsed = true;
+		}
 		this.declerations = this.parser.getDecelarations();
 		checkDeclerations();
 		this.identifiers = this.parser.getIdentifiers();
@@ -65,24 +81,40 @@ public class SemanticAnalyzerC {
 
 	// check program declarations
 	private void checkDeclerations(){
-		for(int i = 0; i < declerations.size(); i++){
-			VarDecl varDecl = declerations.get(i);
-			String idName = varDecl.getId().getName();
+		int symbolCount = parser.getSymbols().size();
+		declared = new boolean[symbolCount];
+		declaredTypes = new Type[symbolCount];
 
-			for(int j = i + 1; j < declerations.size(); j ++){
-				VarDecl _varDecl = declerations.get(j);
-				String _idName = _varDecl.getId().getName();
+		// count declarations per symbol
+		int[] remaining = new int[symbolCount];
+		for (VarDecl varDecl : declerations) {
+			if(varDecl.getId() != null)
+				remaining[varDecl.getId().getSymbol()]++;
+		}
 
-				if(idName.equals(_idName))
-					error(ErrorType.MULTIPLE_DECLARATION, _idName);
+		for (VarDecl varDecl : declerations) {
+			Identifier id = varDecl.getId();
+			if(id == null)
+				continue;
+			int symbol = id.getSymbol();
+
+			// first declaration gives the identifier its type
+			if(!declared[symbol]){
+				declared[symbol] = true;
+				declaredTypes[symbol] = varDecl.getType();
 			}
+
+			// one error per later declaration of the same identifier
+			remaining[symbol]--;
+			for(int j = 0; j < remaining[symbol]; j++)
+				error(ErrorType.MULTIPLE_DECLARATION, id.getName());
 		}
 	}
 
 	// check program identifiers
 	private void checkIdenifiers(){
 		for (Identifier identifier : identifiers) {
-			if(!isIdentifierExists(identifier.getName()))
+			if(!isIdentifierExists(identifier.getSymbol()))
 				error(ErrorType.NO_DECLARATION, identifier.getName());
 		}
 	}
@@ -97,15 +129,9 @@ public class SemanticAnalyzerC {
 		
 	}
 	
-	// check if a specific identifier name is exists
-	private boolean isIdentifierExists(String name){
-		for (VarDecl varDecl : declerations) {
-			String idName = varDecl.getId().getName();
-
-			if(idName.equals(name))
-				return true;
-		}
-		return false;
+	// check if a specific identifier is declared
+	private boolean isIdentifierExists(int symbol){
+		return declared[symbol];
 	}
 
 	// type checking of all the assign expressions
@@ -113,7 +139,7 @@ public class SemanticAnalyzerC {
 		for (Assign assign : assigns) {
 			Exp type = assign.getValue();
 			String idName = assign.getId().getName();
-			Type idType = getIdentifierType(idName);
+			Type idType = getIdentifierType(assign.getId().getSymbol());
 
 			// assign to int
 			if(idType != null && (idType instanceof IntegerType || idType instanceof IntegerArrayType)){
@@ -128,8 +154,7 @@ public class SemanticAnalyzerC {
 
 				// type(id) to int
 				if(type instanceof IdentifierExp){
-					String _idName = ((IdentifierExp) type).getName();
-					Type _idType = getIdentifierType(_idName);
+					Type _idType = getIdentifierType(((IdentifierExp) type).getSymbol());
 
 					if(_idType != null){
 						// float to int
@@ -170,8 +195,7 @@ public class SemanticAnalyzerC {
 
 				if(type instanceof IdentifierExp){
 
-					String _idName = ((IdentifierExp) type).getName();
-					Type _idType = getIdentifierType(_idName);
+					Type _idType = getIdentifierType(((IdentifierExp) type).getSymbol());
 
 					if(_idType != null){
 						// boolean to float
@@ -214,8 +238,7 @@ public class SemanticAnalyzerC {
 
 				// type(id) to int
 				if(type instanceof IdentifierExp){
-					String _idName = ((IdentifierExp) type).getName();
-					Type _idType = getIdentifierType(_idName);
+					Type _idType = getIdentifierType(((IdentifierExp) type).getSymbol());
 
 					if(_idType != null){
 
@@ -263,8 +286,7 @@ public class SemanticAnalyzerC {
 
 				// type(id) to int
 				if(type instanceof IdentifierExp){
-					String _idName = ((IdentifierExp) type).getName();
-					Type _idType = getIdentifierType(_idName);
+					Type _idType = getIdentifierType(((IdentifierExp) type).getSymbol());
 
 					if(_idType != null){
 
@@ -300,64 +322,58 @@ public class SemanticAnalyzerC {
 	}
 
 	// get identifier type (IntegerType | IntegerArrayType | FloatType | FloatArrayType | CharType | CharArrayType)
-	private Type getIdentifierType(String name){
-		for (VarDecl dec : declerations) {
-			Identifier id = dec.getId();
-			if(id.getName().equals(name))
-				return dec.getType();
-		}
-
-		return null;
+	private Type getIdentifierType(int symbol){
+		return declaredTypes[symbol];
 	}
 
-	// print errors report
+	// report errors to the diagnostics
 	private void error(ErrorType errorType, Object parm){
 		errors++;
 		switch (errorType) {
 		case MULTIPLE_DECLARATION:
-			System.err.println("Declaration Error: MULTIPLE_DECLARATION, variable (" + (String) parm + ")");
+			diagnostics.report("Declaration Error: MULTIPLE_DECLARATION, variable (" + (String) parm + ")");
 			break;
 		case NO_DECLARATION:
-			System.err.println("Declaration Error: NO_DECLARATION, variable (" + (String) parm + ")");
+			diagnostics.report("Declaration Error: NO_DECLARATION, variable (" + (String) parm + ")");
 			break;
 		case FLOAT_INT_CASTING:
-			System.err.println("Casting Error: FLOAT_INT_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: FLOAT_INT_CASTING, variable (" + parm + ")");
 			break;
 		case BOOLEAN_INT_CASTING:
-			System.err.println("Casting Error: BOOLEAN_INT_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: BOOLEAN_INT_CASTING, variable (" + parm + ")");
 			break;
 		case INT_BOOLEAN_CASTING:
-			System.err.println("Casting Error: INT_BOOLEAN_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: INT_BOOLEAN_CASTING, variable (" + parm + ")");
 			break;
 		case BOOLEAN_FLOAT_CASTING:
-			System.err.println("Casting Error: BOOLEAN_FLOAT_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: BOOLEAN_FLOAT_CASTING, variable (" + parm + ")");
 			break;
 		case FLOAT_BOOLEAN_CASTING:
-			System.err.println("Casting Error: FLOAT_BOOLEAN_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: FLOAT_BOOLEAN_CASTING, variable (" + parm + ")");
 			break;
 		case CHAR_FLOAT_CASTING:
-			System.err.println("Casting Error: CHAR_FLOAT_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: CHAR_FLOAT_CASTING, variable (" + parm + ")");
 			break;
 		case CHAR_BOOLEAN_CASTING:
-			System.err.println("Casting Error: CHAR_BOOLEAN_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: CHAR_BOOLEAN_CASTING, variable (" + parm + ")");
 			break;
 		case FLOAT_CHAR_CASTING:
-			System.err.println("Casting Error: FLOAT_CHAR_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: FLOAT_CHAR_CASTING, variable (" + parm + ")");
 			break;
 		case BOOLEAN_CHAR_CASTING:
-			System.err.println("Casting Error: BOOLEAN_CHAR_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: BOOLEAN_CHAR_CASTING, variable (" + parm + ")");
 			break;
 		case INT_CHAR_CASTING:
-			System.err.println("Casting Error: INT_CHAR_CASTING, variable (" + parm + ")");
+			diagnostics.report("Casting Error: INT_CHAR_CASTING, variable (" + parm + ")");
 			break;
 		case ARRAY_TO_SINGLE:
-			System.err.println("Invalid Assignment: ARRAY_TO_SINGLE, variable (" + parm + ")");
+			diagnostics.report("Invalid Assignment: ARRAY_TO_SINGLE, variable (" + parm + ")");
 			break;
 		case SINGLE_TO_ARRAY:
-			System.err.println("Invalid Assignment: SINGLE_TO_ARRAY, variable (" + parm + ")");
+			diagnostics.report("Invalid Assignment: SINGLE_TO_ARRAY, variable (" + parm + ")");
 			break;
 		case INVALID_CONDITION:
-			System.err.println("Invalid Condition: INVALID_CONDITION");
+			diagnostics.report("Invalid Condition: INVALID_CONDITION");
 			break;
 		default:
 			break;
@@ -461,4 +461,14 @@ public class PrintVisitor implements Visitor {
         System.out.println("String []");
     }
 
+    @Override
+    public void visit(ErrorStatement errorStm) {
+        System.out.print("<error>;");
+    }
+
+    @Override
+    public void visit(ErrorExp errorExp) {
+        System.out.print("<error>");
+    }
+
 }
@@ -99,4 +99,8 @@ public interface Visitor {
     public void visit(StringLiteral aThis);
 
     public void visit(StringArrayType aThis);
+
+    public void visit(ErrorStatement errorStm);
+
+    public void visit(ErrorExp errorExp);
 }